@@ -0,0 +1,105 @@
+package guru.springframework.spring5webfluxrest.benchmarks;
+
+import guru.springframework.spring5webfluxrest.cache.IdBatcher;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import guru.springframework.spring5webfluxrest.repositories.BulkWriteRepository;
+import guru.springframework.spring5webfluxrest.repositories.VendorRepository;
+import guru.springframework.spring5webfluxrest.repositories.VendorSearchRepositoryImpl;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A burst of concurrent lookups by id against the embedded mongod, each going to the database on
+ * its own or through an {@link IdBatcher}. The {@code roundTrips} counter is the number of queries
+ * sent per burst.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchingBenchmark {
+    private static final int DOCUMENTS = 10_000;
+
+    @Param({"direct", "batched"})
+    String lookup;
+
+    @Param({"1", "10", "100"})
+    int concurrent;
+
+    private EmbeddedMongo mongo;
+    private List<String> ids;
+    private Function<String, Mono<Vendor>> findById;
+    private final AtomicLong queries = new AtomicLong();
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RoundTrips {
+        public long roundTrips;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mongo = new EmbeddedMongo();
+        VendorRepository vendorRepository = mongo.getRepository(VendorRepository.class, new VendorSearchRepositoryImpl(mongo.getTemplate()));
+
+        List<Vendor> vendors = new ArrayList<>(DOCUMENTS);
+        for(int i = 0; i < DOCUMENTS; i++) {
+            vendors.add(Vendor.builder().firstName("Joe").lastName("Buck " + i).build());
+        }
+        new BulkWriteRepository(mongo.getTemplate()).insertUnordered(Vendor.class, vendors).block();
+        ids = vendorRepository.findAll().map(Vendor::getId).collectList().block();
+
+        if("batched".equals(lookup)) {
+            findById = new IdBatcher<Vendor>(batch -> {
+                queries.incrementAndGet();
+                return vendorRepository.findAllById(batch);
+            }, Vendor::getId, 100, Duration.ofMillis(1))::get;
+        } else {
+            findById = id -> {
+                queries.incrementAndGet();
+                return vendorRepository.findById(id);
+            };
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongo.close();
+    }
+
+    @Benchmark
+    public List<Vendor> burst(RoundTrips roundTrips) {
+        long before = queries.get();
+        List<Vendor> found = Flux.range(0, concurrent)
+                .flatMap(i -> findById.apply(ids.get(ThreadLocalRandom.current().nextInt(ids.size()))))
+                .collectList()
+                .block();
+        roundTrips.roundTrips += queries.get() - before;
+        return found;
+    }
+}
@@ -0,0 +1,87 @@
+package guru.springframework.spring5webfluxrest.benchmarks;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of a page of vendors in each format the API serves. The size of one page
+ * in each format is printed at setup, so the bytes on the wire can be read next to the times.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BinaryFormatBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    String format;
+
+    @Param({"1", "100"})
+    int size;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private Vendor[] vendors;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper(factory(format));
+        writer = objectMapper.writerFor(Vendor[].class);
+        reader = objectMapper.readerFor(Vendor[].class);
+
+        List<Vendor> page = new ArrayList<>(size);
+        for(int i = 0; i < size; i++) {
+            String id = String.format("5bf0a1c2d3e4f5a6b7c8%04x", i);
+            page.add(Vendor.builder().id(id).firstName("Joe").lastName("Buck " + i).version(0L).build());
+        }
+        vendors = page.toArray(new Vendor[0]);
+        encoded = writer.writeValueAsBytes(vendors);
+
+        System.out.printf("%n%s: %d bytes for %d vendors, %d per vendor%n", format, encoded.length, size, encoded.length / size);
+    }
+
+    @Benchmark
+    public byte[] encodeVendors() throws IOException {
+        return writer.writeValueAsBytes(vendors);
+    }
+
+    @Benchmark
+    public Vendor[] decodeVendors() throws IOException {
+        return reader.readValue(encoded);
+    }
+
+    private static JsonFactory factory(String format) {
+        switch(format) {
+            case "smile":
+                return new SmileFactory();
+            case "cbor":
+                return new CBORFactory();
+            default:
+                return new JsonFactory();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package guru.springframework.spring5webfluxrest.benchmarks;
+
+import guru.springframework.spring5webfluxrest.bulk.BatchResult;
+import guru.springframework.spring5webfluxrest.bulk.BulkIngester;
+import guru.springframework.spring5webfluxrest.bulk.IngestionProperties;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import guru.springframework.spring5webfluxrest.repositories.BulkWriteRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vendors upserted through the {@link BulkIngester} against the embedded mongod, {@code batchSize} to a
+ * bulk write. Scores are documents written per second; a batch of one is a round trip per document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkWriteBenchmark {
+    private static final int DOCUMENTS = 1000;
+
+    @Param({"1", "10", "100", "1000"})
+    public int batchSize;
+
+    private EmbeddedMongo mongo;
+    private BulkIngester bulkIngester;
+    private List<Vendor> vendors;
+    private long round;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mongo = new EmbeddedMongo();
+
+        IngestionProperties properties = new IngestionProperties();
+        properties.setBatchSize(batchSize);
+        properties.setBatchTimeout(Duration.ofMinutes(1));
+        bulkIngester = new BulkIngester(new BulkWriteRepository(mongo.getTemplate()), properties);
+
+        vendors = new ArrayList<>(DOCUMENTS);
+        for(int n = 0; n < DOCUMENTS; n++) {
+            vendors.add(Vendor.builder().id(String.format("vendor%04d", n)).firstName("Joe").build());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongo.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DOCUMENTS)
+    public List<BatchResult> upsertVendors() {
+        // a new last name each round, so every replace after the first modifies its document
+        String lastName = "Buck " + round++;
+        vendors.forEach(vendor -> vendor.setLastName(lastName));
+
+        return bulkIngester.replace(Vendor.class, Flux.fromIterable(vendors)).collectList().block();
+    }
+}
@@ -0,0 +1,138 @@
+package guru.springframework.spring5webfluxrest.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.springframework.spring5webfluxrest.bulk.BulkIngester;
+import guru.springframework.spring5webfluxrest.bulk.IngestionProperties;
+import guru.springframework.spring5webfluxrest.bulk.WriteBehindBuffer;
+import guru.springframework.spring5webfluxrest.cache.ReadThroughCache;
+import guru.springframework.spring5webfluxrest.config.StreamingJsonCodecCustomizer;
+import guru.springframework.spring5webfluxrest.controllers.CategoryController;
+import guru.springframework.spring5webfluxrest.controllers.VendorController;
+import guru.springframework.spring5webfluxrest.domain.Category;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import guru.springframework.spring5webfluxrest.handlers.RouterConfig;
+import guru.springframework.spring5webfluxrest.repositories.CategoryRepository;
+import guru.springframework.spring5webfluxrest.repositories.ChangeCounters;
+import guru.springframework.spring5webfluxrest.repositories.VendorRepository;
+import guru.springframework.spring5webfluxrest.services.CategoryService;
+import guru.springframework.spring5webfluxrest.services.VendorService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The whole WebFlux request path (routing, argument resolution, codecs) through the API, with
+ * in-memory repositories behind it, served either by the annotated controllers or by the router
+ * functions. Sample mode reports p99 per style; add {@code -prof gc} for bytes allocated per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ControllerBenchmark {
+    private static final int DOCUMENTS = 1000;
+
+    @Param({"annotated", "functional"})
+    String style;
+
+    private WebTestClient webTestClient;
+    private boolean renamed;
+
+    @Setup
+    public void setUp() {
+        Map<String, Category> categories = new LinkedHashMap<>();
+        Map<String, Vendor> vendors = new LinkedHashMap<>();
+        for(int i = 0; i < DOCUMENTS; i++) {
+            String id = String.format("%04d", i);
+            categories.put(id, Category.builder().id(id).description("Fruits " + i).version(0L).build());
+            vendors.put(id, Vendor.builder().id(id).firstName("Joe").lastName("Buck " + i).version(0L).build());
+        }
+
+        CategoryRepository categoryRepository = StubRepositories.create(CategoryRepository.class, categories, Category::getId);
+        VendorRepository vendorRepository = StubRepositories.create(VendorRepository.class, vendors, Vendor::getId);
+        BulkIngester bulkIngester = new BulkIngester(StubRepositories.bulkWrites(), new IngestionProperties());
+        ChangeCounters changeCounters = StubRepositories.changeCounters();
+
+        CategoryService categoryService = new CategoryService(categoryRepository,
+                ReadThroughCache.disabled("categories", categoryRepository::findById), bulkIngester,
+                WriteBehindBuffer.disabled("categories"), changeCounters);
+        VendorService vendorService = new VendorService(vendorRepository,
+                ReadThroughCache.disabled("vendors", vendorRepository::findById), bulkIngester,
+                WriteBehindBuffer.disabled("vendors"), changeCounters);
+        StreamingJsonCodecCustomizer codecs = new StreamingJsonCodecCustomizer(new ObjectMapper());
+
+        if("functional".equals(style)) {
+            RouterConfig routerConfig = new RouterConfig();
+            webTestClient = WebTestClient
+                    .bindToRouterFunction(routerConfig.categoryRoutes(routerConfig.categoryHandler(categoryService))
+                            .and(routerConfig.vendorRoutes(routerConfig.vendorHandler(vendorService))))
+                    .handlerStrategies(HandlerStrategies.builder().codecs(codecs::customize).build())
+                    .build();
+        } else {
+            webTestClient = WebTestClient
+                    .bindToController(new CategoryController(categoryService), new VendorController(vendorService))
+                    .httpMessageCodecs(codecs::customize)
+                    .build();
+        }
+    }
+
+    @Benchmark
+    public byte[] getCategoryById() {
+        return get(CategoryController.API_V1_CATEGORIES + "/0042", MediaType.APPLICATION_JSON);
+    }
+
+    @Benchmark
+    public byte[] listCategories() {
+        return get(CategoryController.API_V1_CATEGORIES + "?limit=100", MediaType.APPLICATION_JSON);
+    }
+
+    @Benchmark
+    public byte[] getVendorById() {
+        return get(VendorController.API_V1_VENDORS + "/0042", MediaType.APPLICATION_JSON);
+    }
+
+    @Benchmark
+    public byte[] listVendors() {
+        return get(VendorController.API_V1_VENDORS + "?limit=100", MediaType.APPLICATION_JSON);
+    }
+
+    @Benchmark
+    public byte[] streamVendors() {
+        return get(VendorController.API_V1_VENDORS, StreamingJsonCodecCustomizer.APPLICATION_NDJSON);
+    }
+
+    @Benchmark
+    public byte[] patchVendor() {
+        // alternate the name so every patch changes the vendor and goes through save
+        renamed = !renamed;
+        return webTestClient.patch().uri(VendorController.API_V1_VENDORS + "/0042")
+                .body(Mono.just(Vendor.builder().firstName(renamed ? "Jim" : "Joe").build()), Vendor.class)
+                .exchange()
+                .expectBody().returnResult().getResponseBody();
+    }
+
+    private byte[] get(String uri, MediaType accept) {
+        return webTestClient.get().uri(uri)
+                .accept(accept)
+                .exchange()
+                .expectBody().returnResult().getResponseBody();
+    }
+}
@@ -0,0 +1,68 @@
+package guru.springframework.spring5webfluxrest.benchmarks;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.IMongodConfig;
+import de.flapdoodle.embed.mongo.config.MongodConfigBuilder;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.repository.support.ReactiveMongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import java.io.IOException;
+
+/**
+ * The same embedded mongod the application runs against in development, started on a free port for
+ * one benchmark trial.
+ */
+class EmbeddedMongo implements AutoCloseable {
+    private static final String DATABASE = "benchmarks";
+
+    private final String uri;
+    private final MongodExecutable executable;
+    private final MongoClient client;
+    private final ReactiveMongoTemplate template;
+
+    EmbeddedMongo() throws IOException {
+        IMongodConfig config = new MongodConfigBuilder()
+                .version(Version.Main.PRODUCTION)
+                .net(new Net())
+                .build();
+
+        executable = MongodStarter.getDefaultInstance().prepare(config);
+        executable.start();
+
+        uri = "mongodb://localhost:" + config.net().getPort() + "/" + DATABASE;
+        client = MongoClients.create(uri);
+        template = new ReactiveMongoTemplate(client, DATABASE);
+    }
+
+    /**
+     * Connection string for {@code spring.data.mongodb.uri}, naming the benchmark database.
+     */
+    String getUri() {
+        return uri;
+    }
+
+    ReactiveMongoTemplate getTemplate() {
+        return template;
+    }
+
+    /**
+     * A repository backed by this mongod. Outside a Spring context the implementations of custom
+     * fragments are not found by name, so they have to be passed in.
+     */
+    <T> T getRepository(Class<T> repositoryInterface, Object... fragmentImplementations) {
+        return new ReactiveMongoRepositoryFactory(template)
+                .getRepository(repositoryInterface, RepositoryFragments.just(fragmentImplementations));
+    }
+
+    @Override
+    public void close() {
+        client.close();
+        executable.stop();
+    }
+}
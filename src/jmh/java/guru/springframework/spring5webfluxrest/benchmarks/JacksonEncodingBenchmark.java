@@ -0,0 +1,94 @@
+package guru.springframework.spring5webfluxrest.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.springframework.spring5webfluxrest.config.StreamingJsonCodecCustomizer;
+import guru.springframework.spring5webfluxrest.domain.Category;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding of list responses the way the controllers write them: a JSON array for {@code list}, one
+ * document per line for {@code stream}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class JacksonEncodingBenchmark {
+    private static final ResolvableType VENDOR_TYPE = ResolvableType.forClass(Vendor.class);
+    private static final ResolvableType CATEGORY_TYPE = ResolvableType.forClass(Category.class);
+
+    @Param({"1", "100", "1000"})
+    int size;
+
+    @Param({"application/json", StreamingJsonCodecCustomizer.APPLICATION_NDJSON_VALUE})
+    String mediaType;
+
+    private Jackson2JsonEncoder encoder;
+    private DataBufferFactory bufferFactory;
+    private MediaType contentType;
+    private List<Vendor> vendors;
+    private List<Category> categories;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        encoder = new Jackson2JsonEncoder(objectMapper);
+        encoder.setStreamingMediaTypes(Collections.singletonList(StreamingJsonCodecCustomizer.APPLICATION_NDJSON));
+        bufferFactory = new DefaultDataBufferFactory();
+        contentType = MediaType.parseMediaType(mediaType);
+
+        vendors = new ArrayList<>(size);
+        categories = new ArrayList<>(size);
+        for(int i = 0; i < size; i++) {
+            String id = String.format("5bf0a1c2d3e4f5a6b7c8%04x", i);
+            vendors.add(Vendor.builder().id(id).firstName("Joe").lastName("Buck " + i).version(0L).build());
+            categories.add(Category.builder().id(id).description("Fruits " + i).version(0L).build());
+        }
+    }
+
+    @Benchmark
+    public long encodeVendors() {
+        return encode(Flux.fromIterable(vendors), VENDOR_TYPE);
+    }
+
+    @Benchmark
+    public long encodeCategories() {
+        return encode(Flux.fromIterable(categories), CATEGORY_TYPE);
+    }
+
+    private long encode(Flux<?> values, ResolvableType type) {
+        return encoder.encode(values, bufferFactory, type, contentType, Collections.emptyMap())
+                .map(buffer -> {
+                    int written = buffer.readableByteCount();
+                    DataBufferUtils.release(buffer);
+                    return (long) written;
+                })
+                .reduce(0L, Long::sum)
+                .block();
+    }
+}
@@ -0,0 +1,126 @@
+package guru.springframework.spring5webfluxrest.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.springframework.spring5webfluxrest.bulk.BulkIngester;
+import guru.springframework.spring5webfluxrest.bulk.IngestionProperties;
+import guru.springframework.spring5webfluxrest.bulk.WriteBehindBuffer;
+import guru.springframework.spring5webfluxrest.cache.ReadThroughCache;
+import guru.springframework.spring5webfluxrest.config.PooledBuffersCustomizer;
+import guru.springframework.spring5webfluxrest.config.StreamingJsonCodecCustomizer;
+import guru.springframework.spring5webfluxrest.controllers.VendorController;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import guru.springframework.spring5webfluxrest.handlers.RouterConfig;
+import guru.springframework.spring5webfluxrest.repositories.VendorRepository;
+import guru.springframework.spring5webfluxrest.services.VendorService;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A page of vendors through a real Netty server and socket, with and without compression and with
+ * heap or direct pooled buffers. {@code bytesReceived} is what came over the wire per request; add
+ * {@code -prof gc} for the allocation per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ListResponseBenchmark {
+    private static final int DOCUMENTS = 1000;
+    private static final int MIN_COMPRESSED_SIZE = 2048;
+
+    @Param({"off", "gzip"})
+    String compression;
+
+    @Param({"heap", "direct"})
+    String buffers;
+
+    @Param({"10", "1000"})
+    int limit;
+
+    private DisposableServer server;
+    private HttpClient client;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Traffic {
+        public long bytesReceived;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<String, Vendor> vendors = new LinkedHashMap<>();
+        for(int i = 0; i < DOCUMENTS; i++) {
+            String id = String.format("%04d", i);
+            vendors.put(id, Vendor.builder().id(id).firstName("Joe").lastName("Buck " + i).version(0L).build());
+        }
+
+        VendorRepository vendorRepository = StubRepositories.create(VendorRepository.class, vendors, Vendor::getId);
+        VendorService vendorService = new VendorService(vendorRepository,
+                ReadThroughCache.disabled("vendors", vendorRepository::findById),
+                new BulkIngester(StubRepositories.bulkWrites(), new IngestionProperties()),
+                WriteBehindBuffer.disabled("vendors"), StubRepositories.changeCounters());
+
+        RouterConfig routerConfig = new RouterConfig();
+        StreamingJsonCodecCustomizer codecs = new StreamingJsonCodecCustomizer(new ObjectMapper());
+        ReactorHttpHandlerAdapter handler = new ReactorHttpHandlerAdapter(RouterFunctions.toHttpHandler(
+                routerConfig.vendorRoutes(routerConfig.vendorHandler(vendorService)),
+                HandlerStrategies.builder().codecs(codecs::customize).build()));
+
+        HttpServer httpServer = new PooledBuffersCustomizer("direct".equals(buffers)).apply(HttpServer.create())
+                .host("localhost")
+                .port(0);
+        if("gzip".equals(compression)) {
+            httpServer = httpServer.compress(MIN_COMPRESSED_SIZE);
+        }
+        server = httpServer.handle(handler).bindNow();
+
+        // asks for gzip but leaves the body compressed, so the bytes counted are the bytes sent
+        client = HttpClient.create()
+                .baseUrl("http://localhost:" + server.port())
+                .headers(headers -> headers.set(HttpHeaderNames.ACCEPT_ENCODING, HttpHeaderValues.GZIP));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.disposeNow();
+    }
+
+    @Benchmark
+    public int listVendors(Traffic traffic) {
+        int received = client.get()
+                .uri(VendorController.API_V1_VENDORS + "?limit=" + limit)
+                .responseContent()
+                .aggregate()
+                .asByteArray()
+                .map(body -> body.length)
+                .block();
+        traffic.bytesReceived += received;
+        return received;
+    }
+}
@@ -0,0 +1,93 @@
+package guru.springframework.spring5webfluxrest.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import guru.springframework.spring5webfluxrest.repositories.VendorSearch;
+import guru.springframework.spring5webfluxrest.repositories.VendorSearchRepositoryImpl;
+import guru.springframework.spring5webfluxrest.services.Fields;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A page of vendors read and encoded whole or with {@code fields=}, where each stored vendor carries
+ * {@code extraFields} fields the API does not map. Those still cross the wire from mongod unless a
+ * projection leaves them behind.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectionBenchmark {
+    private static final int DOCUMENTS = 10000;
+    private static final Pageable PAGE = PageRequest.of(0, 100, Sort.by("id"));
+    private static final VendorSearch ALL_VENDORS = VendorSearch.builder().build();
+
+    @Param({"0", "30"})
+    public int extraFields;
+
+    @Param({"", "lastName", "firstName,lastName"})
+    public String fields;
+
+    private EmbeddedMongo mongo;
+    private VendorSearchRepositoryImpl searchRepository;
+    private ObjectMapper objectMapper;
+    private Fields selected;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mongo = new EmbeddedMongo();
+        searchRepository = new VendorSearchRepositoryImpl(mongo.getTemplate());
+        objectMapper = new ObjectMapper();
+        selected = Fields.parse(Vendor.class, fields);
+
+        List<Document> vendors = new ArrayList<>(DOCUMENTS);
+        for(int n = 0; n < DOCUMENTS; n++) {
+            Document vendor = new Document("firstName", "Joe").append("lastName", "Buck " + n);
+            for(int field = 0; field < extraFields; field++) {
+                vendor.append(String.format("attribute%02d", field), "a value of about forty characters, " + n);
+            }
+            vendors.add(vendor);
+        }
+        // written as plain documents, since the extra fields are not on Vendor
+        Mono.from(mongo.getTemplate().getCollection(mongo.getTemplate().getCollectionName(Vendor.class))
+                .insertMany(vendors))
+                .block();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongo.close();
+    }
+
+    @Benchmark
+    public byte[] listVendors() throws JsonProcessingException {
+        List<Vendor> page = searchRepository.search(ALL_VENDORS, null, PAGE, selected.getNames())
+                .collectList()
+                .block();
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,101 @@
+package guru.springframework.spring5webfluxrest.benchmarks;
+
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import guru.springframework.spring5webfluxrest.repositories.BulkWriteRepository;
+import guru.springframework.spring5webfluxrest.repositories.BulkWriteRepository.InsertResult;
+import guru.springframework.spring5webfluxrest.repositories.VendorRepository;
+import guru.springframework.spring5webfluxrest.repositories.VendorSearchRepositoryImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trips to the embedded mongod through the repositories the controllers use.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepositoryBenchmark {
+    private static final int DOCUMENTS = 10_000;
+    private static final int PAGE_SIZE = 100;
+    private static final int BATCH_SIZE = 1000;
+
+    private EmbeddedMongo mongo;
+    private VendorRepository vendorRepository;
+    private BulkWriteRepository bulkWriteRepository;
+    private List<String> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mongo = new EmbeddedMongo();
+        vendorRepository = mongo.getRepository(VendorRepository.class, new VendorSearchRepositoryImpl(mongo.getTemplate()));
+        bulkWriteRepository = new BulkWriteRepository(mongo.getTemplate());
+
+        bulkWriteRepository.insertUnordered(Vendor.class, vendors(DOCUMENTS)).block();
+        ids = vendorRepository.findAll().map(Vendor::getId).collectList().block();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongo.close();
+    }
+
+    @Benchmark
+    public Vendor findById() {
+        return vendorRepository.findById(randomId()).block();
+    }
+
+    @Benchmark
+    public List<Vendor> findPage() {
+        return vendorRepository.findByIdGreaterThan(randomId(), PageRequest.of(0, PAGE_SIZE, Sort.by("id")))
+                .collectList().block();
+    }
+
+    @Benchmark
+    public Vendor saveExisting() {
+        return vendorRepository.findById(randomId())
+                .flatMap(vendor -> {
+                    vendor.setFirstName("Jim");
+                    return vendorRepository.save(vendor);
+                })
+                .block();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public InsertResult insertBatch() {
+        return bulkWriteRepository.insertUnordered(Vendor.class, vendors(BATCH_SIZE)).block();
+    }
+
+    private String randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    private static List<Vendor> vendors(int count) {
+        return Flux.range(0, count)
+                .map(i -> Vendor.builder().firstName("Joe").lastName("Buck " + i).build())
+                .collect(() -> new ArrayList<Vendor>(count), List::add)
+                .block();
+    }
+}
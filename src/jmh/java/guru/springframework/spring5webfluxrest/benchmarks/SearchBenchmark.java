@@ -0,0 +1,164 @@
+package guru.springframework.spring5webfluxrest.benchmarks;
+
+import guru.springframework.spring5webfluxrest.domain.Category;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import guru.springframework.spring5webfluxrest.repositories.BulkWriteRepository;
+import guru.springframework.spring5webfluxrest.repositories.CategoryRepository;
+import guru.springframework.spring5webfluxrest.repositories.CategorySearch;
+import guru.springframework.spring5webfluxrest.repositories.CategorySearchRepositoryImpl;
+import guru.springframework.spring5webfluxrest.repositories.MongoIndexes;
+import guru.springframework.spring5webfluxrest.repositories.VendorRepository;
+import guru.springframework.spring5webfluxrest.repositories.VendorSearch;
+import guru.springframework.spring5webfluxrest.repositories.VendorSearchRepositoryImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One page of each kind of search against collections of growing size. Every query matches about the
+ * same number of documents whatever the size, so with the indexes in place the times should stay flat
+ * from the smallest collection to the largest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+    private static final String[] FIRST_NAMES = {"Joe", "Michael", "Jessie", "Bill", "Jimmy", "Anna", "Maria", "David"};
+    private static final String[] LAST_NAMES = {"Buck", "Weston", "Waters", "Nershi", "Buffet", "Smith", "Jones", "Garcia"};
+    private static final String[] WORDS = {"Fruits", "Nuts", "Breads", "Meats", "Eggs", "Cheeses", "Spices", "Grains"};
+
+    /**
+     * Vendors sharing a last name, so a name matches this many documents at any collection size.
+     */
+    private static final int PER_LAST_NAME = 50;
+    private static final int BATCH_SIZE = 1000;
+    private static final Pageable PAGE = PageRequest.of(0, 100, Sort.by("id"));
+
+    @Param({"10000", "100000", "1000000"})
+    public int documents;
+
+    private EmbeddedMongo mongo;
+    private VendorRepository vendorRepository;
+    private CategoryRepository categoryRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mongo = new EmbeddedMongo();
+        vendorRepository = mongo.getRepository(VendorRepository.class, new VendorSearchRepositoryImpl(mongo.getTemplate()));
+        categoryRepository = mongo.getRepository(CategoryRepository.class, new CategorySearchRepositoryImpl(mongo.getTemplate()));
+
+        new MongoIndexes(mongo.getTemplate()).ensureIndexes().block();
+
+        BulkWriteRepository bulkWriteRepository = new BulkWriteRepository(mongo.getTemplate());
+        Flux.range(0, (documents + BATCH_SIZE - 1) / BATCH_SIZE)
+                .concatMap(batch -> {
+                    int from = batch * BATCH_SIZE;
+                    int to = Math.min(from + BATCH_SIZE, documents);
+                    return bulkWriteRepository.insertUnordered(Vendor.class, vendors(from, to))
+                            .then(bulkWriteRepository.insertUnordered(Category.class, categories(from, to)));
+                })
+                .blockLast();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongo.close();
+    }
+
+    @Benchmark
+    public List<Vendor> vendorsByLastName() {
+        return searchVendors(VendorSearch.builder().lastName(lastName(randomDocument())).build());
+    }
+
+    @Benchmark
+    public List<Vendor> vendorsByFullName() {
+        int n = randomDocument();
+        return searchVendors(VendorSearch.builder().firstName(firstName(n)).lastName(lastName(n)).build());
+    }
+
+    @Benchmark
+    public List<Vendor> vendorsByLastNamePrefix() {
+        // drops the last digit, so the prefix covers ten last names
+        String lastName = lastName(randomDocument());
+        return searchVendors(VendorSearch.builder().lastName(lastName.substring(0, lastName.length() - 1) + "*").build());
+    }
+
+    @Benchmark
+    public List<Vendor> vendorsByText() {
+        String lastName = lastName(randomDocument());
+        return searchVendors(VendorSearch.builder().q(lastName.substring(lastName.indexOf('-') + 1)).build());
+    }
+
+    @Benchmark
+    public List<Category> categoriesByDescription() {
+        return searchCategories(CategorySearch.builder().description(description(randomDocument()).toLowerCase()).build());
+    }
+
+    @Benchmark
+    public List<Category> categoriesByText() {
+        return searchCategories(CategorySearch.builder().q(String.valueOf(randomDocument())).build());
+    }
+
+    private List<Vendor> searchVendors(VendorSearch search) {
+        return vendorRepository.search(search, null, PAGE).collectList().block();
+    }
+
+    private List<Category> searchCategories(CategorySearch search) {
+        return categoryRepository.search(search, null, PAGE).collectList().block();
+    }
+
+    private int randomDocument() {
+        return ThreadLocalRandom.current().nextInt(documents);
+    }
+
+    private static String firstName(int n) {
+        return FIRST_NAMES[n % FIRST_NAMES.length];
+    }
+
+    private static String lastName(int n) {
+        return String.format("%s-%06d", LAST_NAMES[n % LAST_NAMES.length], n / (LAST_NAMES.length * PER_LAST_NAME));
+    }
+
+    private static String description(int n) {
+        return WORDS[n % WORDS.length] + " " + n;
+    }
+
+    private static List<Vendor> vendors(int from, int to) {
+        List<Vendor> vendors = new ArrayList<>(to - from);
+        for(int n = from; n < to; n++) {
+            vendors.add(Vendor.builder().firstName(firstName(n)).lastName(lastName(n)).build());
+        }
+        return vendors;
+    }
+
+    private static List<Category> categories(int from, int to) {
+        List<Category> categories = new ArrayList<>(to - from);
+        for(int n = from; n < to; n++) {
+            categories.add(Category.builder().description(description(n)).build());
+        }
+        return categories;
+    }
+}
@@ -0,0 +1,93 @@
+package guru.springframework.spring5webfluxrest.benchmarks;
+
+import guru.springframework.spring5webfluxrest.Spring5WebfluxRestApplication;
+import guru.springframework.spring5webfluxrest.controllers.CategoryController;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from starting the application to the answer of its first request, in a fresh JVM each fork, with
+ * the default or the {@code prod} profile. Both run against the same external mongod, so the embedded
+ * one the default profile would start is not part of the time. {@code heapUsedMegabytes} is the heap
+ * still in use after a full GC once that first request is answered.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class StartupBenchmark {
+
+    @Param({"default", "prod"})
+    public String profile;
+
+    private EmbeddedMongo mongo;
+    private ConfigurableApplicationContext context;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long heapUsedMegabytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mongo = new EmbeddedMongo();
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopApplication() {
+        if(context != null) {
+            context.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongo.close();
+    }
+
+    @Benchmark
+    public String firstRequest(Footprint footprint) {
+        SpringApplicationBuilder application = new SpringApplicationBuilder(Spring5WebfluxRestApplication.class)
+                .properties("server.port=0",
+                        "spring.data.mongodb.uri=" + mongo.getUri(),
+                        "spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.mongo.embedded.EmbeddedMongoAutoConfiguration");
+        if(!"default".equals(profile)) {
+            application.profiles(profile);
+        }
+        context = application.run();
+
+        int port = ((ReactiveWebServerApplicationContext) context).getWebServer().getPort();
+        String body = WebClient.create("http://localhost:" + port)
+                .get().uri(CategoryController.API_V1_CATEGORIES)
+                .retrieve()
+                .bodyToMono(String.class)
+                .block();
+
+        System.gc();
+        footprint.heapUsedMegabytes = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() >> 20;
+        return body;
+    }
+}
@@ -0,0 +1,80 @@
+package guru.springframework.spring5webfluxrest.benchmarks;
+
+import guru.springframework.spring5webfluxrest.repositories.BulkWriteRepository;
+import guru.springframework.spring5webfluxrest.repositories.ChangeCounters;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-memory repositories that answer straight from a map, so the controller benchmarks measure the
+ * web layer and not a mocking library or the database.
+ */
+final class StubRepositories {
+
+    private StubRepositories() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T, R> R create(Class<R> repositoryInterface, Map<String, T> documents, Function<T, String> idOf) {
+        return (R) Proxy.newProxyInstance(repositoryInterface.getClassLoader(), new Class<?>[]{repositoryInterface},
+                (proxy, method, args) -> {
+                    switch(method.getName()) {
+                        case "findById":
+                            return Mono.justOrEmpty(documents.get((String) args[0]));
+                        case "findAllBy":
+                            return Flux.fromIterable(documents.values()).take(((Pageable) args[0]).getPageSize());
+                        case "findByIdGreaterThan":
+                            return Flux.fromIterable(documents.values())
+                                    .filter(document -> idOf.apply(document).compareTo((String) args[0]) > 0)
+                                    .take(((Pageable) args[1]).getPageSize());
+                        case "save":
+                            return Mono.just(args[0]);
+                        case "toString":
+                            return "stub " + repositoryInterface.getSimpleName();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    static BulkWriteRepository bulkWrites() {
+        return new BulkWriteRepository(unsupportedOperations()) {
+            @Override
+            public <T> Mono<InsertResult> insertUnordered(Class<T> entityClass, List<? extends T> batch) {
+                return Mono.just(new InsertResult(batch.size(), 0));
+            }
+        };
+    }
+
+    /**
+     * Counters that never move, so every list response carries the same tag.
+     */
+    static ChangeCounters changeCounters() {
+        return new ChangeCounters(unsupportedOperations()) {
+            @Override
+            public Mono<Long> get(Class<?> entityClass) {
+                return Mono.just(0L);
+            }
+
+            @Override
+            public Mono<Long> increment(Class<?> entityClass) {
+                return Mono.just(0L);
+            }
+        };
+    }
+
+    private static ReactiveMongoOperations unsupportedOperations() {
+        return (ReactiveMongoOperations) Proxy.newProxyInstance(
+                ReactiveMongoOperations.class.getClassLoader(), new Class<?>[]{ReactiveMongoOperations.class},
+                (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
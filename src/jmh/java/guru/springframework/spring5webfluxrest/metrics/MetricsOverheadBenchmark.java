@@ -0,0 +1,106 @@
+package guru.springframework.spring5webfluxrest.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.springframework.spring5webfluxrest.bulk.BulkIngester;
+import guru.springframework.spring5webfluxrest.bulk.IngestionProperties;
+import guru.springframework.spring5webfluxrest.bulk.WriteBehindBuffer;
+import guru.springframework.spring5webfluxrest.cache.ReadThroughCache;
+import guru.springframework.spring5webfluxrest.config.StreamingJsonCodecCustomizer;
+import guru.springframework.spring5webfluxrest.controllers.VendorController;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import guru.springframework.spring5webfluxrest.repositories.VendorRepository;
+import guru.springframework.spring5webfluxrest.services.VendorService;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.boot.actuate.metrics.web.reactive.server.DefaultWebFluxTagsProvider;
+import org.springframework.boot.actuate.metrics.web.reactive.server.MetricsWebFilter;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the instrumentation on a repository call and on a whole request, against the same paths
+ * without it. Run with {@code -prof gc} to compare allocation per operation as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MetricsOverheadBenchmark {
+
+    @Param({"false", "true"})
+    boolean instrumented;
+
+    private VendorRepository vendorRepository;
+    private WebTestClient webTestClient;
+
+    @Setup
+    public void setUp() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        // same histograms as application.properties turns on
+        registry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                return DistributionStatisticConfig.builder().percentilesHistogram(true).build().merge(config);
+            }
+        });
+
+        Vendor vendor = Vendor.builder().id("1").firstName("Joe").lastName("Buck").version(0L).build();
+        vendorRepository = (VendorRepository) Proxy.newProxyInstance(VendorRepository.class.getClassLoader(),
+                new Class<?>[]{VendorRepository.class}, (proxy, method, args) -> Mono.just(vendor));
+
+        if(instrumented) {
+            ProxyFactory proxyFactory = new ProxyFactory();
+            proxyFactory.setInterfaces(VendorRepository.class);
+            proxyFactory.setTarget(vendorRepository);
+            proxyFactory.addAdvice(new RepositoryMetricsInterceptor(() -> registry, "VendorRepository"));
+            vendorRepository = (VendorRepository) proxyFactory.getProxy();
+        }
+
+        VendorController vendorController = new VendorController(new VendorService(vendorRepository,
+                ReadThroughCache.disabled("vendors", vendorRepository::findById),
+                new BulkIngester(null, new IngestionProperties()), WriteBehindBuffer.disabled("vendors"), null));
+
+        WebTestClient.ControllerSpec controllerSpec = WebTestClient.bindToController(vendorController);
+        if(instrumented) {
+            InFlightRequestsFilter inFlightRequestsFilter = new InFlightRequestsFilter();
+            inFlightRequestsFilter.bindTo(registry);
+            controllerSpec.webFilter(inFlightRequestsFilter,
+                    new MetricsWebFilter(registry, new DefaultWebFluxTagsProvider(), "http.server.requests", true));
+        }
+        webTestClient = controllerSpec
+                .httpMessageCodecs(new StreamingJsonCodecCustomizer(new ObjectMapper())::customize)
+                .build();
+    }
+
+    @Benchmark
+    public Vendor repositoryCall() {
+        return vendorRepository.findById("1").block();
+    }
+
+    @Benchmark
+    public byte[] request() {
+        return webTestClient.get().uri(VendorController.API_V1_VENDORS + "/1")
+                .exchange()
+                .expectBody().returnResult().getResponseBody();
+    }
+}
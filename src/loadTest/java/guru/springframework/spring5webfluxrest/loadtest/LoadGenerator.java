@@ -0,0 +1,107 @@
+package guru.springframework.spring5webfluxrest.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Starts requests at a fixed rate, on a schedule that does not wait for answers: the n-th request is
+ * due n / rate seconds after the start, and is sent as soon as a clock tick finds it due. Latency is
+ * measured from when a request was due rather than when it went out, so a server that falls behind
+ * shows it in every request that had to wait, not only in the few that were slow (no coordinated
+ * omission).
+ */
+@Slf4j
+public class LoadGenerator {
+    private static final long TICK_MICROS = 500;
+
+    private final Function<Operation, Mono<Integer>> send;
+    private final Workload workload;
+    private final LoadTestProperties properties;
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // only touched on the arrivals thread
+    private long started;
+
+    /**
+     * @param send sends one request, giving the response status
+     */
+    public LoadGenerator(Function<Operation, Mono<Integer>> send, Workload workload, LoadTestProperties properties) {
+        this.send = send;
+        this.workload = workload;
+        this.properties = properties;
+        for(Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+    }
+
+    /**
+     * Runs the warmup and the measured period, then waits for the requests still out.
+     *
+     * @return the measured requests of each operation
+     */
+    public Map<Operation, OperationStats> run() throws InterruptedException {
+        long rate = properties.getRate();
+        long start = System.nanoTime();
+        long measuredFrom = start + properties.getWarmup().toNanos();
+        long total = (properties.getWarmup().toNanos() + properties.getDuration().toNanos()) * rate / TimeUnit.SECONDS.toNanos(1);
+
+        CountDownLatch allStarted = new CountDownLatch(1);
+        Scheduler arrivals = Schedulers.newSingle("loadtest-arrivals");
+        Disposable ticks = arrivals.schedulePeriodically(() -> {
+            long due = Math.min(total, (System.nanoTime() - start) * rate / TimeUnit.SECONDS.toNanos(1));
+            for(; started < due; started++) {
+                long dueAt = start + started * TimeUnit.SECONDS.toNanos(1) / rate;
+                start(workload.next(), dueAt, dueAt >= measuredFrom);
+            }
+            if(started == total) {
+                allStarted.countDown();
+            }
+        }, 0, TICK_MICROS, TimeUnit.MICROSECONDS);
+
+        allStarted.await();
+        ticks.dispose();
+        arrivals.dispose();
+
+        long drainUntil = System.nanoTime() + properties.getRequestTimeout().toNanos() * 2;
+        while(inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+            Thread.sleep(10);
+        }
+        if(inFlight.get() > 0) {
+            log.warn("{} requests still unanswered at the end of the run", inFlight.get());
+        }
+        return stats;
+    }
+
+    private void start(Operation operation, long dueAt, boolean measured) {
+        OperationStats operationStats = stats.get(operation);
+        if(inFlight.incrementAndGet() > properties.getMaxInFlight()) {
+            inFlight.decrementAndGet();
+            if(measured) {
+                operationStats.rejected();
+            }
+            return;
+        }
+
+        send.apply(operation)
+                .timeout(properties.getRequestTimeout())
+                .map(status -> status < 400)
+                .onErrorReturn(false)
+                .doFinally(signal -> inFlight.decrementAndGet())
+                .subscribe(ok -> {
+                    if(measured) {
+                        operationStats.record(System.nanoTime() - dueAt, ok);
+                    }
+                });
+    }
+}
@@ -0,0 +1,139 @@
+package guru.springframework.spring5webfluxrest.loadtest;
+
+import guru.springframework.spring5webfluxrest.Spring5WebfluxRestApplication;
+import guru.springframework.spring5webfluxrest.controllers.VendorController;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts the application against the embedded mongod, drives it with the configured mix at a fixed
+ * rate and prints throughput, latency percentiles and error rate per operation. Exits with 1 when any
+ * operation misses an SLO, so {@code ./gradlew loadTest} fails.
+ * <p>
+ * Every argument goes to the application as well, so its settings can be changed for a run. Client rate
+ * limits are off unless set, since all traffic comes from one client.
+ */
+public class LoadTest {
+    private static final String ROW = "%-10s %9s %9s %8s %9s %9s %9s %9s%n";
+
+    public static void main(String[] args) throws InterruptedException {
+        ReactiveWebServerApplicationContext context = (ReactiveWebServerApplicationContext)
+                new SpringApplicationBuilder(Spring5WebfluxRestApplication.class)
+                        .properties("server.port=0", "app.admission.vendors.client-rate=0")
+                        .run(args);
+
+        List<String> violations;
+        try {
+            LoadTestProperties properties = Binder.get(context.getEnvironment())
+                    .bind("loadtest", Bindable.ofInstance(new LoadTestProperties()))
+                    .get();
+            WebClient client = client(context.getWebServer().getPort(), properties);
+            Workload workload = new Workload(properties.getMix(), vendorIds(client, properties.getVendors()),
+                    properties.getCreateBatch());
+
+            Map<Operation, OperationStats> stats = new LoadGenerator(operation -> operation.send(client, workload)
+                    .flatMap(response -> response.bodyToMono(Void.class).thenReturn(response.rawStatusCode())),
+                    workload, properties).run();
+
+            violations = report(stats, properties);
+        } finally {
+            context.close();
+        }
+
+        violations.forEach(violation -> System.out.println("SLO missed: " + violation));
+        System.exit(violations.isEmpty() ? 0 : 1);
+    }
+
+    /**
+     * A client on its own event loops, so it does not take turns with the server on the shared ones.
+     */
+    private static WebClient client(int port, LoadTestProperties properties) {
+        HttpClient httpClient = HttpClient.create(ConnectionProvider.fixed("loadtest", properties.getMaxConnections()))
+                .tcpConfiguration(tcp -> tcp.runOn(LoopResources.create("loadtest")));
+        return WebClient.builder()
+                .baseUrl("http://localhost:" + port)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    /**
+     * Writes {@code count} vendors and returns the ids of all of them, the seeded ones included.
+     */
+    private static List<String> vendorIds(WebClient client, int count) {
+        client.post().uri(VendorController.API_V1_VENDORS)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Flux.range(0, count).map(n -> Vendor.builder().firstName("Load").lastName("Test " + n).build()), Vendor.class)
+                .retrieve()
+                .bodyToFlux(Map.class)
+                .blockLast();
+
+        return client.get().uri(VendorController.API_V1_VENDORS)
+                .accept(MediaType.APPLICATION_STREAM_JSON)
+                .retrieve()
+                .bodyToFlux(Vendor.class)
+                .map(Vendor::getId)
+                .collectList()
+                .block();
+    }
+
+    private static List<String> report(Map<Operation, OperationStats> stats, LoadTestProperties properties) {
+        double seconds = properties.getDuration().toMillis() / 1000.0;
+        LoadTestProperties.Slo slo = properties.getSlo();
+        List<String> violations = new ArrayList<>();
+        OperationStats all = new OperationStats();
+
+        System.out.printf("%nTarget %d req/s for %s after %s warmup, latency in ms%n", properties.getRate(),
+                properties.getDuration(), properties.getWarmup());
+        System.out.printf(ROW, "operation", "requests", "req/s", "errors", "p50", "p99", "p99.9", "max");
+        for(Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            if(entry.getValue().getRequests() > 0) {
+                print(entry.getKey().name(), entry.getValue(), seconds);
+                check(entry.getKey().name(), entry.getValue(), slo, violations);
+                all.add(entry.getValue());
+            }
+        }
+        print("all", all, seconds);
+        return violations;
+    }
+
+    private static void print(String name, OperationStats stats, double seconds) {
+        System.out.printf(ROW, name, stats.getRequests(), String.format("%.0f", stats.getRequests() / seconds),
+                String.format("%.2f%%", stats.getErrorRate() * 100), millis(stats.percentile(50)),
+                millis(stats.percentile(99)), millis(stats.percentile(99.9)), millis(stats.max()));
+    }
+
+    private static void check(String name, OperationStats stats, LoadTestProperties.Slo slo, List<String> violations) {
+        checkLatency(name, "p50", stats.percentile(50), slo.getP50(), violations);
+        checkLatency(name, "p99", stats.percentile(99), slo.getP99(), violations);
+        checkLatency(name, "p99.9", stats.percentile(99.9), slo.getP999(), violations);
+        if(stats.getErrorRate() > slo.getMaxErrorRate()) {
+            violations.add(String.format("%s error rate %.3f%% over %.3f%%", name, stats.getErrorRate() * 100,
+                    slo.getMaxErrorRate() * 100));
+        }
+    }
+
+    private static void checkLatency(String name, String percentile, Duration latency, Duration limit, List<String> violations) {
+        if(limit != null && latency.compareTo(limit) > 0) {
+            violations.add(String.format("%s %s %s ms over %s ms", name, percentile, millis(latency), millis(limit)));
+        }
+    }
+
+    private static String millis(Duration duration) {
+        return String.format("%.2f", duration.toNanos() / 1_000_000.0);
+    }
+}
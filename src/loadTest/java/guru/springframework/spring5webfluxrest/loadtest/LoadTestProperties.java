@@ -0,0 +1,77 @@
+package guru.springframework.spring5webfluxrest.loadtest;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Bound from {@code loadtest.*} arguments, e.g. {@code --loadtest.rate=5000 --loadtest.mix.list=10}.
+ */
+@Getter
+@Setter
+public class LoadTestProperties {
+    /**
+     * Requests started per second, whether or not earlier ones have been answered.
+     */
+    private int rate = 1000;
+
+    /**
+     * Traffic sent first and left out of the report, for the JIT and the connection pools.
+     */
+    private Duration warmup = Duration.ofSeconds(10);
+    private Duration duration = Duration.ofSeconds(30);
+
+    /**
+     * Share of each operation in the traffic, as weights.
+     */
+    private Map<Operation, Integer> mix = defaultMix();
+
+    /**
+     * Vendors written before the run, for the requests by id to pick from.
+     */
+    private int vendors = 1000;
+
+    /**
+     * Vendors in the body of each create.
+     */
+    private int createBatch = 10;
+
+    /**
+     * Connections the client opens to the server, and requests it lets wait for one. A request that
+     * would exceed the wait is counted as failed straight away.
+     */
+    private int maxConnections = 500;
+    private int maxInFlight = 20000;
+
+    /**
+     * A request not answered by then is counted as failed.
+     */
+    private Duration requestTimeout = Duration.ofSeconds(10);
+
+    private Slo slo = new Slo();
+
+    /**
+     * Limits every operation has to stay within for the run to pass. Unset latencies are not checked.
+     */
+    @Getter
+    @Setter
+    public static class Slo {
+        private Duration p50;
+        private Duration p99;
+        private Duration p999;
+        private double maxErrorRate = 0.001;
+    }
+
+    private static Map<Operation, Integer> defaultMix() {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        mix.put(Operation.LIST, 30);
+        mix.put(Operation.GET_BY_ID, 50);
+        mix.put(Operation.CREATE, 5);
+        mix.put(Operation.UPDATE, 10);
+        mix.put(Operation.PATCH, 5);
+        return mix;
+    }
+}
@@ -0,0 +1,72 @@
+package guru.springframework.spring5webfluxrest.loadtest;
+
+import guru.springframework.spring5webfluxrest.controllers.VendorController;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The requests the load test sends, all against the vendor API.
+ */
+public enum Operation {
+    LIST {
+        @Override
+        Mono<ClientResponse> send(WebClient client, Workload workload) {
+            return client.get().uri(VendorController.API_V1_VENDORS + "?limit=20")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange();
+        }
+    },
+    GET_BY_ID {
+        @Override
+        Mono<ClientResponse> send(WebClient client, Workload workload) {
+            return client.get().uri(VendorController.API_V1_VENDORS + "/{id}", workload.randomId())
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchange();
+        }
+    },
+    CREATE {
+        @Override
+        Mono<ClientResponse> send(WebClient client, Workload workload) {
+            List<Vendor> vendors = new ArrayList<>(workload.getCreateBatch());
+            for(int n = 0; n < workload.getCreateBatch(); n++) {
+                vendors.add(randomVendor());
+            }
+            return client.post().uri(VendorController.API_V1_VENDORS)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .syncBody(vendors)
+                    .exchange();
+        }
+    },
+    UPDATE {
+        @Override
+        Mono<ClientResponse> send(WebClient client, Workload workload) {
+            return client.put().uri(VendorController.API_V1_VENDORS + "/{id}", workload.randomId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .syncBody(randomVendor())
+                    .exchange();
+        }
+    },
+    PATCH {
+        @Override
+        Mono<ClientResponse> send(WebClient client, Workload workload) {
+            return client.patch().uri(VendorController.API_V1_VENDORS + "/{id}", workload.randomId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .syncBody(Vendor.builder().lastName(randomVendor().getLastName()).build())
+                    .exchange();
+        }
+    };
+
+    abstract Mono<ClientResponse> send(WebClient client, Workload workload);
+
+    private static Vendor randomVendor() {
+        int n = ThreadLocalRandom.current().nextInt(1_000_000);
+        return Vendor.builder().firstName("Load").lastName("Test " + n).build();
+    }
+}
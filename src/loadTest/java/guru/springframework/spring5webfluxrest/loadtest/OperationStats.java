@@ -0,0 +1,60 @@
+package guru.springframework.spring5webfluxrest.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and failures of one operation. Latencies are kept in microseconds to three significant
+ * digits, and cover failed requests as well.
+ */
+public class OperationStats {
+    private final Histogram latencies = new ConcurrentHistogram(3);
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    void record(long latencyNanos, boolean ok) {
+        latencies.recordValue(Math.max(1, latencyNanos / 1000));
+        requests.increment();
+        if(!ok) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * A request that was never sent, because too many were already waiting.
+     */
+    void rejected() {
+        requests.increment();
+        errors.increment();
+    }
+
+    void add(OperationStats other) {
+        latencies.add(other.latencies);
+        requests.add(other.getRequests());
+        errors.add(other.getErrors());
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public double getErrorRate() {
+        long sent = getRequests();
+        return sent > 0 ? (double) getErrors() / sent : 0;
+    }
+
+    public Duration percentile(double percentile) {
+        return Duration.ofNanos(latencies.getValueAtPercentile(percentile) * 1000);
+    }
+
+    public Duration max() {
+        return Duration.ofNanos(latencies.getMaxValue() * 1000);
+    }
+}
@@ -0,0 +1,55 @@
+package guru.springframework.spring5webfluxrest.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks the operations of the mix at random by weight, and the vendors they act on.
+ */
+public class Workload {
+    private final List<Operation> operations = new ArrayList<>();
+    private final int[] cumulativeWeights;
+    private final List<String> ids;
+    private final int createBatch;
+
+    public Workload(Map<Operation, Integer> mix, List<String> ids, int createBatch) {
+        int total = 0;
+        List<Integer> cumulative = new ArrayList<>();
+        for(Map.Entry<Operation, Integer> weight : mix.entrySet()) {
+            if(weight.getValue() > 0) {
+                total += weight.getValue();
+                operations.add(weight.getKey());
+                cumulative.add(total);
+            }
+        }
+        if(total == 0) {
+            throw new IllegalArgumentException("The mix has no operation with a weight above zero");
+        }
+        if(ids.isEmpty()) {
+            throw new IllegalArgumentException("No vendors to send requests by id for");
+        }
+
+        this.cumulativeWeights = cumulative.stream().mapToInt(Integer::intValue).toArray();
+        this.ids = ids;
+        this.createBatch = createBatch;
+    }
+
+    public Operation next() {
+        int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int n = 0;
+        while(pick >= cumulativeWeights[n]) {
+            n++;
+        }
+        return operations.get(n);
+    }
+
+    String randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    int getCreateBatch() {
+        return createBatch;
+    }
+}
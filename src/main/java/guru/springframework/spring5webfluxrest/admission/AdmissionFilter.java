@@ -0,0 +1,144 @@
+package guru.springframework.spring5webfluxrest.admission;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static guru.springframework.spring5webfluxrest.controllers.CategoryController.API_V1_CATEGORIES;
+import static guru.springframework.spring5webfluxrest.controllers.VendorController.API_V1_VENDORS;
+
+/**
+ * Turns requests away before they reach a handler, instead of letting them queue for a Mongo
+ * connection: a 429 for a client over its rate on a route, a 503 when a route already serves as many
+ * lists or bulk creates as it may. Both carry {@code Retry-After}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class AdmissionFilter implements WebFilter, MeterBinder {
+    static final String THROTTLED_METRIC = "http.server.requests.throttled";
+    static final String CONCURRENT_METRIC = "http.server.requests.concurrent";
+
+    /**
+     * A permit for a list or a bulk create frees up as soon as one finishes, so busy clients are
+     * asked back after the shortest wait the header can say.
+     */
+    private static final long BUSY_RETRY_AFTER_SECONDS = 1;
+
+    private final List<RouteLimiter> routes;
+    private final String clientHeader;
+    private final Set<String> trustedProxies;
+    private volatile MeterRegistry registry;
+
+    public AdmissionFilter(AdmissionProperties properties) {
+        this.routes = Arrays.asList(
+                new RouteLimiter(API_V1_CATEGORIES, properties.getCategories(), properties.getIdleClientTimeout(), properties.getMaxClients()),
+                new RouteLimiter(API_V1_VENDORS, properties.getVendors(), properties.getIdleClientTimeout(), properties.getMaxClients()));
+        this.clientHeader = properties.getClientHeader();
+        this.trustedProxies = new HashSet<>(properties.getTrustedProxies());
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getPath().pathWithinApplication().value();
+        RouteLimiter route = route(path);
+        if(route == null) {
+            return chain.filter(exchange);
+        }
+
+        return Mono.defer(() -> {
+            long wait = route.tryTake(client(request), System.nanoTime());
+            if(wait > 0) {
+                return reject(exchange, route, HttpStatus.TOO_MANY_REQUESTS, "rate", wholeSeconds(wait));
+            }
+
+            ConcurrencyLimit limit = route.concurrencyLimit(request.getMethod(), path);
+            if(limit == null) {
+                return chain.filter(exchange);
+            }
+            if(!limit.tryAcquire()) {
+                return reject(exchange, route, HttpStatus.SERVICE_UNAVAILABLE, "concurrency", BUSY_RETRY_AFTER_SECONDS);
+            }
+            return chain.filter(exchange).doFinally(signal -> limit.release());
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        for(RouteLimiter route : routes) {
+            concurrentGauge(registry, route, "list", route.getLists());
+            concurrentGauge(registry, route, "create", route.getCreates());
+        }
+    }
+
+    private RouteLimiter route(String path) {
+        for(RouteLimiter route : routes) {
+            if(route.matches(path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private String client(ServerHttpRequest request) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        String address = "unknown";
+        if(remoteAddress != null) {
+            address = remoteAddress.getAddress() != null ? remoteAddress.getAddress().getHostAddress() : remoteAddress.getHostString();
+        }
+
+        if(trustedProxies.contains(address)) {
+            String client = request.getHeaders().getFirst(clientHeader);
+            if(client != null) {
+                return client;
+            }
+        }
+        return address;
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, RouteLimiter route, HttpStatus status, String reason,
+                              long retryAfterSeconds) {
+        MeterRegistry registry = this.registry;
+        if(registry != null) {
+            registry.counter(THROTTLED_METRIC, "uri", route.getPath(), "reason", reason).increment();
+        }
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return response.setComplete();
+    }
+
+    private static long wholeSeconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private static void concurrentGauge(MeterRegistry registry, RouteLimiter route, String kind, ConcurrencyLimit limit) {
+        Gauge.builder(CONCURRENT_METRIC, limit, ConcurrencyLimit::inUse)
+                .description("Lists and bulk creates being served, against their concurrency limit")
+                .tag("uri", route.getPath())
+                .tag("kind", kind)
+                .register(registry);
+    }
+}
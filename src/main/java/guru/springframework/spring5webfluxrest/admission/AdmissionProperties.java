@@ -0,0 +1,54 @@
+package guru.springframework.spring5webfluxrest.admission;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties("app.admission")
+public class AdmissionProperties {
+    private Limits categories = new Limits();
+    private Limits vendors = new Limits();
+
+    /**
+     * Header naming the client the rate limits are kept for. It is only believed on requests from one
+     * of the {@code trustedProxies}, which set it for the clients behind them; every other request is
+     * counted by remote address, so a client cannot get a fresh bucket by changing the header.
+     */
+    private String clientHeader = "X-Client-Id";
+    private List<String> trustedProxies = new ArrayList<>();
+
+    /**
+     * Most clients a bucket is kept for on each route. Past it the least recently seen are dropped.
+     */
+    private long maxClients = 100_000;
+
+    /**
+     * How long the bucket of a client that stopped calling is kept.
+     */
+    private Duration idleClientTimeout = Duration.ofMinutes(5);
+
+    @Getter
+    @Setter
+    public static class Limits {
+        /**
+         * Requests per second one client may keep up against the route, and how many it may make at
+         * once on top of that. Zero turns rate limiting off for the route.
+         */
+        private double clientRate = 100;
+        private int clientBurst = 200;
+
+        /**
+         * Most list requests, including streams, and bulk writes (creates, upserts and deletes by
+         * filter) served at a time. Requests over the limit get a 503 rather than wait for a Mongo
+         * connection.
+         */
+        private int maxConcurrentLists = 32;
+        private int maxConcurrentCreates = 4;
+    }
+}
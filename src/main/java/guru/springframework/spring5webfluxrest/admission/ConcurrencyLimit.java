@@ -0,0 +1,36 @@
+package guru.springframework.spring5webfluxrest.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Permits for at most a fixed number of requests at a time. Never waits: a request that finds none
+ * left is turned away.
+ */
+class ConcurrencyLimit {
+    private final int max;
+    private final AtomicInteger inUse = new AtomicInteger();
+
+    ConcurrencyLimit(int max) {
+        this.max = max;
+    }
+
+    boolean tryAcquire() {
+        for(;;) {
+            int current = inUse.get();
+            if(current >= max) {
+                return false;
+            }
+            if(inUse.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void release() {
+        inUse.decrementAndGet();
+    }
+
+    int inUse() {
+        return inUse.get();
+    }
+}
@@ -0,0 +1,74 @@
+package guru.springframework.spring5webfluxrest.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.http.HttpMethod;
+
+import java.time.Duration;
+
+/**
+ * The limits of one API path and everything under it: a token bucket per client, and bounds on the
+ * list and bulk write requests in progress.
+ */
+class RouteLimiter {
+    private final String path;
+    private final AdmissionProperties.Limits limits;
+    private final Cache<String, TokenBucket> buckets;
+    private final ConcurrencyLimit lists;
+    private final ConcurrencyLimit creates;
+
+    RouteLimiter(String path, AdmissionProperties.Limits limits, Duration idleClientTimeout, long maxClients) {
+        this.path = path;
+        this.limits = limits;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(idleClientTimeout)
+                .build();
+        this.lists = new ConcurrencyLimit(limits.getMaxConcurrentLists());
+        this.creates = new ConcurrencyLimit(limits.getMaxConcurrentCreates());
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    boolean matches(String requestPath) {
+        return requestPath.equals(path) || requestPath.startsWith(path + "/");
+    }
+
+    /**
+     * @return 0 if the client may go ahead, otherwise the nanoseconds until it may
+     */
+    long tryTake(String client, long now) {
+        if(limits.getClientRate() <= 0) {
+            return 0;
+        }
+        return buckets.get(client, key -> new TokenBucket(limits.getClientRate(), limits.getClientBurst(), now))
+                .tryTake(now);
+    }
+
+    /**
+     * The concurrency limit the request counts against, or {@code null} for the cheap requests on a
+     * single document.
+     */
+    ConcurrencyLimit concurrencyLimit(HttpMethod method, String requestPath) {
+        if(!requestPath.equals(path)) {
+            return null;
+        }
+        if(method == HttpMethod.GET) {
+            return lists;
+        }
+        if(method == HttpMethod.POST || method == HttpMethod.PUT || method == HttpMethod.DELETE) {
+            return creates;
+        }
+        return null;
+    }
+
+    ConcurrencyLimit getLists() {
+        return lists;
+    }
+
+    ConcurrencyLimit getCreates() {
+        return creates;
+    }
+}
@@ -2,64 +2,145 @@ package guru.springframework.spring5webfluxrest.bootstrap;
 
 import guru.springframework.spring5webfluxrest.domain.Category;
 import guru.springframework.spring5webfluxrest.domain.Vendor;
+import guru.springframework.spring5webfluxrest.repositories.BulkWriteRepository;
+import guru.springframework.spring5webfluxrest.repositories.BulkWriteRepository.InsertResult;
 import guru.springframework.spring5webfluxrest.repositories.CategoryRepository;
+import guru.springframework.spring5webfluxrest.repositories.ChangeCounters;
 import guru.springframework.spring5webfluxrest.repositories.VendorRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Seeds the database on startup: the sample categories and vendors, or with
+ * {@code app.bootstrap.synthetic.*} set, generated data in any volume. Every seeded document has a
+ * fixed id, so nodes starting at the same time, or a restart halfway through, never write a document
+ * twice. With {@code app.bootstrap.async} startup does not wait for it.
+ */
+@Slf4j
 @Component
+@EnableConfigurationProperties(BootstrapProperties.class)
 public class Bootstrap implements CommandLineRunner {
+    private static final PageRequest FIRST = PageRequest.of(0, 1);
+
     private final CategoryRepository categoryRepository;
     private final VendorRepository vendorRepository;
+    private final BulkWriteRepository bulkWriteRepository;
+    private final ChangeCounters changeCounters;
+    private final BootstrapProperties properties;
 
-    public Bootstrap(CategoryRepository categoryRepository, VendorRepository vendorRepository) {
+    public Bootstrap(CategoryRepository categoryRepository, VendorRepository vendorRepository,
+                     BulkWriteRepository bulkWriteRepository, ChangeCounters changeCounters,
+                     BootstrapProperties properties) {
         this.categoryRepository = categoryRepository;
         this.vendorRepository = vendorRepository;
+        this.bulkWriteRepository = bulkWriteRepository;
+        this.changeCounters = changeCounters;
+        this.properties = properties;
     }
 
     @Override
     public void run(String... args) throws Exception {
-        if(categoryRepository.count().block() == 0) {
-            // load data
-            System.out.println("#### LOADING DATA ON BOOTSTRAP #####");
-            categoryRepository.save(Category.builder()
-                            .description("Fruits").build()).block();
-            categoryRepository.save(Category.builder()
-                    .description("Nuts").build()).block();
-            categoryRepository.save(Category.builder()
-                    .description("Breads").build()).block();
-            categoryRepository.save(Category.builder()
-                    .description("Meats").build()).block();
-            categoryRepository.save(Category.builder()
-                    .description("Eggs").build()).block();
-
-            System.out.println("Loaded Categories: " + categoryRepository.count().block());
-
-            vendorRepository.save(Vendor.builder()
-                            .firstName("Joe")
-                            .lastName("Buck").build()).block();
-
-            vendorRepository.save(Vendor.builder()
-                    .firstName("Joe")
-                    .lastName("Buck").build()).block();
-
-            vendorRepository.save(Vendor.builder()
-                    .firstName("Michael")
-                    .lastName("Weston").build()).block();
-
-            vendorRepository.save(Vendor.builder()
-                    .firstName("Jessie")
-                    .lastName("Waters").build()).block();
-
-            vendorRepository.save(Vendor.builder()
-                    .firstName("Bill")
-                    .lastName("Nershi").build()).block();
-
-            vendorRepository.save(Vendor.builder()
-                    .firstName("Jimmy")
-                    .lastName("Buffet").build()).block();
-
-            System.out.println("Loaded Vendors: " + vendorRepository.count().block());
+        if(!properties.isEnabled()) {
+            return;
+        }
+
+        if(properties.isAsync()) {
+            // the server is already taking requests, so a failure here is logged rather than stopping startup
+            seeding().subscribe(null, e -> log.error("Seeding the database failed", e));
+        } else {
+            seeding().block();
+        }
+    }
+
+    private Mono<Void> seeding() {
+        BootstrapProperties.Synthetic synthetic = properties.getSynthetic();
+        if(synthetic.isEnabled()) {
+            return Mono.when(generate(Category.class, categoryRepository, synthetic.getCategories(), SyntheticData::categories),
+                    generate(Vendor.class, vendorRepository, synthetic.getVendors(), SyntheticData::vendors));
+        }
+        return Mono.when(seed(Category.class, categoryRepository.findAllBy(FIRST), sampleCategories()),
+                seed(Vendor.class, vendorRepository.findAllBy(FIRST), sampleVendors()));
+    }
+
+    /**
+     * Writes the samples with one bulk insert, unless the collection already has documents.
+     */
+    private <T> Mono<Void> seed(Class<T> entityClass, Flux<T> firstDocument, List<T> samples) {
+        return firstDocument.hasElements()
+                .filter(hasDocuments -> !hasDocuments)
+                .flatMap(empty -> bulkWriteRepository.insertUnordered(entityClass, samples))
+                .doOnNext(result -> log.info("Loaded {} {} samples", result.getInserted(), entityClass.getSimpleName()))
+                .flatMap(result -> countChanges(entityClass, result.getInserted()));
+    }
+
+    /**
+     * Writes {@code count} generated documents in batches, building and writing up to
+     * {@code parallelism} batches at a time. Nothing is written if the last document is already
+     * there, which means an earlier run got to the end.
+     */
+    private <T> Mono<Void> generate(Class<T> entityClass, ReactiveCrudRepository<T, String> repository, int count,
+                                    BiFunction<Long, Integer, List<T>> batchFactory) {
+        if(count <= 0) {
+            return Mono.empty();
         }
+
+        BootstrapProperties.Synthetic synthetic = properties.getSynthetic();
+        int batchSize = synthetic.getBatchSize();
+        int batches = (count + batchSize - 1) / batchSize;
+        long start = System.nanoTime();
+
+        Mono<Long> inserted = Flux.range(0, batches)
+                .flatMap(batch -> Mono.defer(() -> {
+                            long from = (long) batch * batchSize;
+                            int size = (int) Math.min(batchSize, count - from);
+                            return bulkWriteRepository.insertUnordered(entityClass, batchFactory.apply(from, size));
+                        }).subscribeOn(Schedulers.parallel()),
+                        synthetic.getParallelism())
+                .map(InsertResult::getInserted)
+                .reduce(0L, Long::sum);
+
+        return repository.existsById(SyntheticData.id(count - 1))
+                .flatMap(complete -> complete ? Mono.just(0L) : inserted)
+                .doOnNext(written -> log.info("Generated {} of {} {} documents in {} ms", written, count,
+                        entityClass.getSimpleName(), (System.nanoTime() - start) / 1_000_000))
+                .flatMap(written -> countChanges(entityClass, written));
+    }
+
+    private Mono<Void> countChanges(Class<?> entityClass, long written) {
+        return written > 0 ? changeCounters.increment(entityClass).then() : Mono.empty();
+    }
+
+    private static List<Category> sampleCategories() {
+        return Arrays.asList(
+                Category.builder().id(sampleId(1)).description("Fruits").build(),
+                Category.builder().id(sampleId(2)).description("Nuts").build(),
+                Category.builder().id(sampleId(3)).description("Breads").build(),
+                Category.builder().id(sampleId(4)).description("Meats").build(),
+                Category.builder().id(sampleId(5)).description("Eggs").build());
+    }
+
+    private static List<Vendor> sampleVendors() {
+        return Arrays.asList(
+                Vendor.builder().id(sampleId(1)).firstName("Joe").lastName("Buck").build(),
+                Vendor.builder().id(sampleId(2)).firstName("Joe").lastName("Buck").build(),
+                Vendor.builder().id(sampleId(3)).firstName("Michael").lastName("Weston").build(),
+                Vendor.builder().id(sampleId(4)).firstName("Jessie").lastName("Waters").build(),
+                Vendor.builder().id(sampleId(5)).firstName("Bill").lastName("Nershi").build(),
+                Vendor.builder().id(sampleId(6)).firstName("Jimmy").lastName("Buffet").build());
+    }
+
+    private static String sampleId(int n) {
+        return String.format("%024x", n);
     }
 }
@@ -0,0 +1,49 @@
+package guru.springframework.spring5webfluxrest.bootstrap;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties("app.bootstrap")
+public class BootstrapProperties {
+    /**
+     * Seed the sample categories and vendors into empty collections on startup.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Seed in the background instead of holding up startup. Requests made before it is done see the
+     * collections as they were.
+     */
+    private boolean async = false;
+
+    private Synthetic synthetic = new Synthetic();
+
+    /**
+     * Generated data for load and performance environments, written instead of the samples when any
+     * count is above zero.
+     */
+    @Getter
+    @Setter
+    public static class Synthetic {
+        private int categories = 0;
+        private int vendors = 0;
+
+        /**
+         * Documents per bulk write.
+         */
+        private int batchSize = 1000;
+
+        /**
+         * Batches being generated or written at a time. This also bounds how many documents are held
+         * in memory: at most parallelism * batchSize.
+         */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        public boolean isEnabled() {
+            return categories > 0 || vendors > 0;
+        }
+    }
+}
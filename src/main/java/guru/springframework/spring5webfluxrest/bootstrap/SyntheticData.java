@@ -0,0 +1,55 @@
+package guru.springframework.spring5webfluxrest.bootstrap;
+
+import guru.springframework.spring5webfluxrest.domain.Category;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generated categories and vendors. The n-th document always gets the same id and content, so
+ * writing a range again only produces duplicate key rejections, never a second copy.
+ */
+final class SyntheticData {
+    private static final String[] WORDS = {"Fruits", "Nuts", "Breads", "Meats", "Eggs", "Cheeses", "Spices",
+            "Grains", "Oils", "Teas", "Coffees", "Sweets", "Fish", "Herbs", "Juices", "Pastas"};
+    private static final String[] FIRST_NAMES = {"Joe", "Michael", "Jessie", "Bill", "Jimmy", "Anna", "Maria",
+            "David", "Sarah", "Paul", "Laura", "Tom", "Emma", "Chris", "Nina", "Sam"};
+    private static final String[] LAST_NAMES = {"Buck", "Weston", "Waters", "Nershi", "Buffet", "Smith", "Jones",
+            "Garcia", "Miller", "Davis", "Lopez", "Wilson", "Moore", "Taylor", "Clark", "Lewis", "Walker",
+            "Young", "King", "Scott", "Green", "Baker", "Adams", "Nelson", "Hill", "Campbell"};
+
+    private SyntheticData() {
+    }
+
+    /**
+     * A valid ObjectId string, stored as an ObjectId like the ids Mongo generates, and kept apart
+     * from the sample data's ids by its leading bytes.
+     */
+    static String id(long n) {
+        return String.format("5eed%020x", n);
+    }
+
+    static List<Category> categories(long from, int count) {
+        List<Category> categories = new ArrayList<>(count);
+        for(long n = from; n < from + count; n++) {
+            categories.add(Category.builder()
+                    .id(id(n))
+                    .description(WORDS[(int) (n % WORDS.length)] + " " + n)
+                    .build());
+        }
+        return categories;
+    }
+
+    static List<Vendor> vendors(long from, int count) {
+        List<Vendor> vendors = new ArrayList<>(count);
+        for(long n = from; n < from + count; n++) {
+            vendors.add(Vendor.builder()
+                    .id(id(n))
+                    .firstName(FIRST_NAMES[(int) (n % FIRST_NAMES.length)])
+                    .lastName(LAST_NAMES[(int) (n / FIRST_NAMES.length % LAST_NAMES.length)])
+                    .build());
+        }
+        return vendors;
+    }
+}
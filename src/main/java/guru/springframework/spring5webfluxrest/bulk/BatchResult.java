@@ -0,0 +1,28 @@
+package guru.springframework.spring5webfluxrest.bulk;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Outcome of one batch of a streaming bulk request. Batches are numbered from 0 in the order their
+ * documents arrived, but are reported in the order they finish. Upserts also say how many documents
+ * matched an existing id, how many of those changed, and how many were new.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchResult {
+    private long batch;
+    private int accepted;
+    private int rejected;
+    private Integer matched;
+    private Integer modified;
+    private Integer upserted;
+}
@@ -0,0 +1,17 @@
+package guru.springframework.spring5webfluxrest.bulk;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Outcome of a delete by filter.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class BulkDeleteResult {
+    private long deleted;
+}
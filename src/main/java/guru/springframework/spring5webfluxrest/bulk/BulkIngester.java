@@ -0,0 +1,116 @@
+package guru.springframework.spring5webfluxrest.bulk;
+
+import guru.springframework.spring5webfluxrest.repositories.BulkWriteRepository;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Turns a stream of incoming documents into batched, unordered bulk inserts or upserts.
+ * <p>
+ * Batches close when they are full, or when a document arrives after the batch has been open
+ * longer than the batch timeout. {@code bufferTimeout} would also close batches on a timer, but in
+ * Reactor 3.2 it requests everything from upstream and fails when downstream falls behind. This
+ * operator only reads as much of the request body as the bulk writes in flight can take, so memory
+ * stays flat however large the body is.
+ */
+@Component
+@EnableConfigurationProperties(IngestionProperties.class)
+public class BulkIngester {
+    private final BulkWriteRepository bulkWriteRepository;
+    private final IngestionProperties properties;
+
+    public BulkIngester(BulkWriteRepository bulkWriteRepository, IngestionProperties properties) {
+        this.bulkWriteRepository = bulkWriteRepository;
+        this.properties = properties;
+    }
+
+    public <T> Flux<BatchResult> insert(Class<T> entityClass, Publisher<? extends T> documents) {
+        return insert(entityClass, documents, batch -> Mono.empty());
+    }
+
+    /**
+     * @param beforeBatch completes when the batch may be written
+     */
+    public <T> Flux<BatchResult> insert(Class<T> entityClass, Publisher<? extends T> documents,
+                                        Function<List<T>, Mono<Void>> beforeBatch) {
+        return batches(documents)
+                .flatMap(batch -> beforeBatch.apply(batch.getT2())
+                                .then(Mono.defer(() -> bulkWriteRepository.insertUnordered(entityClass, batch.getT2())))
+                                .map(result -> BatchResult.builder()
+                                        .batch(batch.getT1())
+                                        .accepted(result.getInserted())
+                                        .rejected(result.getRejected())
+                                        .build()),
+                        properties.getMaxInFlightBatches());
+    }
+
+    /**
+     * Replaces the documents by id, or inserts those with new ids, batched the same way as inserts.
+     */
+    public <T> Flux<BatchResult> replace(Class<T> entityClass, Publisher<? extends T> documents) {
+        return replace(entityClass, documents, batch -> Mono.empty());
+    }
+
+    /**
+     * @param beforeBatch completes when the batch may be written
+     */
+    public <T> Flux<BatchResult> replace(Class<T> entityClass, Publisher<? extends T> documents,
+                                         Function<List<T>, Mono<Void>> beforeBatch) {
+        return batches(documents)
+                .flatMap(batch -> beforeBatch.apply(batch.getT2())
+                                .then(Mono.defer(() -> bulkWriteRepository.replaceUnordered(entityClass, batch.getT2())))
+                                .map(result -> BatchResult.builder()
+                                        .batch(batch.getT1())
+                                        .accepted(result.getWritten())
+                                        .rejected(result.getRejected())
+                                        .matched(result.getMatched())
+                                        .modified(result.getModified())
+                                        .upserted(result.getUpserted())
+                                        .build()),
+                        properties.getMaxInFlightBatches());
+    }
+
+    private <T> Flux<Tuple2<Long, List<T>>> batches(Publisher<? extends T> documents) {
+        return Flux.defer(() -> Flux.<T>from(documents)
+                        .bufferUntil(new BatchBoundary<>(properties.getBatchSize(), properties.getBatchTimeout())))
+                .index();
+    }
+
+    /**
+     * Decides whether a document is the last one of its batch. Stateful, so one per subscription.
+     */
+    private static class BatchBoundary<T> implements Predicate<T> {
+        private final int batchSize;
+        private final long timeoutNanos;
+        private int count;
+        private long openedAt;
+
+        BatchBoundary(int batchSize, Duration timeout) {
+            this.batchSize = batchSize;
+            this.timeoutNanos = timeout.toNanos();
+        }
+
+        @Override
+        public boolean test(T document) {
+            long now = System.nanoTime();
+            if(count++ == 0) {
+                openedAt = now;
+            }
+
+            if(count >= batchSize || now - openedAt >= timeoutNanos) {
+                count = 0;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package guru.springframework.spring5webfluxrest.bulk;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties("app.ingestion")
+public class IngestionProperties {
+    /**
+     * Most documents written by one bulk write.
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Longest a batch stays open once its first document arrived.
+     */
+    private Duration batchTimeout = Duration.ofMillis(100);
+
+    /**
+     * Most bulk writes one request has outstanding at a time.
+     */
+    private int maxInFlightBatches = 4;
+}
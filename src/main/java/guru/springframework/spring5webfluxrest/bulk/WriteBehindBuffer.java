@@ -0,0 +1,301 @@
+package guru.springframework.spring5webfluxrest.bulk;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Updates acknowledged before they are written. Each waits in memory under its id, replacing any update
+ * to the same id still waiting, and they are written in bulk every flush interval and on close.
+ * <p>
+ * One flush runs at a time, so an earlier update never lands on top of a later one, and memory holds
+ * at most {@code maxPending} waiting documents plus those of the flush in progress. When the buffer is
+ * full a write waits for the next flush, up to {@code maxWait}. A disabled buffer takes no writes.
+ * <p>
+ * Writes that bypass the buffer (conditional replaces, patches, deletes, bulk writes) first wait for
+ * {@link #flush(String)} or {@link #flush(Collection)}, so an update acknowledged before them is not
+ * written after them.
+ */
+@Slf4j
+public class WriteBehindBuffer<T> implements MeterBinder, AutoCloseable {
+    private static final int WRITE_RETRIES = 3;
+    private static final Duration RETRY_BACKOFF = Duration.ofMillis(100);
+
+    private final String name;
+    private final Function<T, String> idOf;
+    private final Function<List<T>, Mono<Integer>> writer;
+    private final WriteBehindProperties properties;
+    private final Disposable timer;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    // guarded by this
+    private Map<String, T> pending = new LinkedHashMap<>();
+    private MonoProcessor<Void> pendingFlushed = MonoProcessor.create();
+    private MonoProcessor<Void> inFlight;
+    private Set<String> inFlightIds = Collections.emptySet();
+    private boolean flushRequested;
+    private boolean closed;
+
+    /**
+     * @param writer writes one batch, returning how many documents it wrote
+     */
+    public WriteBehindBuffer(String name, Function<T, String> idOf, Function<List<T>, Mono<Integer>> writer,
+                             WriteBehindProperties properties) {
+        this.name = name;
+        this.idOf = idOf;
+        this.writer = writer;
+        this.properties = properties;
+        this.timer = Flux.interval(properties.getFlushInterval())
+                .subscribe(tick -> flush());
+    }
+
+    private WriteBehindBuffer(String name) {
+        this.name = name;
+        this.idOf = null;
+        this.writer = null;
+        this.properties = null;
+        this.timer = null;
+        this.closed = true;
+    }
+
+    public static <T> WriteBehindBuffer<T> disabled(String name) {
+        return new WriteBehindBuffer<>(name);
+    }
+
+    public boolean isEnabled() {
+        return timer != null;
+    }
+
+    /**
+     * Completes once the document is buffered, which may mean waiting for a flush to make room.
+     */
+    public Mono<Void> write(T document) {
+        return offerOrWait(document)
+                .timeout(properties.getMaxWait(), Mono.defer(() -> Mono.error(
+                        new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many " + name + " updates waiting to be written"))));
+    }
+
+    /**
+     * Starts writing everything buffered, unless a flush is already running, in which case the buffer
+     * is written as soon as it finishes.
+     *
+     * @return completes when what was buffered at the call has been written
+     */
+    public Mono<Void> flush() {
+        List<T> documents;
+        MonoProcessor<Void> flushed;
+        synchronized(this) {
+            if(pending.isEmpty()) {
+                return inFlight != null ? inFlight : Mono.empty();
+            }
+            if(inFlight != null) {
+                flushRequested = true;
+                return pendingFlushed;
+            }
+
+            documents = new ArrayList<>(pending.values());
+            inFlightIds = new HashSet<>(pending.keySet());
+            pending = new LinkedHashMap<>();
+            flushed = pendingFlushed;
+            pendingFlushed = MonoProcessor.create();
+            inFlight = flushed;
+        }
+
+        writeAll(documents)
+                .doFinally(signal -> flushed(flushed))
+                .subscribe();
+        return flushed;
+    }
+
+    /**
+     * Completes once any update to the id acknowledged so far has been written.
+     */
+    public Mono<Void> flush(String id) {
+        return flushIds(Collections.singleton(id));
+    }
+
+    /**
+     * Completes once any update acknowledged so far to the id of one of the documents has been written.
+     */
+    public Mono<Void> flush(Collection<? extends T> documents) {
+        if(!isEnabled()) {
+            return Mono.empty();
+        }
+
+        Set<String> ids = new HashSet<>(documents.size());
+        for(T document : documents) {
+            ids.add(idOf.apply(document));
+        }
+        return flushIds(ids);
+    }
+
+    /**
+     * Stops the timer and writes whatever is still buffered, waiting up to {@code shutdownTimeout}.
+     */
+    @Override
+    public void close() {
+        synchronized(this) {
+            if(closed) {
+                return;
+            }
+            closed = true;
+        }
+        timer.dispose();
+
+        try {
+            flushUntilEmpty().block(properties.getShutdownTimeout());
+        } catch(IllegalStateException e) {
+            log.error("Gave up writing {} buffered {} updates after {}", pendingCount(), name, properties.getShutdownTimeout());
+        }
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if(!isEnabled()) {
+            return;
+        }
+
+        updatesCounter(registry, "received", received);
+        updatesCounter(registry, "coalesced", coalesced);
+        updatesCounter(registry, "written", written);
+        updatesCounter(registry, "failed", failed);
+        Gauge.builder("write.behind.pending", this, WriteBehindBuffer::pendingCount)
+                .tag("name", name)
+                .description("Updates acknowledged and not yet written")
+                .register(registry);
+        Gauge.builder("write.behind.coalescing.ratio", this, WriteBehindBuffer::coalescingRatio)
+                .tag("name", name)
+                .description("Share of acknowledged updates replaced by a later one before being written")
+                .register(registry);
+    }
+
+    private Mono<Void> offerOrWait(T document) {
+        return Mono.defer(() -> {
+            if(offer(document)) {
+                return Mono.empty();
+            }
+            // full: wait until the updates ahead of this one are written, then try again
+            return flush().then(offerOrWait(document));
+        });
+    }
+
+    private synchronized boolean offer(T document) {
+        if(closed) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "No longer taking " + name + " updates");
+        }
+
+        String id = idOf.apply(document);
+        boolean replacing = pending.containsKey(id);
+        if(!replacing && pending.size() >= properties.getMaxPending()) {
+            return false;
+        }
+
+        pending.put(id, document);
+        received.incrementAndGet();
+        if(replacing) {
+            coalesced.incrementAndGet();
+        }
+        return true;
+    }
+
+    private Mono<Void> writeAll(List<T> documents) {
+        return Flux.fromIterable(documents)
+                .buffer(properties.getBatchSize())
+                .concatMap(batch -> writer.apply(batch)
+                        .retryBackoff(WRITE_RETRIES, RETRY_BACKOFF)
+                        .doOnSuccess(count -> {
+                            int writtenCount = count != null ? count : 0;
+                            written.addAndGet(writtenCount);
+                            if(writtenCount < batch.size()) {
+                                failed.addAndGet(batch.size() - writtenCount);
+                                log.warn("Database rejected {} of {} {} updates", batch.size() - writtenCount, batch.size(), name);
+                            }
+                        })
+                        .onErrorResume(e -> {
+                            failed.addAndGet(batch.size());
+                            log.error("Dropped {} {} updates that could not be written", batch.size(), name, e);
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+
+    private void flushed(MonoProcessor<Void> flushed) {
+        boolean flushAgain;
+        synchronized(this) {
+            inFlight = null;
+            inFlightIds = Collections.emptySet();
+            flushAgain = flushRequested;
+            flushRequested = false;
+        }
+
+        flushed.onComplete();
+        if(flushAgain) {
+            flush();
+        }
+    }
+
+    private Mono<Void> flushIds(Set<String> ids) {
+        return Mono.defer(() -> {
+            MonoProcessor<Void> writing;
+            synchronized(this) {
+                if(ids.stream().anyMatch(pending::containsKey)) {
+                    // written by the next flush, which follows the one in flight if there is one
+                    writing = null;
+                } else if(ids.stream().anyMatch(inFlightIds::contains)) {
+                    writing = inFlight;
+                } else {
+                    return Mono.empty();
+                }
+            }
+            return writing != null ? writing : flush();
+        });
+    }
+
+    private Mono<Void> flushUntilEmpty() {
+        return flush().then(Mono.defer(() -> {
+            synchronized(this) {
+                return pending.isEmpty() && inFlight == null ? Mono.<Void>empty() : flushUntilEmpty();
+            }
+        }));
+    }
+
+    private double coalescingRatio() {
+        long updates = received.get();
+        return updates > 0 ? (double) coalesced.get() / updates : 0;
+    }
+
+    private void updatesCounter(MeterRegistry registry, String outcome, AtomicLong count) {
+        FunctionCounter.builder("write.behind.updates", count, AtomicLong::get)
+                .tag("name", name)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
@@ -0,0 +1,47 @@
+package guru.springframework.spring5webfluxrest.bulk;
+
+import guru.springframework.spring5webfluxrest.cache.ReadThroughCache;
+import guru.springframework.spring5webfluxrest.domain.Category;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import guru.springframework.spring5webfluxrest.repositories.BulkWriteRepository;
+import guru.springframework.spring5webfluxrest.repositories.BulkWriteRepository.ReplaceResult;
+import guru.springframework.spring5webfluxrest.repositories.ChangeCounters;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.Function;
+
+/**
+ * The write-behind buffers for PUTs. Each flushed batch counts as one change to its collection, and
+ * drops the written documents from the read-through cache.
+ */
+@Configuration
+@EnableConfigurationProperties(WriteBehindProperties.class)
+public class WriteBehindConfig {
+
+    @Bean
+    public WriteBehindBuffer<Category> categoryWrites(BulkWriteRepository bulkWriteRepository, ChangeCounters changeCounters,
+                                                      ReadThroughCache<Category> categoryCache, WriteBehindProperties properties) {
+        return create("categories", Category.class, Category::getId, bulkWriteRepository, changeCounters, categoryCache, properties);
+    }
+
+    @Bean
+    public WriteBehindBuffer<Vendor> vendorWrites(BulkWriteRepository bulkWriteRepository, ChangeCounters changeCounters,
+                                                  ReadThroughCache<Vendor> vendorCache, WriteBehindProperties properties) {
+        return create("vendors", Vendor.class, Vendor::getId, bulkWriteRepository, changeCounters, vendorCache, properties);
+    }
+
+    private static <T> WriteBehindBuffer<T> create(String name, Class<T> entityClass, Function<T, String> idOf,
+                                                   BulkWriteRepository bulkWriteRepository, ChangeCounters changeCounters,
+                                                   ReadThroughCache<T> cache, WriteBehindProperties properties) {
+        if(!properties.isEnabled()) {
+            return WriteBehindBuffer.disabled(name);
+        }
+
+        return new WriteBehindBuffer<>(name, idOf, batch -> bulkWriteRepository.replaceUnordered(entityClass, batch)
+                .map(ReplaceResult::getWritten)
+                .flatMap(written -> changeCounters.increment(entityClass).thenReturn(written))
+                .doFinally(signal -> batch.forEach(document -> cache.invalidate(idOf.apply(document)))), properties);
+    }
+}
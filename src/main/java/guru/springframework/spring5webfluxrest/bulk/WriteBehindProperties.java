@@ -0,0 +1,43 @@
+package guru.springframework.spring5webfluxrest.bulk;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties("app.write-behind")
+public class WriteBehindProperties {
+    /**
+     * Acknowledge unconditional PUTs before they are written, and write them in bulk. A PUT that names
+     * a version is still written before it is answered.
+     */
+    private boolean enabled = false;
+
+    /**
+     * How often buffered updates are written. Updates to the same id within this time are written once.
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    /**
+     * Most ids with an update waiting to be written. Once full, a PUT waits for the next flush.
+     */
+    private int maxPending = 10_000;
+
+    /**
+     * Longest a PUT waits for room before it is answered with a 503.
+     */
+    private Duration maxWait = Duration.ofSeconds(5);
+
+    /**
+     * Most documents written by one bulk write.
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Longest shutdown waits for the last updates to be written.
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(30);
+}
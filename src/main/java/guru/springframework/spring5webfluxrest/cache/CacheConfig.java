@@ -0,0 +1,65 @@
+package guru.springframework.spring5webfluxrest.cache;
+
+import guru.springframework.spring5webfluxrest.domain.Category;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import guru.springframework.spring5webfluxrest.repositories.CategoryRepository;
+import guru.springframework.spring5webfluxrest.repositories.InitialCount;
+import guru.springframework.spring5webfluxrest.repositories.SummaryRepository;
+import guru.springframework.spring5webfluxrest.repositories.VendorRepository;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+    /**
+     * One entry per collection summarized.
+     */
+    private static final long SUMMARIES = 16;
+
+    @Bean
+    public ReadThroughCache<Category> categoryCache(CategoryRepository categoryRepository, CacheProperties properties) {
+        CacheProperties.Spec spec = properties.getCategories();
+        return create("categories", loader(categoryRepository::findById, categoryRepository::findAllById, Category::getId, spec), spec);
+    }
+
+    @Bean
+    public ReadThroughCache<Vendor> vendorCache(VendorRepository vendorRepository, CacheProperties properties) {
+        CacheProperties.Spec spec = properties.getVendors();
+        return create("vendors", loader(vendorRepository::findById, vendorRepository::findAllById, Vendor::getId, spec), spec);
+    }
+
+    @Bean
+    public ReadThroughCache<Long> countCache(SummaryRepository summaryRepository, CacheProperties properties) {
+        return new ReadThroughCache<>("counts", summaryRepository::estimatedCount, SUMMARIES, properties.getSummaryTimeToLive());
+    }
+
+    @Bean
+    public ReadThroughCache<List<InitialCount>> lastNameInitialCache(SummaryRepository summaryRepository, CacheProperties properties) {
+        return new ReadThroughCache<>("lastNameInitials", collectionName -> summaryRepository.countVendorsByLastNameInitial().collectList(),
+                SUMMARIES, properties.getSummaryTimeToLive());
+    }
+
+    private static <T> Function<String, Mono<T>> loader(Function<String, Mono<T>> findById,
+                                                        Function<Collection<String>, Flux<T>> findAllById,
+                                                        Function<T, String> idOf, CacheProperties.Spec spec) {
+        if(spec.getBatchSize() <= 1) {
+            return findById;
+        }
+        return new IdBatcher<>(findAllById, idOf, spec.getBatchSize(), spec.getBatchWindow())::get;
+    }
+
+    private static <T> ReadThroughCache<T> create(String name, Function<String, Mono<T>> loader, CacheProperties.Spec spec) {
+        if(!spec.isEnabled()) {
+            return ReadThroughCache.disabled(name, loader);
+        }
+        return new ReadThroughCache<>(name, loader, spec.getMaximumSize(), spec.getTimeToLive());
+    }
+}
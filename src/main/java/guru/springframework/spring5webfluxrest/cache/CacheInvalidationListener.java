@@ -0,0 +1,84 @@
+package guru.springframework.spring5webfluxrest.cache;
+
+import guru.springframework.spring5webfluxrest.changes.Change;
+import guru.springframework.spring5webfluxrest.domain.Category;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+
+/**
+ * Drops cache entries for documents changed through any node, by following the change stream of each
+ * cached collection. Everything is dropped whenever the stream (re)connects, because changes made
+ * while it was down were never seen.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty("app.cache.change-stream-enabled")
+public class CacheInvalidationListener {
+    private static final Duration RECONNECT_DELAY = Duration.ofSeconds(5);
+
+    private final ReactiveMongoOperations mongoOperations;
+    private final ReadThroughCache<Category> categoryCache;
+    private final ReadThroughCache<Vendor> vendorCache;
+    private Disposable subscription;
+
+    public CacheInvalidationListener(ReactiveMongoOperations mongoOperations,
+                                     ReadThroughCache<Category> categoryCache,
+                                     ReadThroughCache<Vendor> vendorCache) {
+        this.mongoOperations = mongoOperations;
+        this.categoryCache = categoryCache;
+        this.vendorCache = vendorCache;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        subscription = Flux.merge(follow(Category.class, categoryCache), follow(Vendor.class, vendorCache))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if(subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    private Flux<ChangeStreamEvent<Document>> follow(Class<?> entityClass, ReadThroughCache<?> cache) {
+        if(!cache.isEnabled()) {
+            return Flux.empty();
+        }
+
+        String collectionName = mongoOperations.getCollectionName(entityClass);
+
+        return mongoOperations.changeStream(collectionName, ChangeStreamOptions.empty(), Document.class)
+                .doOnSubscribe(s -> cache.invalidateAll())
+                .doOnNext(event -> invalidate(cache, event))
+                .doOnError(e -> log.warn("Change stream on {} failed, reconnecting in {}", collectionName, RECONNECT_DELAY, e))
+                .retryWhen(errors -> errors.delayElements(RECONNECT_DELAY));
+    }
+
+    private static void invalidate(ReadThroughCache<?> cache, ChangeStreamEvent<Document> event) {
+        BsonDocument documentKey = event.getRaw().getDocumentKey();
+
+        if(documentKey == null) {
+            // drop, rename and invalidate events are about the whole collection
+            cache.invalidateAll();
+            return;
+        }
+
+        cache.invalidate(Change.idOf(documentKey.get("_id")));
+    }
+}
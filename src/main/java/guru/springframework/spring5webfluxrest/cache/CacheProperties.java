@@ -0,0 +1,41 @@
+package guru.springframework.spring5webfluxrest.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties("app.cache")
+public class CacheProperties {
+    private Spec categories = new Spec();
+    private Spec vendors = new Spec();
+
+    /**
+     * Listen to the Mongo change stream to drop entries written by other nodes. Change streams need a
+     * replica set, so this is off for the embedded server.
+     */
+    private boolean changeStreamEnabled = false;
+
+    /**
+     * How long counts and summaries are kept. Dashboards polling them within this time share one query.
+     */
+    private Duration summaryTimeToLive = Duration.ofSeconds(10);
+
+    @Getter
+    @Setter
+    public static class Spec {
+        private boolean enabled = true;
+        private long maximumSize = 10_000;
+        private Duration timeToLive = Duration.ofMinutes(10);
+
+        /**
+         * Misses within this window, up to {@code batchSize} of them, are read with one query. A batch
+         * size of 1 reads every miss on its own.
+         */
+        private int batchSize = 100;
+        private Duration batchWindow = Duration.ofMillis(1);
+    }
+}
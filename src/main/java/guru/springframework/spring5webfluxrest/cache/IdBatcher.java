@@ -0,0 +1,91 @@
+package guru.springframework.spring5webfluxrest.cache;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.UnicastProcessor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Gathers lookups by id made within a short window, or until a batch is full, into one
+ * {@code findAllById} query and hands each caller its own document. An id asked for more than once
+ * in a batch is queried once, and callers of an id that isn't found get an empty result.
+ * <p>
+ * The batching pipeline, and the timer it schedules, start with the first lookup rather than when the
+ * batcher is created along with the context.
+ */
+public class IdBatcher<T> {
+    private final Function<Collection<String>, Flux<T>> findAllById;
+    private final Function<T, String> idOf;
+    private final int maxBatchSize;
+    private final Duration window;
+    private volatile FluxSink<Lookup<T>> lookups;
+
+    public IdBatcher(Function<Collection<String>, Flux<T>> findAllById, Function<T, String> idOf,
+                     int maxBatchSize, Duration window) {
+        this.findAllById = findAllById;
+        this.idOf = idOf;
+        this.maxBatchSize = maxBatchSize;
+        this.window = window;
+    }
+
+    public Mono<T> get(String id) {
+        return Mono.create(sink -> lookups().next(new Lookup<>(id, sink)));
+    }
+
+    private FluxSink<Lookup<T>> lookups() {
+        FluxSink<Lookup<T>> lookups = this.lookups;
+        if(lookups != null) {
+            return lookups;
+        }
+
+        synchronized(this) {
+            if(this.lookups == null) {
+                UnicastProcessor<Lookup<T>> processor = UnicastProcessor.create();
+                // batches are not limited in number, bufferTimeout fails when it has a batch nobody asked for
+                processor.bufferTimeout(maxBatchSize, window)
+                        .flatMap(this::load, Integer.MAX_VALUE)
+                        .subscribe();
+                this.lookups = processor.sink();
+            }
+            return this.lookups;
+        }
+    }
+
+    private Mono<Void> load(List<Lookup<T>> batch) {
+        Map<String, List<MonoSink<T>>> waiting = new LinkedHashMap<>();
+        for(Lookup<T> lookup : batch) {
+            waiting.computeIfAbsent(lookup.id, id -> new ArrayList<>(1)).add(lookup.sink);
+        }
+
+        return Flux.defer(() -> findAllById.apply(new ArrayList<>(waiting.keySet())))
+                .doOnNext(document -> {
+                    List<MonoSink<T>> sinks = waiting.remove(idOf.apply(document));
+                    if(sinks != null) {
+                        sinks.forEach(sink -> sink.success(document));
+                    }
+                })
+                .doOnComplete(() -> waiting.values().forEach(sinks -> sinks.forEach(MonoSink::success)))
+                .doOnError(e -> waiting.values().forEach(sinks -> sinks.forEach(sink -> sink.error(e))))
+                .then()
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    private static final class Lookup<T> {
+        final String id;
+        final MonoSink<T> sink;
+
+        Lookup(String id, MonoSink<T> sink) {
+            this.id = id;
+            this.sink = sink;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package guru.springframework.spring5webfluxrest.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Bounded, expiring cache of documents by id in front of a reactive lookup. Concurrent misses for
+ * the same id share one in-flight lookup, and ids that don't exist are not cached.
+ * A disabled cache passes every call straight to the lookup.
+ */
+public class ReadThroughCache<T> implements MeterBinder {
+    private final String name;
+    private final Function<String, Mono<T>> loader;
+    private final AsyncLoadingCache<String, T> cache;
+
+    public ReadThroughCache(String name, Function<String, Mono<T>> loader, long maximumSize, Duration timeToLive) {
+        this.name = name;
+        this.loader = loader;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .buildAsync((id, executor) -> loader.apply(id).toFuture());
+    }
+
+    private ReadThroughCache(String name, Function<String, Mono<T>> loader) {
+        this.name = name;
+        this.loader = loader;
+        this.cache = null;
+    }
+
+    public static <T> ReadThroughCache<T> disabled(String name, Function<String, Mono<T>> loader) {
+        return new ReadThroughCache<>(name, loader);
+    }
+
+    public Mono<T> get(String id) {
+        if(cache == null) {
+            return loader.apply(id);
+        }
+        return Mono.defer(() -> Mono.fromFuture(cache.get(id)));
+    }
+
+    /**
+     * Drops the cached document, including a lookup that is still in flight, so the next read goes
+     * to the database.
+     */
+    public void invalidate(String id) {
+        if(cache != null) {
+            cache.synchronous().invalidate(id);
+        }
+    }
+
+    public void invalidateAll() {
+        if(cache != null) {
+            cache.synchronous().invalidateAll();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    public CacheStats stats() {
+        return cache != null ? cache.synchronous().stats() : CacheStats.empty();
+    }
+
+    public long estimatedSize() {
+        return cache != null ? cache.synchronous().estimatedSize() : 0;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if(cache != null) {
+            CaffeineCacheMetrics.monitor(registry, cache, name);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package guru.springframework.spring5webfluxrest.changes;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * One insert, update, replace or delete of a document, as sent to change feed subscribers. Deletes
+ * carry only the id; {@code invalidate} means the collection was dropped or renamed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class Change<T> {
+    public static final String HEARTBEAT = "heartbeat";
+
+    /**
+     * Where the feed picks up again when this is passed back as {@code after} or {@code Last-Event-ID}.
+     */
+    private String token;
+    private String type;
+    private String id;
+    private T document;
+
+    /**
+     * Sent when nothing has changed for a while, so idle connections are not closed along the way.
+     */
+    public static <T> Change<T> heartbeat() {
+        return Change.<T>builder().type(HEARTBEAT).build();
+    }
+
+    @JsonIgnore
+    public boolean isHeartbeat() {
+        return HEARTBEAT.equals(type);
+    }
+
+    /**
+     * A resume token as text safe for a URL or an event id.
+     */
+    static String encodeToken(BsonValue resumeToken) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(resumeToken.asDocument().toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static BsonDocument decodeToken(String token) {
+        try {
+            return BsonDocument.parse(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+        } catch(RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not a change token: " + token);
+        }
+    }
+
+    /**
+     * The id of a document key as the API shows it: ObjectIds in hex.
+     */
+    public static String idOf(BsonValue id) {
+        if(id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        if(id.isString()) {
+            return id.asString().getValue();
+        }
+        return id.toString();
+    }
+}
@@ -0,0 +1,139 @@
+package guru.springframework.spring5webfluxrest.changes;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.MonoProcessor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Changes to one collection, pushed to any number of subscribers. Everyone following the feed from now
+ * shares a single change stream, opened for the first subscriber and closed after the last, and
+ * reopened where it left off when it fails. A subscriber resuming from a token gets a change stream
+ * of its own starting there.
+ * <p>
+ * Each subscriber has its own buffer, so a slow one does not hold back the others; what happens when
+ * it fills up is {@code app.change-feed.overflow}. A disabled feed answers subscribers with a 404.
+ */
+@Slf4j
+public class ChangeFeed<T> implements MeterBinder {
+    private final String name;
+    private final Class<T> entityClass;
+    private final ReactiveMongoOperations mongoOperations;
+    private final ChangeFeedProperties properties;
+    private final Flux<Change<T>> shared;
+
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile String lastToken;
+
+    public ChangeFeed(String name, Class<T> entityClass, ReactiveMongoOperations mongoOperations, ChangeFeedProperties properties) {
+        this.name = name;
+        this.entityClass = entityClass;
+        this.mongoOperations = mongoOperations;
+        this.properties = properties;
+        this.shared = Flux.defer(() -> watch(lastToken != null ? Change.decodeToken(lastToken) : null))
+                .doOnNext(change -> lastToken = change.getToken())
+                .doOnError(e -> log.warn("Change stream of {} failed, reopening in {}", name, properties.getReconnectDelay(), e))
+                .retryWhen(errors -> errors.delayElements(properties.getReconnectDelay()))
+                // with no one left, the next first subscriber starts from its own present
+                .doFinally(signal -> lastToken = null)
+                .publish()
+                .refCount();
+    }
+
+    private ChangeFeed(String name) {
+        this.name = name;
+        this.entityClass = null;
+        this.mongoOperations = null;
+        this.properties = null;
+        this.shared = null;
+    }
+
+    public static <T> ChangeFeed<T> disabled(String name) {
+        return new ChangeFeed<>(name);
+    }
+
+    public boolean isEnabled() {
+        return shared != null;
+    }
+
+    /**
+     * Changes from now on, or from just after the change the token came with, mixed with heartbeats.
+     */
+    public Flux<Change<T>> changes(String after) {
+        if(!isEnabled()) {
+            return Flux.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "No change feed for " + name));
+        }
+
+        Flux<Change<T>> changes = after != null ? watch(Change.decodeToken(after)) : shared;
+
+        return Flux.defer(() -> {
+            // heartbeats stop when the changes do, e.g. after the collection is dropped
+            MonoProcessor<Void> ended = MonoProcessor.create();
+            Flux<Change<T>> heartbeats = Flux.interval(properties.getHeartbeatInterval(), properties.getHeartbeatInterval())
+                    .map(tick -> Change.<T>heartbeat())
+                    .takeUntilOther(ended);
+
+            return Flux.merge(changes.doFinally(signal -> ended.onComplete()), heartbeats);
+        })
+                .onBackpressureBuffer(properties.getBufferSize(), this::dropped, properties.getOverflow())
+                .doOnSubscribe(subscription -> subscribers.incrementAndGet())
+                .doFinally(signal -> subscribers.decrementAndGet());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if(!isEnabled()) {
+            return;
+        }
+
+        Gauge.builder("change.feed.subscribers", subscribers, AtomicInteger::get)
+                .tag("name", name)
+                .description("Clients following the change feed")
+                .register(registry);
+        FunctionCounter.builder("change.feed.dropped", dropped, AtomicLong::get)
+                .tag("name", name)
+                .description("Changes dropped because a subscriber's buffer was full")
+                .register(registry);
+    }
+
+    private void dropped(Change<T> change) {
+        if(!change.isHeartbeat()) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private Flux<Change<T>> watch(BsonValue resumeToken) {
+        ChangeStreamOptions.ChangeStreamOptionsBuilder options = ChangeStreamOptions.builder().returnFullDocumentOnUpdate();
+        if(resumeToken != null) {
+            options.resumeToken(resumeToken);
+        }
+
+        return mongoOperations.changeStream(mongoOperations.getCollectionName(entityClass), options.build(), entityClass)
+                .map(this::toChange);
+    }
+
+    private Change<T> toChange(ChangeStreamEvent<T> event) {
+        BsonDocument documentKey = event.getRaw().getDocumentKey();
+
+        return Change.<T>builder()
+                .token(Change.encodeToken(event.getResumeToken()))
+                .type(event.getOperationType().getValue())
+                .id(documentKey != null ? Change.idOf(documentKey.get("_id")) : null)
+                .document(event.getBody())
+                .build();
+    }
+}
@@ -0,0 +1,33 @@
+package guru.springframework.spring5webfluxrest.changes;
+
+import guru.springframework.spring5webfluxrest.domain.Category;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+
+/**
+ * One change feed per collection, shared by every client following it.
+ */
+@Configuration
+@EnableConfigurationProperties(ChangeFeedProperties.class)
+public class ChangeFeedConfig {
+
+    @Bean
+    public ChangeFeed<Category> categoryChanges(ReactiveMongoOperations mongoOperations, ChangeFeedProperties properties) {
+        return create("categories", Category.class, mongoOperations, properties);
+    }
+
+    @Bean
+    public ChangeFeed<Vendor> vendorChanges(ReactiveMongoOperations mongoOperations, ChangeFeedProperties properties) {
+        return create("vendors", Vendor.class, mongoOperations, properties);
+    }
+
+    private static <T> ChangeFeed<T> create(String name, Class<T> entityClass, ReactiveMongoOperations mongoOperations,
+                                            ChangeFeedProperties properties) {
+        return properties.isEnabled()
+                ? new ChangeFeed<>(name, entityClass, mongoOperations, properties)
+                : ChangeFeed.disabled(name);
+    }
+}
@@ -0,0 +1,37 @@
+package guru.springframework.spring5webfluxrest.changes;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import reactor.core.publisher.BufferOverflowStrategy;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties("app.change-feed")
+public class ChangeFeedProperties {
+    /**
+     * Serve {@code /changes} from the Mongo change streams. Change streams need a replica set, so this
+     * is off for the embedded server.
+     */
+    private boolean enabled = false;
+
+    /**
+     * How often a subscriber is sent a heartbeat, whether or not anything changed.
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    /**
+     * Changes held for a subscriber reading slower than they happen, and what happens once that is
+     * full: {@code error} ends its stream once it has read what was held, to be resumed from the last
+     * change it got, while {@code drop-oldest} and {@code drop-latest} keep it open and lose changes.
+     */
+    private int bufferSize = 256;
+    private BufferOverflowStrategy overflow = BufferOverflowStrategy.ERROR;
+
+    /**
+     * Wait before the shared change stream is opened again after it failed.
+     */
+    private Duration reconnectDelay = Duration.ofSeconds(5);
+}
@@ -0,0 +1,58 @@
+package guru.springframework.spring5webfluxrest.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.CodecConfigurer;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+
+/**
+ * Adds Smile and CBOR next to JSON, for clients that would rather not pay for JSON text. Each has a
+ * streaming type written one document after another with no separator: Spring's
+ * {@code application/stream+x-jackson-smile}, and {@code application/cbor-seq} for CBOR.
+ */
+@Component
+@EnableConfigurationProperties(CodecProperties.class)
+public class BinaryCodecCustomizer implements CodecCustomizer {
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+    public static final String APPLICATION_STREAM_SMILE_VALUE = "application/stream+x-jackson-smile";
+    public static final MediaType APPLICATION_STREAM_SMILE = MediaType.valueOf(APPLICATION_STREAM_SMILE_VALUE);
+    public static final String APPLICATION_CBOR_VALUE = "application/cbor";
+    public static final MediaType APPLICATION_CBOR = MediaType.valueOf(APPLICATION_CBOR_VALUE);
+    public static final String APPLICATION_CBOR_SEQ_VALUE = "application/cbor-seq";
+    public static final MediaType APPLICATION_CBOR_SEQ = MediaType.valueOf(APPLICATION_CBOR_SEQ_VALUE);
+
+    private final ObjectMapper smileMapper;
+    private final ObjectMapper cborMapper;
+    private final long maxCborBodySize;
+
+    /**
+     * Builds both mappers from the application's Jackson settings, so the binary formats carry the
+     * same fields as JSON.
+     */
+    public BinaryCodecCustomizer(Jackson2ObjectMapperBuilder objectMapperBuilder, CodecProperties properties) {
+        this.smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+        this.cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+        this.maxCborBodySize = properties.getMaxCborBodySize().toBytes();
+    }
+
+    @Override
+    public void customize(CodecConfigurer configurer) {
+        Jackson2SmileEncoder smileEncoder = new Jackson2SmileEncoder(smileMapper, APPLICATION_SMILE, APPLICATION_STREAM_SMILE);
+        smileEncoder.setStreamingMediaTypes(Collections.singletonList(APPLICATION_STREAM_SMILE));
+
+        configurer.customCodecs().encoder(smileEncoder);
+        configurer.customCodecs().decoder(new Jackson2SmileDecoder(smileMapper, APPLICATION_SMILE, APPLICATION_STREAM_SMILE));
+        configurer.customCodecs().encoder(new Jackson2CborEncoder(cborMapper, APPLICATION_CBOR, APPLICATION_CBOR_SEQ));
+        configurer.customCodecs().decoder(new Jackson2CborDecoder(cborMapper, maxCborBodySize, APPLICATION_CBOR, APPLICATION_CBOR_SEQ));
+    }
+}
@@ -0,0 +1,17 @@
+package guru.springframework.spring5webfluxrest.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Getter
+@Setter
+@ConfigurationProperties("app.codec")
+public class CodecProperties {
+    /**
+     * Largest CBOR request body read. CBOR bodies are held whole in memory before they are decoded, so
+     * larger ones are turned away with a 413; stream big uploads as NDJSON or Smile instead.
+     */
+    private DataSize maxCborBodySize = DataSize.ofMegabytes(16);
+}
@@ -0,0 +1,74 @@
+package guru.springframework.spring5webfluxrest.config;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import org.bson.Document;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A template reading and writing each collection with the read preference and write concern
+ * configured for it, falling back to those configured for all collections and then to the client's.
+ * <p>
+ * Settings are applied to the collection itself rather than through a {@code WriteConcernResolver},
+ * which only sees the template's own writes: bulk writes and change streams go to
+ * {@link #getCollection(String)} directly.
+ */
+public class CollectionSettingsMongoTemplate extends ReactiveMongoTemplate {
+    private final CollectionSettings defaults;
+    private final Map<String, CollectionSettings> collections = new HashMap<>();
+
+    public CollectionSettingsMongoTemplate(ReactiveMongoDatabaseFactory databaseFactory, MongoConverter converter,
+                                           MongoDriverProperties properties) {
+        super(databaseFactory, converter);
+        this.defaults = new CollectionSettings(properties.getReadPreference(), properties.getWriteConcern(), null);
+        properties.getCollections().forEach((name, settings) -> collections.put(name,
+                new CollectionSettings(settings.getReadPreference(), settings.getWriteConcern(), defaults)));
+    }
+
+    @Override
+    public MongoCollection<Document> getCollection(String collectionName) {
+        return withSettings(super.getCollection(collectionName), collectionName);
+    }
+
+    @Override
+    protected MongoCollection<Document> prepareCollection(MongoCollection<Document> collection) {
+        return withSettings(super.prepareCollection(collection), collection.getNamespace().getCollectionName());
+    }
+
+    private MongoCollection<Document> withSettings(MongoCollection<Document> collection, String collectionName) {
+        CollectionSettings settings = collections.getOrDefault(collectionName, defaults);
+        if(settings.readPreference != null) {
+            collection = collection.withReadPreference(settings.readPreference);
+        }
+        if(settings.writeConcern != null) {
+            collection = collection.withWriteConcern(settings.writeConcern);
+        }
+        return collection;
+    }
+
+    private static class CollectionSettings {
+        final ReadPreference readPreference;
+        final WriteConcern writeConcern;
+
+        CollectionSettings(String readPreference, String writeConcern, CollectionSettings fallback) {
+            this.readPreference = readPreference != null ? ReadPreference.valueOf(readPreference)
+                    : fallback != null ? fallback.readPreference : null;
+            this.writeConcern = writeConcern != null ? writeConcern(writeConcern)
+                    : fallback != null ? fallback.writeConcern : null;
+        }
+
+        private static WriteConcern writeConcern(String name) {
+            WriteConcern writeConcern = WriteConcern.valueOf(name);
+            if(writeConcern == null) {
+                throw new IllegalArgumentException("Unknown write concern: " + name);
+            }
+            return writeConcern;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package guru.springframework.spring5webfluxrest.config;
+
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.MongoWaitQueueFullException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebExceptionHandler;
+import reactor.core.publisher.Mono;
+
+/**
+ * Turns an operation that found no Mongo connection (the pool's wait queue was full, or the wait
+ * outlasted {@code app.mongo.pool.max-wait-time}) or no server in time into a 503 with
+ * {@code Retry-After}, on every route, instead of a 500.
+ * <p>
+ * It runs ahead of Boot's error handler and passes the 503 on to it, so the body is the usual
+ * error JSON with a message saying what the database could not do.
+ */
+@Component
+@Order(-2)
+public class DatabaseBusyExceptionHandler implements WebExceptionHandler, MeterBinder {
+    static final String REJECTED_METRIC = "mongodb.driver.operations.rejected";
+
+    /**
+     * A connection frees up as soon as any operation finishes, so clients are asked back after the
+     * shortest wait the header can say.
+     */
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private volatile MeterRegistry registry;
+
+    @Override
+    public Mono<Void> handle(ServerWebExchange exchange, Throwable ex) {
+        Reason reason = reason(ex);
+        if(reason == null || exchange.getResponse().isCommitted()) {
+            return Mono.error(ex);
+        }
+
+        MeterRegistry registry = this.registry;
+        if(registry != null) {
+            registry.counter(REJECTED_METRIC, "reason", reason.tag).increment();
+        }
+
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, reason.message, ex));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Why the database could not take the operation, or null when it failed for another reason.
+     * Spring's translation keeps the driver's exception as the cause.
+     */
+    private static Reason reason(Throwable ex) {
+        for(Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if(cause instanceof MongoWaitQueueFullException) {
+                return Reason.WAIT_QUEUE_FULL;
+            }
+            if(cause instanceof MongoTimeoutException) {
+                // the driver says which it was waiting for only in the message
+                String message = cause.getMessage();
+                return message != null && message.contains("waiting for a connection")
+                        ? Reason.CONNECTION_TIMEOUT : Reason.SERVER_TIMEOUT;
+            }
+        }
+        return null;
+    }
+
+    private enum Reason {
+        WAIT_QUEUE_FULL("wait-queue-full", "Too many requests waiting for a database connection"),
+        CONNECTION_TIMEOUT("connection-timeout", "Timed out waiting for a database connection"),
+        SERVER_TIMEOUT("server-timeout", "Timed out waiting for the database");
+
+        final String tag;
+        final String message;
+
+        Reason(String tag, String message) {
+            this.tag = tag;
+            this.message = message;
+        }
+    }
+}
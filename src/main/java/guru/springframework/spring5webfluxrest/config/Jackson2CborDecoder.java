@@ -0,0 +1,92 @@
+package guru.springframework.spring5webfluxrest.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.AbstractJackson2Decoder;
+import org.springframework.util.MimeType;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads CBOR, either one array or a CBOR sequence of items. Jackson has no non-blocking CBOR parser,
+ * so unlike JSON and Smile the body is read whole before it is decoded, and a body larger than
+ * {@code maxInMemorySize} bytes is rejected with a 413 as soon as that much has arrived.
+ */
+public class Jackson2CborDecoder extends AbstractJackson2Decoder {
+
+    private final long maxInMemorySize;
+
+    public Jackson2CborDecoder(ObjectMapper objectMapper, long maxInMemorySize, MediaType... mimeTypes) {
+        super(objectMapper, mimeTypes);
+        this.maxInMemorySize = maxInMemorySize;
+    }
+
+    @Override
+    public Flux<Object> decode(Publisher<DataBuffer> input, ResolvableType elementType, MimeType mimeType,
+                               Map<String, Object> hints) {
+        // readValues steps into a top level array, and otherwise reads the items one after another
+        return join(input)
+                .flatMapIterable(buffer -> read(buffer, body -> reader(elementType).readValues(body).readAll()));
+    }
+
+    @Override
+    public Mono<Object> decodeToMono(Publisher<DataBuffer> input, ResolvableType elementType, MimeType mimeType,
+                                     Map<String, Object> hints) {
+        return join(input)
+                .map(buffer -> read(buffer, body -> reader(elementType).readValue(body)));
+    }
+
+    private Mono<DataBuffer> join(Publisher<DataBuffer> input) {
+        return Mono.defer(() -> {
+            List<DataBuffer> buffers = new ArrayList<>();
+            long[] size = {0};
+
+            return Flux.from(input)
+                    .doOnNext(buffer -> {
+                        buffers.add(buffer);
+                        size[0] += buffer.readableByteCount();
+                        if(size[0] > maxInMemorySize) {
+                            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                                    "CBOR body is larger than " + maxInMemorySize + " bytes");
+                        }
+                    })
+                    .then(Mono.fromSupplier(() -> buffers.isEmpty() ? null : buffers.get(0).factory().join(buffers)))
+                    .doOnError(e -> buffers.forEach(DataBufferUtils::release))
+                    .doOnCancel(() -> buffers.forEach(DataBufferUtils::release));
+        });
+    }
+
+    private ObjectReader reader(ResolvableType elementType) {
+        JavaType javaType = getObjectMapper().getTypeFactory().constructType(elementType.getType());
+        return getObjectMapper().readerFor(javaType);
+    }
+
+    private static <R> R read(DataBuffer buffer, BodyReader<R> bodyReader) {
+        try(InputStream body = buffer.asInputStream()) {
+            return bodyReader.read(body);
+        } catch(IOException e) {
+            throw new DecodingException("CBOR decoding error: " + e.getMessage(), e);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private interface BodyReader<R> {
+        R read(InputStream body) throws IOException;
+    }
+}
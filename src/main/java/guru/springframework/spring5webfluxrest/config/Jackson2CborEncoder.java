@@ -0,0 +1,41 @@
+package guru.springframework.spring5webfluxrest.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.AbstractJackson2Encoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Writes CBOR: a list as one array, or as a CBOR sequence when the type is {@code application/cbor-seq},
+ * each item flushed as it is emitted.
+ */
+public class Jackson2CborEncoder extends AbstractJackson2Encoder {
+    private final MediaType sequenceType;
+
+    public Jackson2CborEncoder(ObjectMapper objectMapper, MediaType documentType, MediaType sequenceType) {
+        super(objectMapper, documentType, sequenceType);
+        this.sequenceType = sequenceType;
+        setStreamingMediaTypes(Collections.singletonList(sequenceType));
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                   MimeType mimeType, Map<String, Object> hints) {
+        if(inputStream instanceof Mono || mimeType == null || !sequenceType.isCompatibleWith(mimeType)) {
+            return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+        }
+
+        // the base class would put a newline between items, which in CBOR is the number 10
+        return Flux.from(inputStream)
+                .concatMap(value -> super.encode(Mono.just(value), bufferFactory, elementType, mimeType, hints));
+    }
+}
@@ -0,0 +1,37 @@
+package guru.springframework.spring5webfluxrest.config;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+/**
+ * With {@code app.lazy-initialization} set, beans are created when first needed rather than all at
+ * startup; whatever the first requests do not touch is never built. Beans that do their work once
+ * every singleton is up, like {@code MongoIndexes}, stay eager, since a lazy one would never be called.
+ */
+@Component
+@ConditionalOnProperty("app.lazy-initialization")
+public class LazyInitializationPostProcessor implements BeanFactoryPostProcessor {
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+        for(String name : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition definition = beanFactory.getBeanDefinition(name);
+            if(!definition.isAbstract() && !runsAfterStartup(definition, beanFactory.getBeanClassLoader())) {
+                definition.setLazyInit(true);
+            }
+        }
+    }
+
+    private static boolean runsAfterStartup(BeanDefinition definition, ClassLoader classLoader) {
+        // beans from factory methods carry the configuration class here, which is fine to make lazy
+        String className = definition.getFactoryMethodName() == null ? definition.getBeanClassName() : null;
+        return className != null && ClassUtils.isPresent(className, classLoader)
+                && SmartInitializingSingleton.class.isAssignableFrom(ClassUtils.resolveClassName(className, classLoader));
+    }
+}
@@ -0,0 +1,66 @@
+package guru.springframework.spring5webfluxrest.config;
+
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Pool, socket and server selection limits of the reactive Mongo client, and the template applying
+ * read preference and write concern by collection. See {@link MongoDriverProperties}.
+ */
+@Configuration
+@EnableConfigurationProperties(MongoDriverProperties.class)
+public class MongoConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoDriverSettingsCustomizer(MongoDriverProperties properties) {
+        // customizers run after the uri is applied, so only what is set here overrides it
+        return builder -> {
+            MongoDriverProperties.Pool pool = properties.getPool();
+            builder.applyToConnectionPoolSettings(settings -> {
+                setIfPresent(pool.getMaxSize(), settings::maxSize);
+                setIfPresent(pool.getMinSize(), settings::minSize);
+                setIfPresent(pool.getMaxWaitQueueSize(), settings::maxWaitQueueSize);
+                setMillisIfPresent(pool.getMaxWaitTime(), millis -> settings.maxWaitTime(millis, TimeUnit.MILLISECONDS));
+                setMillisIfPresent(pool.getMaxConnectionIdleTime(), millis -> settings.maxConnectionIdleTime(millis, TimeUnit.MILLISECONDS));
+                setMillisIfPresent(pool.getMaxConnectionLifeTime(), millis -> settings.maxConnectionLifeTime(millis, TimeUnit.MILLISECONDS));
+            });
+            builder.applyToSocketSettings(settings -> {
+                setMillisIfPresent(properties.getConnectTimeout(), millis -> settings.connectTimeout(millis.intValue(), TimeUnit.MILLISECONDS));
+                setMillisIfPresent(properties.getReadTimeout(), millis -> settings.readTimeout(millis.intValue(), TimeUnit.MILLISECONDS));
+            });
+            builder.applyToClusterSettings(settings ->
+                    setMillisIfPresent(properties.getServerSelectionTimeout(), millis -> settings.serverSelectionTimeout(millis, TimeUnit.MILLISECONDS)));
+        };
+    }
+
+    /**
+     * Takes the place of Boot's template, so repositories and everything reading through the template
+     * get the settings of their collection.
+     */
+    @Bean
+    public ReactiveMongoTemplate reactiveMongoTemplate(ReactiveMongoDatabaseFactory databaseFactory, MongoConverter converter,
+                                                       MongoDriverProperties properties) {
+        return new CollectionSettingsMongoTemplate(databaseFactory, converter, properties);
+    }
+
+    private static <T> void setIfPresent(T value, Consumer<T> setter) {
+        if(value != null) {
+            setter.accept(value);
+        }
+    }
+
+    private static void setMillisIfPresent(Duration value, Consumer<Long> setter) {
+        if(value != null) {
+            setter.accept(value.toMillis());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package guru.springframework.spring5webfluxrest.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Settings of the reactive Mongo client on top of {@code spring.data.mongodb.uri}. Anything left unset
+ * keeps what the uri says, or else the driver's default.
+ */
+@Getter
+@Setter
+@ConfigurationProperties("app.mongo")
+public class MongoDriverProperties {
+    private Pool pool = new Pool();
+
+    /**
+     * How long opening a connection, and reading a reply on one, may take.
+     */
+    private Duration connectTimeout;
+    private Duration readTimeout;
+
+    /**
+     * How long an operation waits for a server it may run on (a primary for writes) before failing.
+     */
+    private Duration serverSelectionTimeout;
+
+    /**
+     * Read preference and write concern of every collection without settings of its own, such as
+     * {@code secondaryPreferred} or {@code majority}.
+     */
+    private String readPreference;
+    private String writeConcern;
+
+    /**
+     * Read preference and write concern by collection name ({@code category}, {@code vendor}), so the
+     * lists of one repository can go to secondaries while the others read from the primary.
+     */
+    private Map<String, CollectionSettings> collections = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Pool {
+        /**
+         * Connections kept open to each server, at most and at least.
+         */
+        private Integer maxSize;
+        private Integer minSize;
+
+        /**
+         * Operations that may wait for a connection when all are in use, and for how long. Past either
+         * an operation fails at once, and the API answers 503.
+         */
+        private Integer maxWaitQueueSize;
+        private Duration maxWaitTime;
+
+        /**
+         * How long a connection may sit idle, or live at all, before it is closed.
+         */
+        private Duration maxConnectionIdleTime;
+        private Duration maxConnectionLifeTime;
+    }
+
+    @Getter
+    @Setter
+    public static class CollectionSettings {
+        private String readPreference;
+        private String writeConcern;
+    }
+}
@@ -0,0 +1,27 @@
+package guru.springframework.spring5webfluxrest.config;
+
+import io.netty.util.ResourceLeakDetector;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Buffer settings of the Netty server. Response compression is Boot's, see
+ * {@code server.compression} in application.properties.
+ */
+@Configuration
+@EnableConfigurationProperties(NettyProperties.class)
+public class NettyConfig {
+
+    @Bean
+    public WebServerFactoryCustomizer<NettyReactiveWebServerFactory> nettyBuffersCustomizer(NettyProperties properties) {
+        return factory -> {
+            if(properties.getLeakDetection() != null) {
+                ResourceLeakDetector.setLevel(properties.getLeakDetection());
+            }
+            factory.addServerCustomizers(new PooledBuffersCustomizer(properties.isDirectBuffers()));
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package guru.springframework.spring5webfluxrest.config;
+
+import io.netty.util.ResourceLeakDetector;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties("app.netty")
+public class NettyProperties {
+    /**
+     * Encode responses into pooled direct buffers, handed to the socket without a copy. Off gives
+     * pooled heap buffers.
+     */
+    private boolean directBuffers = true;
+
+    /**
+     * Netty's buffer leak detection level. Leave unset for Netty's default, set {@code paranoid} to
+     * track every buffer while testing.
+     */
+    private ResourceLeakDetector.Level leakDetection;
+}
@@ -0,0 +1,24 @@
+package guru.springframework.spring5webfluxrest.config;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Gives every connection a pooled allocator. Response encoders allocate from the connection's
+ * allocator, so the documents are written straight into buffers that go back to the pool once sent.
+ */
+public class PooledBuffersCustomizer implements NettyServerCustomizer {
+    private final ByteBufAllocator allocator;
+
+    public PooledBuffersCustomizer(boolean directBuffers) {
+        this.allocator = directBuffers ? PooledByteBufAllocator.DEFAULT : new PooledByteBufAllocator(false);
+    }
+
+    @Override
+    public HttpServer apply(HttpServer httpServer) {
+        return httpServer.tcpConfiguration(tcpServer -> tcpServer.option(ChannelOption.ALLOCATOR, allocator));
+    }
+}
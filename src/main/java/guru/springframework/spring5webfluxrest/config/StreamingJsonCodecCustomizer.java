@@ -0,0 +1,37 @@
+package guru.springframework.spring5webfluxrest.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.CodecConfigurer;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+
+/**
+ * Adds {@code application/x-ndjson} next to the default Jackson codecs. Like
+ * {@code application/stream+json}, it is written one document per line and flushed as each element
+ * is emitted, and request bodies are decoded element by element.
+ */
+@Component
+public class StreamingJsonCodecCustomizer implements CodecCustomizer {
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final MediaType APPLICATION_NDJSON = MediaType.valueOf(APPLICATION_NDJSON_VALUE);
+
+    private final ObjectMapper objectMapper;
+
+    public StreamingJsonCodecCustomizer(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void customize(CodecConfigurer configurer) {
+        Jackson2JsonEncoder encoder = new Jackson2JsonEncoder(objectMapper, APPLICATION_NDJSON);
+        encoder.setStreamingMediaTypes(Collections.singletonList(APPLICATION_NDJSON));
+
+        configurer.customCodecs().encoder(encoder);
+        configurer.customCodecs().decoder(new Jackson2JsonDecoder(objectMapper, APPLICATION_NDJSON));
+    }
+}
@@ -1,64 +1,171 @@
 package guru.springframework.spring5webfluxrest.controllers;
 
+import guru.springframework.spring5webfluxrest.bulk.BatchResult;
+import guru.springframework.spring5webfluxrest.bulk.BulkDeleteResult;
 import guru.springframework.spring5webfluxrest.domain.Category;
-import guru.springframework.spring5webfluxrest.repositories.CategoryRepository;
+import guru.springframework.spring5webfluxrest.repositories.CategorySearch;
+import guru.springframework.spring5webfluxrest.services.DocumentTypes;
+import guru.springframework.spring5webfluxrest.services.ETags;
+import guru.springframework.spring5webfluxrest.services.Fields;
+import guru.springframework.spring5webfluxrest.services.CategoryService;
+import guru.springframework.spring5webfluxrest.services.KeysetPaging;
 import org.reactivestreams.Publisher;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import static guru.springframework.spring5webfluxrest.config.BinaryCodecCustomizer.APPLICATION_CBOR_SEQ_VALUE;
+import static guru.springframework.spring5webfluxrest.config.BinaryCodecCustomizer.APPLICATION_CBOR_VALUE;
+import static guru.springframework.spring5webfluxrest.config.BinaryCodecCustomizer.APPLICATION_SMILE_VALUE;
+import static guru.springframework.spring5webfluxrest.config.BinaryCodecCustomizer.APPLICATION_STREAM_SMILE_VALUE;
+import static guru.springframework.spring5webfluxrest.config.StreamingJsonCodecCustomizer.APPLICATION_NDJSON_VALUE;
+
 @RestController
+@ConditionalOnProperty(name = "app.web.style", havingValue = "annotated", matchIfMissing = true)
 public class CategoryController {
     public static final String API_V1_CATEGORIES = "/api/v1/categories";
-    private final CategoryRepository categoryRepository;
 
-    public CategoryController(CategoryRepository categoryRepository) {
-        this.categoryRepository = categoryRepository;
+    private final CategoryService categoryService;
+
+    public CategoryController(CategoryService categoryService) {
+        this.categoryService = categoryService;
+    }
+
+    /**
+     * One page of categories in id order. Pass the id of the last category of a page as {@code after} to
+     * get the next one. Narrow the list with {@code description}, matched ignoring case, or with text
+     * search words in {@code q}. The page is tagged with the collection's change count, so a client
+     * polling with {@code If-None-Match} gets a 304 until something is written. Name the fields wanted
+     * in {@code fields} to read and send only those.
+     */
+    @GetMapping(value = API_V1_CATEGORIES, produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    Mono<ResponseEntity<Flux<Category>>> list(@ModelAttribute CategorySearch search,
+                                              @RequestParam(required = false) String after,
+                                              @RequestParam(defaultValue = KeysetPaging.DEFAULT_LIMIT) int limit,
+                                              @RequestParam(required = false) String fields,
+                                              ServerHttpRequest request) {
+        Fields selected = Fields.parse(Category.class, fields);
+        MediaType documentType = DocumentTypes.negotiate(request.getHeaders().getAccept());
+
+        // the result handler answers 304 from the tag alone, so the page is only read when it is sent
+        return categoryService.changes()
+                .map(changes -> ResponseEntity.ok()
+                        .eTag(ETags.ofChanges(changes, documentType))
+                        .varyBy(HttpHeaders.ACCEPT)
+                        .body(categoryService.list(search, after, limit, selected)));
     }
 
-    @GetMapping(API_V1_CATEGORIES)
-    Flux<Category> list() {
-        return categoryRepository.findAll();
+    /**
+     * Streams categories one document after another (a line each in the JSON types) as they come off the
+     * cursor, at the pace the client reads them. {@code fields} narrows each document as it does for the
+     * list.
+     */
+    @GetMapping(value = API_V1_CATEGORIES, produces = {APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_STREAM_JSON_VALUE,
+            APPLICATION_CBOR_SEQ_VALUE, APPLICATION_STREAM_SMILE_VALUE})
+    Flux<Category> stream(@ModelAttribute CategorySearch search,
+                         @RequestParam(required = false) String after,
+                         @RequestParam(required = false) Integer limit,
+                         @RequestParam(required = false) String fields) {
+        return categoryService.stream(search, after, limit, Fields.parse(Category.class, fields));
     }
 
+    /**
+     * Same as {@link #stream}, as server-sent events. Each event id is the category id, so a client that
+     * reconnects with {@code Last-Event-ID} picks up where it left off.
+     */
+    @GetMapping(value = API_V1_CATEGORIES, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    Flux<ServerSentEvent<Category>> events(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                          @ModelAttribute CategorySearch search,
+                                          @RequestParam(required = false) String after,
+                                          @RequestParam(required = false) Integer limit,
+                                          @RequestParam(required = false) String fields) {
+        return stream(search, lastEventId != null ? lastEventId : after, limit, fields)
+                .map(category -> ServerSentEvent.builder(category).id(category.getId()).build());
+    }
+
+    /**
+     * The category tagged with its version. A client sending that tag in {@code If-None-Match} gets a 304
+     * until the category changes, without the body being written. {@code fields} narrows the body as it
+     * does for the list.
+     */
     @GetMapping(API_V1_CATEGORIES + "/{id}")
-    Mono<Category> getById(@PathVariable String id) {
-        return categoryRepository.findById(id);
+    Mono<ResponseEntity<Category>> getById(@PathVariable String id, @RequestParam(required = false) String fields,
+                                           ServerHttpRequest request) {
+        Fields selected = Fields.parse(Category.class, fields);
+        MediaType documentType = DocumentTypes.negotiate(request.getHeaders().getAccept());
+
+        return categoryService.getById(id)
+                .map(category -> tagged(category, selected, documentType));
     }
 
     @PostMapping(API_V1_CATEGORIES)
     @ResponseStatus(HttpStatus.CREATED)
-    Mono<Void> create(@RequestBody Publisher<Category> categoryStream) {
-        return categoryRepository.saveAll(categoryStream).then();
+    Flux<BatchResult> create(@RequestBody Publisher<Category> categoryStream) {
+        return categoryService.create(categoryStream);
     }
 
+    /**
+     * Replaces the categories in the body by id, and inserts those with new ids, in batches as they arrive.
+     */
+    @PutMapping(API_V1_CATEGORIES)
+    Flux<BatchResult> upsert(@RequestBody Publisher<Category> categoryStream) {
+        return categoryService.upsert(categoryStream);
+    }
+
+    /**
+     * Replaces the category. With write-behind on, a PUT that names no version is answered with a 202 as
+     * soon as it is buffered, and written with the next flush.
+     */
     @PutMapping(API_V1_CATEGORIES + "/{id}")
-    Mono<Category> update(@PathVariable String id, @RequestBody Category category) {
-        category.setId(id);
-        return categoryRepository.save(category);
+    Mono<ResponseEntity<Category>> update(@PathVariable String id, @RequestBody Category category) {
+        HttpStatus status = categoryService.writesBehind(category) ? HttpStatus.ACCEPTED : HttpStatus.OK;
+
+        return categoryService.update(id, category)
+                .map(updated -> ResponseEntity.status(status).body(updated));
     }
 
     @PatchMapping(API_V1_CATEGORIES + "/{id}")
     Mono<Category> patch(@PathVariable String id, @RequestBody Category category) {
-        Category foundCategory = categoryRepository.findById(id).block();
+        return categoryService.patch(id, category);
+    }
 
-        if(foundCategory == null) {
-            throw new RuntimeException("Id not found for Category");
-        }
+    @DeleteMapping(API_V1_CATEGORIES + "/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    Mono<Void> delete(@PathVariable String id) {
+        return categoryService.delete(id);
+    }
 
-        if(foundCategory.getDescription() != null && !foundCategory.getDescription().equals(category.getDescription())) {
-            foundCategory.setDescription(category.getDescription());
-            return categoryRepository.save(foundCategory);
-        }
+    /**
+     * Deletes every category matching the filters, which are those of the list.
+     */
+    @DeleteMapping(API_V1_CATEGORIES)
+    Mono<BulkDeleteResult> deleteAll(@ModelAttribute CategorySearch search) {
+        return categoryService.deleteAll(search);
+    }
 
-        return Mono.just(foundCategory);
+    private static ResponseEntity<Category> tagged(Category category, Fields fields, MediaType documentType) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+        if(category.getVersion() != null) {
+            response.eTag(ETags.ofVersion(category.getVersion(), documentType));
+        }
+        return response.body(fields.apply(category));
     }
 }
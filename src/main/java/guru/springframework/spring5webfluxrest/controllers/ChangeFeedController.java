@@ -0,0 +1,72 @@
+package guru.springframework.spring5webfluxrest.controllers;
+
+import guru.springframework.spring5webfluxrest.changes.Change;
+import guru.springframework.spring5webfluxrest.changes.ChangeFeed;
+import guru.springframework.spring5webfluxrest.domain.Category;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import static guru.springframework.spring5webfluxrest.config.StreamingJsonCodecCustomizer.APPLICATION_NDJSON_VALUE;
+import static guru.springframework.spring5webfluxrest.controllers.CategoryController.API_V1_CATEGORIES;
+import static guru.springframework.spring5webfluxrest.controllers.VendorController.API_V1_VENDORS;
+
+/**
+ * Inserts, updates and deletes pushed as they happen, for clients keeping a copy in sync instead of
+ * polling the lists. Each change carries a token; passing the last one received as {@code after}, or as
+ * {@code Last-Event-ID} for server-sent events, picks up right after it.
+ */
+@RestController
+@ConditionalOnProperty(name = "app.web.style", havingValue = "annotated", matchIfMissing = true)
+public class ChangeFeedController {
+    public static final String CHANGES = "/changes";
+
+    private final ChangeFeed<Category> categoryChanges;
+    private final ChangeFeed<Vendor> vendorChanges;
+
+    public ChangeFeedController(ChangeFeed<Category> categoryChanges, ChangeFeed<Vendor> vendorChanges) {
+        this.categoryChanges = categoryChanges;
+        this.vendorChanges = vendorChanges;
+    }
+
+    @GetMapping(value = API_V1_CATEGORIES + CHANGES, produces = {APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_STREAM_JSON_VALUE})
+    Flux<Change<Category>> categoryChanges(@RequestParam(required = false) String after) {
+        return categoryChanges.changes(after);
+    }
+
+    @GetMapping(value = API_V1_CATEGORIES + CHANGES, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    Flux<ServerSentEvent<Change<Category>>> categoryEvents(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                                          @RequestParam(required = false) String after) {
+        return categoryChanges.changes(lastEventId != null ? lastEventId : after)
+                .map(ChangeFeedController::toEvent);
+    }
+
+    @GetMapping(value = API_V1_VENDORS + CHANGES, produces = {APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_STREAM_JSON_VALUE})
+    Flux<Change<Vendor>> vendorChanges(@RequestParam(required = false) String after) {
+        return vendorChanges.changes(after);
+    }
+
+    @GetMapping(value = API_V1_VENDORS + CHANGES, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    Flux<ServerSentEvent<Change<Vendor>>> vendorEvents(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                                      @RequestParam(required = false) String after) {
+        return vendorChanges.changes(lastEventId != null ? lastEventId : after)
+                .map(ChangeFeedController::toEvent);
+    }
+
+    /**
+     * A change as an event named after its type, with the token as event id. Heartbeats go out as
+     * comments, which event source clients skip.
+     */
+    public static <T> ServerSentEvent<Change<T>> toEvent(Change<T> change) {
+        if(change.isHeartbeat()) {
+            return ServerSentEvent.<Change<T>>builder().comment(Change.HEARTBEAT).build();
+        }
+        return ServerSentEvent.builder(change).id(change.getToken()).event(change.getType()).build();
+    }
+}
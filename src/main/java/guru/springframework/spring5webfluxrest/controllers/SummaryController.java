@@ -0,0 +1,48 @@
+package guru.springframework.spring5webfluxrest.controllers;
+
+import guru.springframework.spring5webfluxrest.repositories.InitialCount;
+import guru.springframework.spring5webfluxrest.services.Count;
+import guru.springframework.spring5webfluxrest.services.SummaryService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static guru.springframework.spring5webfluxrest.controllers.CategoryController.API_V1_CATEGORIES;
+import static guru.springframework.spring5webfluxrest.controllers.VendorController.API_V1_VENDORS;
+
+/**
+ * Totals and summaries of the collections, answered by the database without listing them and cached
+ * for a few seconds.
+ */
+@RestController
+@ConditionalOnProperty(name = "app.web.style", havingValue = "annotated", matchIfMissing = true)
+public class SummaryController {
+    public static final String COUNT = "/count";
+    public static final String LAST_NAME_INITIALS = "/last-name-initials";
+
+    private final SummaryService summaryService;
+
+    public SummaryController(SummaryService summaryService) {
+        this.summaryService = summaryService;
+    }
+
+    @GetMapping(API_V1_CATEGORIES + COUNT)
+    Mono<Count> countCategories() {
+        return summaryService.countCategories();
+    }
+
+    @GetMapping(API_V1_VENDORS + COUNT)
+    Mono<Count> countVendors() {
+        return summaryService.countVendors();
+    }
+
+    /**
+     * Vendors counted by the first letter of their last name, in letter order.
+     */
+    @GetMapping(API_V1_VENDORS + LAST_NAME_INITIALS)
+    Flux<InitialCount> countVendorsByLastNameInitial() {
+        return summaryService.countVendorsByLastNameInitial();
+    }
+}
@@ -1,65 +1,171 @@
 package guru.springframework.spring5webfluxrest.controllers;
 
-import guru.springframework.spring5webfluxrest.domain.Category;
+import guru.springframework.spring5webfluxrest.bulk.BatchResult;
+import guru.springframework.spring5webfluxrest.bulk.BulkDeleteResult;
 import guru.springframework.spring5webfluxrest.domain.Vendor;
-import guru.springframework.spring5webfluxrest.repositories.VendorRepository;
+import guru.springframework.spring5webfluxrest.repositories.VendorSearch;
+import guru.springframework.spring5webfluxrest.services.DocumentTypes;
+import guru.springframework.spring5webfluxrest.services.ETags;
+import guru.springframework.spring5webfluxrest.services.Fields;
+import guru.springframework.spring5webfluxrest.services.VendorService;
+import guru.springframework.spring5webfluxrest.services.KeysetPaging;
 import org.reactivestreams.Publisher;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import static guru.springframework.spring5webfluxrest.config.BinaryCodecCustomizer.APPLICATION_CBOR_SEQ_VALUE;
+import static guru.springframework.spring5webfluxrest.config.BinaryCodecCustomizer.APPLICATION_CBOR_VALUE;
+import static guru.springframework.spring5webfluxrest.config.BinaryCodecCustomizer.APPLICATION_SMILE_VALUE;
+import static guru.springframework.spring5webfluxrest.config.BinaryCodecCustomizer.APPLICATION_STREAM_SMILE_VALUE;
+import static guru.springframework.spring5webfluxrest.config.StreamingJsonCodecCustomizer.APPLICATION_NDJSON_VALUE;
+
 @RestController
+@ConditionalOnProperty(name = "app.web.style", havingValue = "annotated", matchIfMissing = true)
 public class VendorController {
     public static final String API_V1_VENDORS = "/api/v1/vendors";
-    private final VendorRepository vendorRepository;
 
-    public VendorController(VendorRepository vendorRepository) {
-        this.vendorRepository = vendorRepository;
+    private final VendorService vendorService;
+
+    public VendorController(VendorService vendorService) {
+        this.vendorService = vendorService;
+    }
+
+    /**
+     * One page of vendors in id order. Pass the id of the last vendor of a page as {@code after} to
+     * get the next one. Narrow the list with {@code firstName}, {@code lastName} ({@code Bu*} for a
+     * prefix, which orders the pages by last name, then id) or text search words in {@code q}. The page is tagged with the collection's change count,
+     * so a client polling with {@code If-None-Match} gets a 304 until something is written. Name the
+     * fields wanted in {@code fields}, e.g. {@code id,lastName}, to read and send only those.
+     */
+    @GetMapping(value = API_V1_VENDORS, produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    Mono<ResponseEntity<Flux<Vendor>>> list(@ModelAttribute VendorSearch search,
+                                            @RequestParam(required = false) String after,
+                                            @RequestParam(defaultValue = KeysetPaging.DEFAULT_LIMIT) int limit,
+                                            @RequestParam(required = false) String fields,
+                                            ServerHttpRequest request) {
+        Fields selected = Fields.parse(Vendor.class, fields);
+        MediaType documentType = DocumentTypes.negotiate(request.getHeaders().getAccept());
+
+        // the result handler answers 304 from the tag alone, so the page is only read when it is sent
+        return vendorService.changes()
+                .map(changes -> ResponseEntity.ok()
+                        .eTag(ETags.ofChanges(changes, documentType))
+                        .varyBy(HttpHeaders.ACCEPT)
+                        .body(vendorService.list(search, after, limit, selected)));
     }
 
-    @GetMapping(API_V1_VENDORS)
-    Flux<Vendor> getById() {
-        return vendorRepository.findAll();
+    /**
+     * Streams vendors one document after another (a line each in the JSON types) as they come off the
+     * cursor, at the pace the client reads them. {@code fields} narrows each document as it does for the
+     * list.
+     */
+    @GetMapping(value = API_V1_VENDORS, produces = {APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_STREAM_JSON_VALUE,
+            APPLICATION_CBOR_SEQ_VALUE, APPLICATION_STREAM_SMILE_VALUE})
+    Flux<Vendor> stream(@ModelAttribute VendorSearch search,
+                         @RequestParam(required = false) String after,
+                         @RequestParam(required = false) Integer limit,
+                         @RequestParam(required = false) String fields) {
+        return vendorService.stream(search, after, limit, Fields.parse(Vendor.class, fields));
     }
 
+    /**
+     * Same as {@link #stream}, as server-sent events. Each event id is the vendor id, so a client that
+     * reconnects with {@code Last-Event-ID} picks up where it left off.
+     */
+    @GetMapping(value = API_V1_VENDORS, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    Flux<ServerSentEvent<Vendor>> events(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                          @ModelAttribute VendorSearch search,
+                                          @RequestParam(required = false) String after,
+                                          @RequestParam(required = false) Integer limit,
+                                          @RequestParam(required = false) String fields) {
+        return stream(search, lastEventId != null ? lastEventId : after, limit, fields)
+                .map(vendor -> ServerSentEvent.builder(vendor).id(vendor.getId()).build());
+    }
+
+    /**
+     * The vendor tagged with its version. A client sending that tag in {@code If-None-Match} gets a 304
+     * until the vendor changes, without the body being written. {@code fields} narrows the body as it
+     * does for the list.
+     */
     @GetMapping(API_V1_VENDORS + "/{id}")
-    Mono<Vendor> getById(@PathVariable String id) {
-        return vendorRepository.findById(id);
+    Mono<ResponseEntity<Vendor>> getById(@PathVariable String id, @RequestParam(required = false) String fields,
+                                         ServerHttpRequest request) {
+        Fields selected = Fields.parse(Vendor.class, fields);
+        MediaType documentType = DocumentTypes.negotiate(request.getHeaders().getAccept());
+
+        return vendorService.getById(id)
+                .map(vendor -> tagged(vendor, selected, documentType));
     }
 
     @ResponseStatus(HttpStatus.CREATED)
     @PostMapping(API_V1_VENDORS)
-    Mono<Void> create(@RequestBody Publisher<Vendor> vendorPublisher) {
-        return vendorRepository.saveAll(vendorPublisher).then();
+    Flux<BatchResult> create(@RequestBody Publisher<Vendor> vendorPublisher) {
+        return vendorService.create(vendorPublisher);
     }
 
+    /**
+     * Replaces the vendors in the body by id, and inserts those with new ids, in batches as they arrive.
+     */
+    @PutMapping(API_V1_VENDORS)
+    Flux<BatchResult> upsert(@RequestBody Publisher<Vendor> vendorStream) {
+        return vendorService.upsert(vendorStream);
+    }
+
+    /**
+     * Replaces the vendor. With write-behind on, a PUT that names no version is answered with a 202 as
+     * soon as it is buffered, and written with the next flush.
+     */
     @PutMapping(API_V1_VENDORS + "/{id}")
-    Mono<Vendor> update(@PathVariable String id, @RequestBody Vendor vendor) {
-        vendor.setId(id);
-        return vendorRepository.save(vendor);
+    Mono<ResponseEntity<Vendor>> update(@PathVariable String id, @RequestBody Vendor vendor) {
+        HttpStatus status = vendorService.writesBehind(vendor) ? HttpStatus.ACCEPTED : HttpStatus.OK;
+
+        return vendorService.update(id, vendor)
+                .map(updated -> ResponseEntity.status(status).body(updated));
     }
 
     @PatchMapping(API_V1_VENDORS + "/{id}")
     Mono<Vendor> patch(@PathVariable String id, @RequestBody Vendor vendor) {
-        Vendor foundVendor = vendorRepository.findById(id).block();
+        return vendorService.patch(id, vendor);
+    }
 
-        if(foundVendor == null) {
-            throw new RuntimeException("Id not found for Vendor");
-        }
+    @DeleteMapping(API_V1_VENDORS + "/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    Mono<Void> delete(@PathVariable String id) {
+        return vendorService.delete(id);
+    }
 
-        if(foundVendor.getFirstName() != null && !foundVendor.getFirstName().equals(vendor.getFirstName())) {
-            foundVendor.setFirstName(vendor.getFirstName());
-            return vendorRepository.save(foundVendor);
-        }
+    /**
+     * Deletes every vendor matching the filters, which are those of the list.
+     */
+    @DeleteMapping(API_V1_VENDORS)
+    Mono<BulkDeleteResult> deleteAll(@ModelAttribute VendorSearch search) {
+        return vendorService.deleteAll(search);
+    }
 
-        return Mono.just(foundVendor);
+    private static ResponseEntity<Vendor> tagged(Vendor vendor, Fields fields, MediaType documentType) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+        if(vendor.getVersion() != null) {
+            response.eTag(ETags.ofVersion(vendor.getVersion(), documentType));
+        }
+        return response.body(fields.apply(vendor));
     }
 }
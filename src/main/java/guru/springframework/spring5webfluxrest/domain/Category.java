@@ -1,11 +1,14 @@
 package guru.springframework.spring5webfluxrest.domain;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Objects;
@@ -16,10 +19,14 @@ import java.util.Objects;
 @Setter
 @Builder
 @Document
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class Category {
     @Id
     private String id;
+    @TextIndexed
     private String description;
+    @Version
+    private Long version;
 
     @Override
     public boolean equals(Object o) {
@@ -1,11 +1,16 @@
 package guru.springframework.spring5webfluxrest.domain;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Objects;
@@ -16,11 +21,21 @@ import java.util.Objects;
 @Setter
 @Builder
 @Document
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@CompoundIndexes({
+        @CompoundIndex(name = "lastName_id", def = "{'lastName': 1, '_id': 1}"),
+        @CompoundIndex(name = "firstName_id", def = "{'firstName': 1, '_id': 1}"),
+        @CompoundIndex(name = "lastName_firstName_id", def = "{'lastName': 1, 'firstName': 1, '_id': 1}")
+})
 public class Vendor {
     @Id
     private String id;
+    @TextIndexed
     private String firstName;
+    @TextIndexed
     private String lastName;
+    @Version
+    private Long version;
 
     @Override
     public boolean equals(Object o) {
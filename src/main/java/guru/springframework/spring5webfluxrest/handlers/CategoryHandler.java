@@ -0,0 +1,137 @@
+package guru.springframework.spring5webfluxrest.handlers;
+
+import guru.springframework.spring5webfluxrest.bulk.BatchResult;
+import guru.springframework.spring5webfluxrest.bulk.BulkDeleteResult;
+import guru.springframework.spring5webfluxrest.domain.Category;
+import guru.springframework.spring5webfluxrest.repositories.CategorySearch;
+import guru.springframework.spring5webfluxrest.services.ETags;
+import guru.springframework.spring5webfluxrest.services.Fields;
+import guru.springframework.spring5webfluxrest.services.CategoryService;
+import guru.springframework.spring5webfluxrest.services.KeysetPaging;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import static guru.springframework.spring5webfluxrest.handlers.ServerRequests.body;
+import static guru.springframework.spring5webfluxrest.handlers.ServerRequests.bodyStream;
+import static guru.springframework.spring5webfluxrest.handlers.ServerRequests.documentType;
+import static guru.springframework.spring5webfluxrest.handlers.ServerRequests.intParam;
+import static guru.springframework.spring5webfluxrest.handlers.ServerRequests.notModified;
+import static guru.springframework.spring5webfluxrest.handlers.ServerRequests.param;
+
+/**
+ * The category API as handler functions, answering exactly as {@code CategoryController} does.
+ */
+public class CategoryHandler {
+    private final CategoryService categoryService;
+
+    public CategoryHandler(CategoryService categoryService) {
+        this.categoryService = categoryService;
+    }
+
+    public Mono<ServerResponse> list(ServerRequest request) {
+        Fields fields = Fields.parse(Category.class, param(request, "fields"));
+
+        MediaType documentType = documentType(request);
+
+        return categoryService.changes().flatMap(changes -> {
+            String eTag = ETags.ofChanges(changes, documentType);
+            if(notModified(request, eTag)) {
+                return ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+            }
+
+            return ServerResponse.ok()
+                    .contentType(documentType)
+                    .eTag(eTag)
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(categoryService.list(search(request), param(request, "after"), intParam(request, "limit", KeysetPaging.DEFAULT_LIMIT), fields), Category.class);
+        });
+    }
+
+    public Mono<ServerResponse> stream(ServerRequest request) {
+        Fields fields = Fields.parse(Category.class, param(request, "fields"));
+
+        return ServerResponse.ok()
+                .contentType(ServerRequests.streamingType(request))
+                .body(categoryService.stream(search(request), param(request, "after"), intParam(request, "limit"), fields), Category.class);
+    }
+
+    public Mono<ServerResponse> events(ServerRequest request) {
+        Fields fields = Fields.parse(Category.class, param(request, "fields"));
+        String after = request.headers().header("Last-Event-ID").stream().findFirst().orElse(param(request, "after"));
+
+        return ServerResponse.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(BodyInserters.fromServerSentEvents(categoryService.stream(search(request), after, intParam(request, "limit"), fields)
+                        .map(category -> ServerSentEvent.builder(category).id(category.getId()).build())));
+    }
+
+    public Mono<ServerResponse> getById(ServerRequest request) {
+        Fields fields = Fields.parse(Category.class, param(request, "fields"));
+
+        MediaType documentType = documentType(request);
+
+        return categoryService.getById(request.pathVariable("id"))
+                .flatMap(category -> {
+                    if(category.getVersion() == null) {
+                        return ServerResponse.ok().contentType(documentType).varyBy(HttpHeaders.ACCEPT).syncBody(fields.apply(category));
+                    }
+
+                    String eTag = ETags.ofVersion(category.getVersion(), documentType);
+                    if(notModified(request, eTag)) {
+                        return ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+                    }
+                    return ServerResponse.ok().contentType(documentType).eTag(eTag).varyBy(HttpHeaders.ACCEPT).syncBody(fields.apply(category));
+                })
+                .switchIfEmpty(ServerResponse.ok().contentType(documentType).build());
+    }
+
+    public Mono<ServerResponse> create(ServerRequest request) {
+        return ServerResponse.status(HttpStatus.CREATED)
+                .contentType(ServerRequests.resultType(request))
+                .body(categoryService.create(bodyStream(request, Category.class)), BatchResult.class);
+    }
+
+    public Mono<ServerResponse> upsert(ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(ServerRequests.resultType(request))
+                .body(categoryService.upsert(bodyStream(request, Category.class)), BatchResult.class);
+    }
+
+    public Mono<ServerResponse> update(ServerRequest request) {
+        return body(request, Category.class)
+                .flatMap(category -> ServerResponse.status(categoryService.writesBehind(category) ? HttpStatus.ACCEPTED : HttpStatus.OK)
+                        .contentType(documentType(request))
+                        .body(categoryService.update(request.pathVariable("id"), category), Category.class));
+    }
+
+    public Mono<ServerResponse> patch(ServerRequest request) {
+        return body(request, Category.class)
+                .flatMap(category -> ServerResponse.ok()
+                        .contentType(documentType(request))
+                        .body(categoryService.patch(request.pathVariable("id"), category), Category.class));
+    }
+
+    public Mono<ServerResponse> delete(ServerRequest request) {
+        return categoryService.delete(request.pathVariable("id"))
+                .then(ServerResponse.noContent().build());
+    }
+
+    public Mono<ServerResponse> deleteAll(ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(documentType(request))
+                .body(categoryService.deleteAll(search(request)), BulkDeleteResult.class);
+    }
+
+    private static CategorySearch search(ServerRequest request) {
+        return CategorySearch.builder()
+                .description(param(request, "description"))
+                .q(param(request, "q"))
+                .build();
+    }
+}
@@ -0,0 +1,63 @@
+package guru.springframework.spring5webfluxrest.handlers;
+
+import guru.springframework.spring5webfluxrest.changes.Change;
+import guru.springframework.spring5webfluxrest.changes.ChangeFeed;
+import guru.springframework.spring5webfluxrest.controllers.ChangeFeedController;
+import guru.springframework.spring5webfluxrest.domain.Category;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import static guru.springframework.spring5webfluxrest.handlers.ServerRequests.param;
+
+/**
+ * The change feeds as handler functions, streaming exactly as {@code ChangeFeedController} does.
+ */
+public class ChangeFeedHandler {
+    private static final ParameterizedTypeReference<Change<Category>> CATEGORY_CHANGE =
+            new ParameterizedTypeReference<Change<Category>>() {};
+    private static final ParameterizedTypeReference<Change<Vendor>> VENDOR_CHANGE =
+            new ParameterizedTypeReference<Change<Vendor>>() {};
+
+    private final ChangeFeed<Category> categoryChanges;
+    private final ChangeFeed<Vendor> vendorChanges;
+
+    public ChangeFeedHandler(ChangeFeed<Category> categoryChanges, ChangeFeed<Vendor> vendorChanges) {
+        this.categoryChanges = categoryChanges;
+        this.vendorChanges = vendorChanges;
+    }
+
+    public Mono<ServerResponse> categoryChanges(ServerRequest request) {
+        return changes(request, categoryChanges, CATEGORY_CHANGE);
+    }
+
+    public Mono<ServerResponse> categoryEvents(ServerRequest request) {
+        return events(request, categoryChanges);
+    }
+
+    public Mono<ServerResponse> vendorChanges(ServerRequest request) {
+        return changes(request, vendorChanges, VENDOR_CHANGE);
+    }
+
+    public Mono<ServerResponse> vendorEvents(ServerRequest request) {
+        return events(request, vendorChanges);
+    }
+
+    private static <T> Mono<ServerResponse> changes(ServerRequest request, ChangeFeed<T> feed, ParameterizedTypeReference<Change<T>> type) {
+        return ServerResponse.ok()
+                .contentType(ServerRequests.streamingType(request))
+                .body(feed.changes(param(request, "after")), type);
+    }
+
+    private static <T> Mono<ServerResponse> events(ServerRequest request, ChangeFeed<T> feed) {
+        String after = request.headers().header("Last-Event-ID").stream().findFirst().orElse(param(request, "after"));
+
+        return ServerResponse.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(BodyInserters.fromServerSentEvents(feed.changes(after).map(ChangeFeedController::toEvent)));
+    }
+}
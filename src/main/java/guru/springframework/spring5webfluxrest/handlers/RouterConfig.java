@@ -0,0 +1,136 @@
+package guru.springframework.spring5webfluxrest.handlers;
+
+import guru.springframework.spring5webfluxrest.changes.ChangeFeed;
+import guru.springframework.spring5webfluxrest.domain.Category;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import guru.springframework.spring5webfluxrest.services.CategoryService;
+import guru.springframework.spring5webfluxrest.services.DocumentTypes;
+import guru.springframework.spring5webfluxrest.services.SummaryService;
+import guru.springframework.spring5webfluxrest.services.VendorService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.NotAcceptableStatusException;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static guru.springframework.spring5webfluxrest.config.StreamingJsonCodecCustomizer.APPLICATION_NDJSON;
+import static guru.springframework.spring5webfluxrest.controllers.CategoryController.API_V1_CATEGORIES;
+import static guru.springframework.spring5webfluxrest.controllers.ChangeFeedController.CHANGES;
+import static guru.springframework.spring5webfluxrest.controllers.SummaryController.COUNT;
+import static guru.springframework.spring5webfluxrest.controllers.SummaryController.LAST_NAME_INITIALS;
+import static guru.springframework.spring5webfluxrest.controllers.VendorController.API_V1_VENDORS;
+import static org.springframework.web.reactive.function.server.RequestPredicates.DELETE;
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.PATCH;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+import static org.springframework.web.reactive.function.server.RequestPredicates.PUT;
+import static org.springframework.web.reactive.function.server.RequestPredicates.accept;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * Serves the API through router and handler functions instead of the annotated controllers, when
+ * {@code app.web.style=functional}. Dispatch is a walk down a list of predicates, with no handler
+ * method lookup or reflective argument resolution per request.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.web.style", havingValue = "functional")
+public class RouterConfig {
+    private static final MediaType[] DOCUMENT_TYPES = DocumentTypes.DOCUMENT_TYPES.toArray(new MediaType[0]);
+    private static final MediaType[] STREAMING_TYPES = ServerRequests.STREAMING_TYPES.toArray(new MediaType[0]);
+    private static final List<MediaType> LIST_TYPES = Stream.of(DOCUMENT_TYPES, STREAMING_TYPES, new MediaType[]{MediaType.TEXT_EVENT_STREAM})
+            .flatMap(Arrays::stream)
+            .collect(Collectors.toList());
+    private static final MediaType[] CHANGE_TYPES = {APPLICATION_NDJSON, MediaType.APPLICATION_STREAM_JSON};
+
+    @Bean
+    public CategoryHandler categoryHandler(CategoryService categoryService) {
+        return new CategoryHandler(categoryService);
+    }
+
+    @Bean
+    public VendorHandler vendorHandler(VendorService vendorService) {
+        return new VendorHandler(vendorService);
+    }
+
+    @Bean
+    public SummaryHandler summaryHandler(SummaryService summaryService) {
+        return new SummaryHandler(summaryService);
+    }
+
+    @Bean
+    public ChangeFeedHandler changeFeedHandler(ChangeFeed<Category> categoryChanges, ChangeFeed<Vendor> vendorChanges) {
+        return new ChangeFeedHandler(categoryChanges, vendorChanges);
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> categoryRoutes(CategoryHandler categoryHandler) {
+        return route(GET(API_V1_CATEGORIES).and(accept(DOCUMENT_TYPES)), categoryHandler::list)
+                .andRoute(GET(API_V1_CATEGORIES).and(accept(STREAMING_TYPES)), categoryHandler::stream)
+                .andRoute(GET(API_V1_CATEGORIES).and(accept(MediaType.TEXT_EVENT_STREAM)), categoryHandler::events)
+                .andRoute(GET(API_V1_CATEGORIES), notAcceptable())
+                .andRoute(GET(API_V1_CATEGORIES + "/{id}"), categoryHandler::getById)
+                .andRoute(POST(API_V1_CATEGORIES), categoryHandler::create)
+                .andRoute(PUT(API_V1_CATEGORIES + "/{id}"), categoryHandler::update)
+                .andRoute(PUT(API_V1_CATEGORIES), categoryHandler::upsert)
+                .andRoute(PATCH(API_V1_CATEGORIES + "/{id}"), categoryHandler::patch)
+                .andRoute(DELETE(API_V1_CATEGORIES + "/{id}"), categoryHandler::delete)
+                .andRoute(DELETE(API_V1_CATEGORIES), categoryHandler::deleteAll);
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> vendorRoutes(VendorHandler vendorHandler) {
+        return route(GET(API_V1_VENDORS).and(accept(DOCUMENT_TYPES)), vendorHandler::list)
+                .andRoute(GET(API_V1_VENDORS).and(accept(STREAMING_TYPES)), vendorHandler::stream)
+                .andRoute(GET(API_V1_VENDORS).and(accept(MediaType.TEXT_EVENT_STREAM)), vendorHandler::events)
+                .andRoute(GET(API_V1_VENDORS), notAcceptable())
+                .andRoute(GET(API_V1_VENDORS + "/{id}"), vendorHandler::getById)
+                .andRoute(POST(API_V1_VENDORS), vendorHandler::create)
+                .andRoute(PUT(API_V1_VENDORS + "/{id}"), vendorHandler::update)
+                .andRoute(PUT(API_V1_VENDORS), vendorHandler::upsert)
+                .andRoute(PATCH(API_V1_VENDORS + "/{id}"), vendorHandler::patch)
+                .andRoute(DELETE(API_V1_VENDORS + "/{id}"), vendorHandler::delete)
+                .andRoute(DELETE(API_V1_VENDORS), vendorHandler::deleteAll);
+    }
+
+    /**
+     * Tried before the other routes, which would take {@code /count} for an id.
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public RouterFunction<ServerResponse> summaryRoutes(SummaryHandler summaryHandler) {
+        return route(GET(API_V1_CATEGORIES + COUNT), summaryHandler::countCategories)
+                .andRoute(GET(API_V1_VENDORS + COUNT), summaryHandler::countVendors)
+                .andRoute(GET(API_V1_VENDORS + LAST_NAME_INITIALS), summaryHandler::countVendorsByLastNameInitial);
+    }
+
+    /**
+     * Tried before the other routes, which would take {@code /changes} for an id.
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public RouterFunction<ServerResponse> changeFeedRoutes(ChangeFeedHandler changeFeedHandler) {
+        return route(GET(API_V1_CATEGORIES + CHANGES).and(accept(CHANGE_TYPES)), changeFeedHandler::categoryChanges)
+                .andRoute(GET(API_V1_CATEGORIES + CHANGES).and(accept(MediaType.TEXT_EVENT_STREAM)), changeFeedHandler::categoryEvents)
+                .andRoute(GET(API_V1_VENDORS + CHANGES).and(accept(CHANGE_TYPES)), changeFeedHandler::vendorChanges)
+                .andRoute(GET(API_V1_VENDORS + CHANGES).and(accept(MediaType.TEXT_EVENT_STREAM)), changeFeedHandler::vendorEvents);
+    }
+
+    /**
+     * A list request none of the list routes can produce a response for, answered with the 406 the
+     * annotated controllers give.
+     */
+    private static HandlerFunction<ServerResponse> notAcceptable() {
+        return request -> Mono.error(new NotAcceptableStatusException(LIST_TYPES));
+    }
+}
@@ -0,0 +1,112 @@
+package guru.springframework.spring5webfluxrest.handlers;
+
+import guru.springframework.spring5webfluxrest.services.DocumentTypes;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static guru.springframework.spring5webfluxrest.config.BinaryCodecCustomizer.APPLICATION_CBOR_SEQ;
+import static guru.springframework.spring5webfluxrest.config.BinaryCodecCustomizer.APPLICATION_STREAM_SMILE;
+import static guru.springframework.spring5webfluxrest.config.StreamingJsonCodecCustomizer.APPLICATION_NDJSON;
+
+/**
+ * The request binding {@code @RequestParam} and {@code @RequestBody} do for the annotated controllers,
+ * with the same 400 responses for bad input.
+ */
+final class ServerRequests {
+    static final List<MediaType> STREAMING_TYPES = Arrays.asList(APPLICATION_NDJSON, MediaType.APPLICATION_STREAM_JSON,
+            APPLICATION_CBOR_SEQ, APPLICATION_STREAM_SMILE);
+    private static final List<MediaType> RESULT_TYPES = Stream.concat(DocumentTypes.DOCUMENT_TYPES.stream(), STREAMING_TYPES.stream())
+            .collect(Collectors.toList());
+
+    private ServerRequests() {
+    }
+
+    static String param(ServerRequest request, String name) {
+        return request.queryParam(name).orElse(null);
+    }
+
+    static Integer intParam(ServerRequest request, String name) {
+        String value = param(request, name);
+        if(value == null) {
+            return null;
+        }
+
+        try {
+            return Integer.valueOf(value.trim());
+        } catch(NumberFormatException e) {
+            throw new ServerWebInputException("Failed to convert value of query parameter '" + name + "': " + value);
+        }
+    }
+
+    static int intParam(ServerRequest request, String name, String defaultValue) {
+        Integer value = intParam(request, name);
+        return value != null ? value : Integer.parseInt(defaultValue);
+    }
+
+    static <T> Mono<T> body(ServerRequest request, Class<T> type) {
+        return request.bodyToMono(type)
+                .onErrorMap(DecodingException.class, ServerRequests::unreadable)
+                .switchIfEmpty(Mono.error(() -> new ServerWebInputException("Request body is missing")));
+    }
+
+    static <T> Flux<T> bodyStream(ServerRequest request, Class<T> type) {
+        return request.bodyToFlux(type)
+                .onErrorMap(DecodingException.class, ServerRequests::unreadable);
+    }
+
+    /**
+     * The document type the client asked for first, JSON unless it only accepts CBOR or Smile.
+     */
+    static MediaType documentType(ServerRequest request) {
+        return DocumentTypes.negotiate(request.headers().accept());
+    }
+
+    /**
+     * The streaming type the client asked for first, NDJSON unless it only accepts one of the others.
+     */
+    static MediaType streamingType(ServerRequest request) {
+        return firstAccepted(request, STREAMING_TYPES);
+    }
+
+    /**
+     * The type the bulk insert results are written as: any document or streaming type, JSON unless the
+     * client asked for another.
+     */
+    static MediaType resultType(ServerRequest request) {
+        return firstAccepted(request, RESULT_TYPES);
+    }
+
+    /**
+     * Whether the client already has the representation with this tag. Compared weakly, as
+     * {@code If-None-Match} is, the same way the annotated controllers' responses are checked.
+     */
+    static boolean notModified(ServerRequest request, String eTag) {
+        for(String tag : request.headers().asHttpHeaders().getIfNoneMatch()) {
+            if(tag.equals("*") || stripWeak(tag).equals(stripWeak(eTag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+
+    private static MediaType firstAccepted(ServerRequest request, List<MediaType> producible) {
+        return DocumentTypes.firstAccepted(request.headers().accept(), producible);
+    }
+
+    private static ServerWebInputException unreadable(Throwable cause) {
+        return new ServerWebInputException("Failed to read HTTP message", null, cause);
+    }
+}
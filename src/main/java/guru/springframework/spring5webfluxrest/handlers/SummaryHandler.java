@@ -0,0 +1,39 @@
+package guru.springframework.spring5webfluxrest.handlers;
+
+import guru.springframework.spring5webfluxrest.repositories.InitialCount;
+import guru.springframework.spring5webfluxrest.services.Count;
+import guru.springframework.spring5webfluxrest.services.SummaryService;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import static guru.springframework.spring5webfluxrest.handlers.ServerRequests.documentType;
+
+/**
+ * The totals and summaries as handler functions, answering exactly as {@code SummaryController} does.
+ */
+public class SummaryHandler {
+    private final SummaryService summaryService;
+
+    public SummaryHandler(SummaryService summaryService) {
+        this.summaryService = summaryService;
+    }
+
+    public Mono<ServerResponse> countCategories(ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(documentType(request))
+                .body(summaryService.countCategories(), Count.class);
+    }
+
+    public Mono<ServerResponse> countVendors(ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(documentType(request))
+                .body(summaryService.countVendors(), Count.class);
+    }
+
+    public Mono<ServerResponse> countVendorsByLastNameInitial(ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(documentType(request))
+                .body(summaryService.countVendorsByLastNameInitial(), InitialCount.class);
+    }
+}
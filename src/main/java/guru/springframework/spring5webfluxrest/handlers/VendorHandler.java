@@ -0,0 +1,138 @@
+package guru.springframework.spring5webfluxrest.handlers;
+
+import guru.springframework.spring5webfluxrest.bulk.BatchResult;
+import guru.springframework.spring5webfluxrest.bulk.BulkDeleteResult;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import guru.springframework.spring5webfluxrest.repositories.VendorSearch;
+import guru.springframework.spring5webfluxrest.services.ETags;
+import guru.springframework.spring5webfluxrest.services.Fields;
+import guru.springframework.spring5webfluxrest.services.VendorService;
+import guru.springframework.spring5webfluxrest.services.KeysetPaging;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import static guru.springframework.spring5webfluxrest.handlers.ServerRequests.body;
+import static guru.springframework.spring5webfluxrest.handlers.ServerRequests.bodyStream;
+import static guru.springframework.spring5webfluxrest.handlers.ServerRequests.documentType;
+import static guru.springframework.spring5webfluxrest.handlers.ServerRequests.intParam;
+import static guru.springframework.spring5webfluxrest.handlers.ServerRequests.notModified;
+import static guru.springframework.spring5webfluxrest.handlers.ServerRequests.param;
+
+/**
+ * The vendor API as handler functions, answering exactly as {@code VendorController} does.
+ */
+public class VendorHandler {
+    private final VendorService vendorService;
+
+    public VendorHandler(VendorService vendorService) {
+        this.vendorService = vendorService;
+    }
+
+    public Mono<ServerResponse> list(ServerRequest request) {
+        Fields fields = Fields.parse(Vendor.class, param(request, "fields"));
+
+        MediaType documentType = documentType(request);
+
+        return vendorService.changes().flatMap(changes -> {
+            String eTag = ETags.ofChanges(changes, documentType);
+            if(notModified(request, eTag)) {
+                return ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+            }
+
+            return ServerResponse.ok()
+                    .contentType(documentType)
+                    .eTag(eTag)
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(vendorService.list(search(request), param(request, "after"), intParam(request, "limit", KeysetPaging.DEFAULT_LIMIT), fields), Vendor.class);
+        });
+    }
+
+    public Mono<ServerResponse> stream(ServerRequest request) {
+        Fields fields = Fields.parse(Vendor.class, param(request, "fields"));
+
+        return ServerResponse.ok()
+                .contentType(ServerRequests.streamingType(request))
+                .body(vendorService.stream(search(request), param(request, "after"), intParam(request, "limit"), fields), Vendor.class);
+    }
+
+    public Mono<ServerResponse> events(ServerRequest request) {
+        Fields fields = Fields.parse(Vendor.class, param(request, "fields"));
+        String after = request.headers().header("Last-Event-ID").stream().findFirst().orElse(param(request, "after"));
+
+        return ServerResponse.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(BodyInserters.fromServerSentEvents(vendorService.stream(search(request), after, intParam(request, "limit"), fields)
+                        .map(vendor -> ServerSentEvent.builder(vendor).id(vendor.getId()).build())));
+    }
+
+    public Mono<ServerResponse> getById(ServerRequest request) {
+        Fields fields = Fields.parse(Vendor.class, param(request, "fields"));
+
+        MediaType documentType = documentType(request);
+
+        return vendorService.getById(request.pathVariable("id"))
+                .flatMap(vendor -> {
+                    if(vendor.getVersion() == null) {
+                        return ServerResponse.ok().contentType(documentType).varyBy(HttpHeaders.ACCEPT).syncBody(fields.apply(vendor));
+                    }
+
+                    String eTag = ETags.ofVersion(vendor.getVersion(), documentType);
+                    if(notModified(request, eTag)) {
+                        return ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+                    }
+                    return ServerResponse.ok().contentType(documentType).eTag(eTag).varyBy(HttpHeaders.ACCEPT).syncBody(fields.apply(vendor));
+                })
+                .switchIfEmpty(ServerResponse.ok().contentType(documentType).build());
+    }
+
+    public Mono<ServerResponse> create(ServerRequest request) {
+        return ServerResponse.status(HttpStatus.CREATED)
+                .contentType(ServerRequests.resultType(request))
+                .body(vendorService.create(bodyStream(request, Vendor.class)), BatchResult.class);
+    }
+
+    public Mono<ServerResponse> upsert(ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(ServerRequests.resultType(request))
+                .body(vendorService.upsert(bodyStream(request, Vendor.class)), BatchResult.class);
+    }
+
+    public Mono<ServerResponse> update(ServerRequest request) {
+        return body(request, Vendor.class)
+                .flatMap(vendor -> ServerResponse.status(vendorService.writesBehind(vendor) ? HttpStatus.ACCEPTED : HttpStatus.OK)
+                        .contentType(documentType(request))
+                        .body(vendorService.update(request.pathVariable("id"), vendor), Vendor.class));
+    }
+
+    public Mono<ServerResponse> patch(ServerRequest request) {
+        return body(request, Vendor.class)
+                .flatMap(vendor -> ServerResponse.ok()
+                        .contentType(documentType(request))
+                        .body(vendorService.patch(request.pathVariable("id"), vendor), Vendor.class));
+    }
+
+    public Mono<ServerResponse> delete(ServerRequest request) {
+        return vendorService.delete(request.pathVariable("id"))
+                .then(ServerResponse.noContent().build());
+    }
+
+    public Mono<ServerResponse> deleteAll(ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(documentType(request))
+                .body(vendorService.deleteAll(search(request)), BulkDeleteResult.class);
+    }
+
+    private static VendorSearch search(ServerRequest request) {
+        return VendorSearch.builder()
+                .firstName(param(request, "firstName"))
+                .lastName(param(request, "lastName"))
+                .q(param(request, "q"))
+                .build();
+    }
+}
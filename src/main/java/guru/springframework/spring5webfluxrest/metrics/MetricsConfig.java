@@ -0,0 +1,26 @@
+package guru.springframework.spring5webfluxrest.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    static RepositoryMetricsPostProcessor repositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> registry) {
+        return new RepositoryMetricsPostProcessor(registry);
+    }
+
+    @Bean
+    public MongoConnectionPoolMetrics mongoConnectionPoolMetrics() {
+        return new MongoConnectionPoolMetrics();
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer connectionPoolMetricsCustomizer(MongoConnectionPoolMetrics poolMetrics) {
+        return builder -> builder.applyToConnectionPoolSettings(pool -> pool.addConnectionPoolListener(poolMetrics));
+    }
+}
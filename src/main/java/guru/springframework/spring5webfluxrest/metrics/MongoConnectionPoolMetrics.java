@@ -0,0 +1,153 @@
+package guru.springframework.spring5webfluxrest.metrics;
+
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionAddedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolClosedEvent;
+import com.mongodb.event.ConnectionPoolListenerAdapter;
+import com.mongodb.event.ConnectionPoolOpenedEvent;
+import com.mongodb.event.ConnectionPoolWaitQueueEnteredEvent;
+import com.mongodb.event.ConnectionPoolWaitQueueExitedEvent;
+import com.mongodb.event.ConnectionRemovedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Size, checked out connections and wait queue of the driver's connection pool to each server,
+ * kept up to date from the pool's own events, and how long operations waited in that queue.
+ * <p>
+ * The client opens its pools before the registry is ready (the registry binds meters of beans that
+ * need the client), so pools are tracked from the start and their gauges registered on binding.
+ */
+public class MongoConnectionPoolMetrics extends ConnectionPoolListenerAdapter implements MeterBinder {
+    private final Map<ServerId, PoolGauges> pools = new ConcurrentHashMap<>();
+    private volatile MeterRegistry registry;
+
+    @Override
+    public synchronized void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        pools.values().forEach(gauges -> gauges.register(registry));
+    }
+
+    @Override
+    public synchronized void connectionPoolOpened(ConnectionPoolOpenedEvent event) {
+        PoolGauges gauges = new PoolGauges(event.getServerId());
+        pools.put(event.getServerId(), gauges);
+        if(registry != null) {
+            gauges.register(registry);
+        }
+    }
+
+    @Override
+    public synchronized void connectionPoolClosed(ConnectionPoolClosedEvent event) {
+        PoolGauges gauges = pools.remove(event.getServerId());
+        if(gauges != null && registry != null) {
+            gauges.remove(registry);
+        }
+    }
+
+    @Override
+    public void connectionAdded(ConnectionAddedEvent event) {
+        update(event.getConnectionId().getServerId(), gauges -> gauges.size, 1);
+    }
+
+    @Override
+    public void connectionRemoved(ConnectionRemovedEvent event) {
+        update(event.getConnectionId().getServerId(), gauges -> gauges.size, -1);
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        update(event.getConnectionId().getServerId(), gauges -> gauges.checkedOut, 1);
+    }
+
+    @Override
+    public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+        update(event.getConnectionId().getServerId(), gauges -> gauges.checkedOut, -1);
+    }
+
+    @Override
+    public void waitQueueEntered(ConnectionPoolWaitQueueEnteredEvent event) {
+        PoolGauges gauges = pools.get(event.getServerId());
+        if(gauges != null) {
+            gauges.waitQueueSize.incrementAndGet();
+            gauges.waitStarts.add(System.nanoTime());
+        }
+    }
+
+    /**
+     * The events do not say which operation left the queue. The pool hands connections out in the
+     * order operations queued, so the wait that ended is taken to be the longest one.
+     */
+    @Override
+    public void waitQueueExited(ConnectionPoolWaitQueueExitedEvent event) {
+        PoolGauges gauges = pools.get(event.getServerId());
+        if(gauges != null) {
+            gauges.waitQueueSize.decrementAndGet();
+            Long started = gauges.waitStarts.poll();
+            Timer waits = gauges.waits;
+            if(started != null && waits != null) {
+                waits.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private void update(ServerId serverId, Function<PoolGauges, AtomicInteger> counter, int delta) {
+        PoolGauges gauges = pools.get(serverId);
+        if(gauges != null) {
+            counter.apply(gauges).addAndGet(delta);
+        }
+    }
+
+    private static class PoolGauges {
+        final AtomicInteger size = new AtomicInteger();
+        final AtomicInteger checkedOut = new AtomicInteger();
+        final AtomicInteger waitQueueSize = new AtomicInteger();
+        final Queue<Long> waitStarts = new ConcurrentLinkedQueue<>();
+        final Tags tags;
+        volatile Timer waits;
+        final List<Meter> meters = new ArrayList<>();
+
+        PoolGauges(ServerId serverId) {
+            tags = Tags.of("server", serverId.getAddress().toString());
+        }
+
+        void register(MeterRegistry registry) {
+            meters.add(gauge(registry, "mongodb.driver.pool.size", "Connections in the pool", size, tags));
+            meters.add(gauge(registry, "mongodb.driver.pool.checkedout", "Connections in use", checkedOut, tags));
+            meters.add(gauge(registry, "mongodb.driver.pool.waitqueuesize", "Operations waiting for a connection", waitQueueSize, tags));
+            waits = Timer.builder("mongodb.driver.pool.checkout.wait")
+                    .description("Time operations waited for a connection when none was free")
+                    .tags(tags)
+                    .register(registry);
+            meters.add(waits);
+        }
+
+        private static Meter gauge(MeterRegistry registry, String name, String description, AtomicInteger value, Tags tags) {
+            return Gauge.builder(name, value, AtomicInteger::get)
+                    .description(description)
+                    .tags(tags)
+                    .strongReference(true)
+                    .register(registry);
+        }
+
+        void remove(MeterRegistry registry) {
+            meters.forEach(registry::remove);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package guru.springframework.spring5webfluxrest.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import org.springframework.stereotype.Component;
+import reactor.netty.http.HttpResources;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * Tasks queued on each event loop of the HTTP server. A loop with a growing queue is being held up
+ * by something running on it, which in a WebFlux application usually means blocking code.
+ */
+@Component
+public class NettyEventLoopMetrics implements MeterBinder {
+    static final String METRIC_NAME = "reactor.netty.eventloop.pending.tasks";
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // the same shared loops Boot's Netty server runs on
+        int index = 0;
+        for(EventExecutor executor : HttpResources.get().onServer(LoopResources.DEFAULT_NATIVE)) {
+            if(executor instanceof SingleThreadEventExecutor) {
+                Gauge.builder(METRIC_NAME, (SingleThreadEventExecutor) executor, SingleThreadEventExecutor::pendingTasks)
+                        .tag("eventloop", String.valueOf(index++))
+                        .register(registry);
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package guru.springframework.spring5webfluxrest.metrics;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Queue and pool gauges for the executors behind Reactor's shared parallel and single schedulers. They
+ * read the executors' own counters, so nothing is added to the tasks themselves. Schedulers created
+ * with {@code Schedulers.newParallel} and the like, and elastic workers, come and go and would leave a
+ * trail of dead meters, so they are left out.
+ * <p>
+ * Installing a scheduler factory shuts down every scheduler created so far, along with whatever was
+ * scheduled on them, so the factory is installed once by {@link Installer} before any context starts,
+ * and never reset. A shared scheduler created again after a shutdown takes over the names, and the
+ * meters, of the one it replaces. Registries are held weakly, so a closed context's registry is not
+ * kept alive.
+ */
+@Component
+public class ReactorSchedulerMetrics implements MeterBinder {
+    private static final AtomicBoolean INSTALLED = new AtomicBoolean();
+    private static final Map<String, ScheduledExecutorService> EXECUTORS = new ConcurrentHashMap<>();
+    private static final Set<MeterRegistry> REGISTRIES = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<>()));
+
+    /**
+     * Set while a shared scheduler is being created, which is when it creates its executors.
+     */
+    private static final ThreadLocal<AtomicInteger> SHARED_EXECUTOR_INDEX = new ThreadLocal<>();
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        REGISTRIES.add(registry);
+        EXECUTORS.forEach((name, executor) -> bind(registry, name, executor));
+    }
+
+    static void install() {
+        if(!INSTALLED.compareAndSet(false, true)) {
+            return;
+        }
+
+        Schedulers.setFactory(new Schedulers.Factory() {
+            @Override
+            public Scheduler newParallel(int parallelism, ThreadFactory threadFactory) {
+                return shared("parallel", threadFactory, () -> Schedulers.Factory.super.newParallel(parallelism, threadFactory));
+            }
+
+            @Override
+            public Scheduler newSingle(ThreadFactory threadFactory) {
+                return shared("single", threadFactory, () -> Schedulers.Factory.super.newSingle(threadFactory));
+            }
+
+            @Override
+            public ScheduledExecutorService decorateExecutorService(String schedulerType,
+                                                                    Supplier<? extends ScheduledExecutorService> actual) {
+                ScheduledExecutorService executor = actual.get();
+
+                AtomicInteger index = SHARED_EXECUTOR_INDEX.get();
+                if(index != null) {
+                    String name = "reactor-" + schedulerType + "-" + index.getAndIncrement();
+                    EXECUTORS.put(name, executor);
+                    registries().forEach(registry -> bind(registry, name, executor));
+                }
+
+                return executor;
+            }
+        });
+    }
+
+    /**
+     * Creates the scheduler, marking its executors for metrics if it is the shared one of its type, whose
+     * threads are named after the type.
+     */
+    private static Scheduler shared(String type, ThreadFactory threadFactory, Supplier<Scheduler> scheduler) {
+        if(!(threadFactory instanceof Supplier) || !type.equals(((Supplier<?>) threadFactory).get())) {
+            return scheduler.get();
+        }
+
+        SHARED_EXECUTOR_INDEX.set(new AtomicInteger());
+        try {
+            return scheduler.get();
+        } finally {
+            SHARED_EXECUTOR_INDEX.remove();
+        }
+    }
+
+    private static List<MeterRegistry> registries() {
+        synchronized(REGISTRIES) {
+            REGISTRIES.removeIf(MeterRegistry::isClosed);
+            return new ArrayList<>(REGISTRIES);
+        }
+    }
+
+    private static void bind(MeterRegistry registry, String name, ScheduledExecutorService executor) {
+        // the meters of an executor this one replaces would keep reading the old one
+        for(Meter meter : new ArrayList<>(registry.getMeters())) {
+            if(name.equals(meter.getId().getTag("name")) && meter.getId().getName().startsWith("executor")) {
+                registry.remove(meter);
+            }
+        }
+        new ExecutorServiceMetrics(executor, name, Tags.empty()).bindTo(registry);
+    }
+
+    /**
+     * Installs the factory as the context is created, before any bean can schedule work. Registered
+     * in {@code META-INF/spring.factories}.
+     */
+    public static class Installer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+        @Override
+        public void initialize(ConfigurableApplicationContext context) {
+            install();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package guru.springframework.spring5webfluxrest.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Times every call on a repository, from subscription to completion, error or cancellation.
+ * Timers are registered on the first call of each method, so recording a call allocates no tags or
+ * meter ids.
+ */
+class RepositoryMetricsInterceptor implements MethodInterceptor {
+    static final String METRIC_NAME = "spring.data.repository.invocations";
+
+    private final Supplier<MeterRegistry> registry;
+    private final String repositoryName;
+    private final Map<Method, MethodTimers> timers = new ConcurrentHashMap<>();
+
+    RepositoryMetricsInterceptor(Supplier<MeterRegistry> registry, String repositoryName) {
+        this.registry = registry;
+        this.repositoryName = repositoryName;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+
+        if(result instanceof Mono) {
+            MethodTimers methodTimers = timersFor(invocation.getMethod());
+            Mono<?> mono = (Mono<?>) result;
+            return Mono.defer(() -> {
+                long start = System.nanoTime();
+                return mono.doFinally(signal -> methodTimers.record(signal, start));
+            });
+        }
+
+        if(result instanceof Flux) {
+            MethodTimers methodTimers = timersFor(invocation.getMethod());
+            Flux<?> flux = (Flux<?>) result;
+            return Flux.defer(() -> {
+                long start = System.nanoTime();
+                return flux.doFinally(signal -> methodTimers.record(signal, start));
+            });
+        }
+
+        return result;
+    }
+
+    private MethodTimers timersFor(Method method) {
+        MethodTimers methodTimers = timers.get(method);
+        if(methodTimers == null) {
+            methodTimers = timers.computeIfAbsent(method, m -> new MethodTimers(registry.get(), repositoryName, m.getName()));
+        }
+        return methodTimers;
+    }
+
+    private static class MethodTimers {
+        private final Timer success;
+        private final Timer error;
+        private final Timer canceled;
+
+        MethodTimers(MeterRegistry registry, String repositoryName, String methodName) {
+            success = timer(registry, repositoryName, methodName, "SUCCESS");
+            error = timer(registry, repositoryName, methodName, "ERROR");
+            canceled = timer(registry, repositoryName, methodName, "CANCELED");
+        }
+
+        private static Timer timer(MeterRegistry registry, String repositoryName, String methodName, String outcome) {
+            return Timer.builder(METRIC_NAME)
+                    .tag("repository", repositoryName)
+                    .tag("method", methodName)
+                    .tag("outcome", outcome)
+                    .register(registry);
+        }
+
+        void record(SignalType signal, long start) {
+            Timer timer = signal == SignalType.ON_ERROR ? error : signal == SignalType.CANCEL ? canceled : success;
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
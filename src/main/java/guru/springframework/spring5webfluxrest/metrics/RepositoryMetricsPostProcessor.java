@@ -0,0 +1,34 @@
+package guru.springframework.spring5webfluxrest.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.Repository;
+
+/**
+ * Wraps every Spring Data repository in a {@link RepositoryMetricsInterceptor}. The registry is only
+ * looked up on the first repository call: it binds meters of beans, like the caches, that are
+ * themselves built on the repositories.
+ */
+class RepositoryMetricsPostProcessor implements BeanPostProcessor {
+    private final ObjectProvider<MeterRegistry> registry;
+
+    RepositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if(!(bean instanceof Repository)) {
+            return bean;
+        }
+
+        Class<?>[] interfaces = AopProxyUtils.proxiedUserInterfaces(bean);
+        ProxyFactory proxyFactory = new ProxyFactory(interfaces);
+        proxyFactory.setTarget(bean);
+        proxyFactory.addAdvice(new RepositoryMetricsInterceptor(registry::getObject, interfaces[0].getSimpleName()));
+        return proxyFactory.getProxy(bean.getClass().getClassLoader());
+    }
+}
@@ -0,0 +1,186 @@
+package guru.springframework.spring5webfluxrest.repositories;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes whole batches of documents in one round trip. Spring Data 2.1 has no reactive bulk
+ * operations, so the entities are mapped with the template's converter and handed to the driver's
+ * bulkWrite.
+ */
+@Repository
+public class BulkWriteRepository {
+    private static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
+    private static final UpdateOptions UPSERT = new UpdateOptions().upsert(true);
+    private static final String ID = "_id";
+
+    private final ReactiveMongoOperations mongoOperations;
+
+    public BulkWriteRepository(ReactiveMongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    /**
+     * Inserts the batch with a single unordered bulk write, so one bad document (a duplicate id, say)
+     * does not stop the rest from being written.
+     */
+    public <T> Mono<InsertResult> insertUnordered(Class<T> entityClass, List<? extends T> batch) {
+        if(batch.isEmpty()) {
+            return Mono.just(new InsertResult(0, 0));
+        }
+
+        List<WriteModel<Document>> inserts = new ArrayList<>(batch.size());
+        for(T entity : batch) {
+            inserts.add(new InsertOneModel<>(toDocument(entity)));
+        }
+
+        return Mono.from(mongoOperations.getCollection(mongoOperations.getCollectionName(entityClass))
+                        .bulkWrite(inserts, UNORDERED))
+                .map(result -> new InsertResult(result.getInsertedCount(), 0))
+                .onErrorResume(MongoBulkWriteException.class, e ->
+                        Mono.just(new InsertResult(e.getWriteResult().getInsertedCount(), e.getWriteErrors().size())));
+    }
+
+    /**
+     * Replaces each document by id, inserting those with new ids, in one unordered bulk write. As with a
+     * repository save the version of a replaced document goes up by one and a new document starts at 0,
+     * but the version the entity carries is not checked. Documents without an id are rejected.
+     * <p>
+     * An update cannot both set the version on insert and increment it, so a versioned document is
+     * written with two updates: one that replaces it if it exists, then an upsert that only inserts it
+     * if it does not. The server runs them in order. A document another client inserts between the two
+     * is left as that client wrote it, and this one is not counted as written.
+     */
+    public <T> Mono<ReplaceResult> replaceUnordered(Class<T> entityClass, List<? extends T> batch) {
+        MongoPersistentEntity<?> persistentEntity = mongoOperations.getConverter().getMappingContext().getRequiredPersistentEntity(entityClass);
+        MongoPersistentProperty versionProperty = persistentEntity.getVersionProperty();
+        List<WriteModel<Document>> replaces = new ArrayList<>(batch.size() * 2);
+        for(T entity : batch) {
+            Document document = new Document();
+            mongoOperations.getConverter().write(entity, document);
+            Object id = document.remove(ID);
+            if(id == null) {
+                continue;
+            }
+
+            Document filter = new Document(ID, id);
+            if(versionProperty == null) {
+                replaces.add(new UpdateOneModel<>(filter, toReplacement(persistentEntity, document), UPSERT));
+            } else {
+                Document inserted = new Document(document);
+                inserted.put(versionProperty.getFieldName(), initialVersion(versionProperty));
+                replaces.add(new UpdateOneModel<>(filter, toReplacement(persistentEntity, document)));
+                replaces.add(new UpdateOneModel<>(filter, new Document("$setOnInsert", inserted), UPSERT));
+            }
+        }
+
+        int writesPerDocument = versionProperty == null ? 1 : 2;
+        int withoutId = batch.size() - replaces.size() / writesPerDocument;
+        if(replaces.isEmpty()) {
+            return Mono.just(new ReplaceResult(0, 0, 0, withoutId));
+        }
+
+        return Mono.from(mongoOperations.getCollection(mongoOperations.getCollectionName(entityClass))
+                        .bulkWrite(replaces, UNORDERED))
+                .map(result -> ReplaceResult.of(result, versionProperty != null, withoutId))
+                .onErrorResume(MongoBulkWriteException.class, e -> Mono.just(ReplaceResult.of(e.getWriteResult(), versionProperty != null,
+                        withoutId + (int) e.getWriteErrors().stream().map(error -> error.getIndex() / writesPerDocument).distinct().count())));
+    }
+
+    /**
+     * An update that leaves the document as a replace would, with its version incremented.
+     */
+    private static Document toReplacement(MongoPersistentEntity<?> persistentEntity, Document document) {
+        Document update = new Document();
+
+        MongoPersistentProperty versionProperty = persistentEntity.getVersionProperty();
+        if(versionProperty != null) {
+            document.remove(versionProperty.getFieldName());
+            update.append("$inc", new Document(versionProperty.getFieldName(), 1L));
+        }
+
+        // the converter leaves null properties out, and a replace would drop them
+        Document unset = new Document();
+        for(MongoPersistentProperty property : persistentEntity) {
+            if(!property.isIdProperty() && !property.isVersionProperty() && !document.containsKey(property.getFieldName())) {
+                unset.append(property.getFieldName(), "");
+            }
+        }
+
+        if(!document.isEmpty()) {
+            update.append("$set", document);
+        }
+        if(!unset.isEmpty()) {
+            update.append("$unset", unset);
+        }
+        return update;
+    }
+
+    private Document toDocument(Object entity) {
+        MongoConverter converter = mongoOperations.getConverter();
+        MongoPersistentEntity<?> persistentEntity = converter.getMappingContext().getRequiredPersistentEntity(entity.getClass());
+
+        Document document = new Document();
+        converter.write(entity, document);
+
+        // a new document starts at the same version the repositories give it on insert
+        MongoPersistentProperty versionProperty = persistentEntity.getVersionProperty();
+        if(versionProperty != null && document.get(versionProperty.getFieldName()) == null) {
+            document.put(versionProperty.getFieldName(), initialVersion(versionProperty));
+        }
+        return document;
+    }
+
+    private Object initialVersion(MongoPersistentProperty versionProperty) {
+        return mongoOperations.getConverter().getConversionService().convert(0L, versionProperty.getActualType());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class InsertResult {
+        private final int inserted;
+        private final int rejected;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ReplaceResult {
+        private final int matched;
+        private final int modified;
+        private final int upserted;
+        private final int rejected;
+
+        static ReplaceResult of(BulkWriteResult result, boolean versioned, int rejected) {
+            if(versioned) {
+                // the replace always bumps the version, so it modifies whatever it matches, and the upsert
+                // that follows matches the same document again without modifying it
+                return new ReplaceResult(result.getModifiedCount(), result.getModifiedCount(), result.getUpserts().size(), rejected);
+            }
+            return new ReplaceResult(result.getMatchedCount(), result.getModifiedCount(), result.getUpserts().size(), rejected);
+        }
+
+        /**
+         * Documents replaced or inserted, including those replaced by an identical document.
+         */
+        public int getWritten() {
+            return matched + upserted;
+        }
+    }
+}
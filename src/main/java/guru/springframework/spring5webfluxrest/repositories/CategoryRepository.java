@@ -1,7 +1,12 @@
 package guru.springframework.spring5webfluxrest.repositories;
 
 import guru.springframework.spring5webfluxrest.domain.Category;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
 
-public interface CategoryRepository extends ReactiveMongoRepository<Category, String> {
+public interface CategoryRepository extends ReactiveMongoRepository<Category, String>, CategorySearchRepository {
+    Flux<Category> findAllBy(Pageable pageable);
+
+    Flux<Category> findByIdGreaterThan(String id, Pageable pageable);
 }
@@ -0,0 +1,33 @@
+package guru.springframework.spring5webfluxrest.repositories;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.util.StringUtils;
+
+/**
+ * The filters of a category search, bound from the list endpoints' query parameters. Every filter that
+ * is set has to match.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class CategorySearch {
+    /**
+     * The whole description, ignoring case.
+     */
+    private String description;
+
+    /**
+     * Words to find in the description, through the text index.
+     */
+    private String q;
+
+    public boolean isEmpty() {
+        return !StringUtils.hasText(description) && !StringUtils.hasText(q);
+    }
+}
@@ -0,0 +1,37 @@
+package guru.springframework.spring5webfluxrest.repositories;
+
+import guru.springframework.spring5webfluxrest.domain.Category;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface CategorySearchRepository {
+    /**
+     * The categories matching the search with an id greater than {@code after}, or from the start if it
+     * is null.
+     */
+    Flux<Category> search(CategorySearch search, String after, Pageable pageable);
+
+    /**
+     * Same as {@link #search(CategorySearch, String, Pageable)}, reading only the named fields, or all of them
+     * if none are named.
+     */
+    Flux<Category> search(CategorySearch search, String after, Pageable pageable, Collection<String> fields);
+
+    /**
+     * Deletes every category matching the search with one command, however many that is. An empty search
+     * matches them all.
+     *
+     * @return how many were deleted
+     */
+    Mono<Long> deleteMatching(CategorySearch search);
+
+    /**
+     * Deletes the category with the id, if there is one.
+     *
+     * @return how many were deleted, 0 or 1
+     */
+    Mono<Long> deleteOne(String id);
+}
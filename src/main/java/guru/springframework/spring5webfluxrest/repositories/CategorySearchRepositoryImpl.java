@@ -0,0 +1,79 @@
+package guru.springframework.spring5webfluxrest.repositories;
+
+import com.mongodb.client.result.DeleteResult;
+import guru.springframework.spring5webfluxrest.domain.Category;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.regex.Pattern;
+
+/**
+ * Builds the search query from whichever filters are set. A description is matched with the collation
+ * of the case-insensitive description index, which is the only way Mongo will use that index. A text
+ * search cannot run with a collation, so alongside {@code q} the description is matched with a
+ * case-insensitive regex against the documents the text index found.
+ */
+public class CategorySearchRepositoryImpl implements CategorySearchRepository {
+    private final ReactiveMongoOperations mongoOperations;
+
+    public CategorySearchRepositoryImpl(ReactiveMongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public Flux<Category> search(CategorySearch search, String after, Pageable pageable) {
+        return search(search, after, pageable, Collections.emptySet());
+    }
+
+    @Override
+    public Flux<Category> search(CategorySearch search, String after, Pageable pageable, Collection<String> fields) {
+        Query query = new Query().with(pageable);
+        fields.forEach(query.fields()::include);
+        addFilters(query, search);
+
+        if(after != null) {
+            query.addCriteria(Criteria.where("id").gt(after));
+        }
+
+        return mongoOperations.find(query, Category.class);
+    }
+
+    @Override
+    public Mono<Long> deleteMatching(CategorySearch search) {
+        Query query = new Query();
+        addFilters(query, search);
+
+        return mongoOperations.remove(query, Category.class)
+                .map(DeleteResult::getDeletedCount);
+    }
+
+    @Override
+    public Mono<Long> deleteOne(String id) {
+        return mongoOperations.remove(Query.query(Criteria.where("id").is(id)), Category.class)
+                .map(DeleteResult::getDeletedCount);
+    }
+
+    private static void addFilters(Query query, CategorySearch search) {
+        boolean textSearch = StringUtils.hasText(search.getQ());
+        if(textSearch) {
+            query.addCriteria(TextCriteria.forDefaultLanguage().matching(search.getQ()));
+        }
+
+        if(StringUtils.hasText(search.getDescription())) {
+            if(textSearch) {
+                query.addCriteria(Criteria.where("description").regex("^" + Pattern.quote(search.getDescription()) + "$", "i"));
+            } else {
+                query.addCriteria(Criteria.where("description").is(search.getDescription()))
+                        .collation(MongoIndexes.CASE_INSENSITIVE);
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package guru.springframework.spring5webfluxrest.repositories;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * A count of the writes to each collection, kept in Mongo so every node sees the same number. Reading it
+ * is a single lookup by id, which makes it a cheap version for a whole collection: if the count has not
+ * moved, nothing in the collection has changed.
+ */
+@Repository
+public class ChangeCounters {
+    static final String COLLECTION = "changeCounters";
+    private static final String COUNT = "count";
+    private static final FindAndModifyOptions UPSERT_AND_RETURN_NEW = FindAndModifyOptions.options().upsert(true).returnNew(true);
+
+    private final ReactiveMongoOperations mongoOperations;
+
+    public ChangeCounters(ReactiveMongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    public Mono<Long> get(Class<?> entityClass) {
+        return mongoOperations.findById(mongoOperations.getCollectionName(entityClass), Document.class, COLLECTION)
+                .map(counter -> counter.get(COUNT, Number.class).longValue())
+                .defaultIfEmpty(0L);
+    }
+
+    /**
+     * Counts a write. Call it after the write has succeeded and before answering the request that made it,
+     * so a client reading its own write never gets the old count.
+     */
+    public Mono<Long> increment(Class<?> entityClass) {
+        Query counter = Query.query(Criteria.where("_id").is(mongoOperations.getCollectionName(entityClass)));
+
+        return mongoOperations.findAndModify(counter, new Update().inc(COUNT, 1L), UPSERT_AND_RETURN_NEW, Document.class, COLLECTION)
+                .map(updated -> updated.get(COUNT, Number.class).longValue());
+    }
+}
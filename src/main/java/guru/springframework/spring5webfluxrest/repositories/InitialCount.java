@@ -0,0 +1,20 @@
+package guru.springframework.spring5webfluxrest.repositories;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * How many documents have a name starting with {@code initial}, upper cased.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class InitialCount {
+    private String initial;
+    private long count;
+}
@@ -0,0 +1,74 @@
+package guru.springframework.spring5webfluxrest.repositories;
+
+import guru.springframework.spring5webfluxrest.domain.Category;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.util.ClassTypeInformation;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Creates the indexes the searches rely on before the web server starts. The templates only create
+ * annotated indexes for entities they happen to have seen, the reactive one in the background with
+ * failures just logged, and neither can create an index with a collation. Startup waits here and
+ * fails if an index cannot be built.
+ */
+@Slf4j
+@Component
+public class MongoIndexes implements SmartInitializingSingleton {
+    static final Collation CASE_INSENSITIVE = Collation.of(Locale.ENGLISH).strength(Collation.ComparisonLevel.secondary());
+
+    /**
+     * Declared here because a collation cannot be given in the index annotations.
+     */
+    private static final IndexDefinition CATEGORY_DESCRIPTION = new Index()
+            .named("description_ci_id")
+            .on("description", Sort.Direction.ASC)
+            .on("_id", Sort.Direction.ASC)
+            .collation(CASE_INSENSITIVE);
+
+    private final ReactiveMongoOperations mongoOperations;
+    private final MongoPersistentEntityIndexResolver indexResolver;
+
+    public MongoIndexes(ReactiveMongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+        this.indexResolver = new MongoPersistentEntityIndexResolver(
+                (MongoMappingContext) mongoOperations.getConverter().getMappingContext());
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        ensureIndexes().block();
+    }
+
+    public Mono<Void> ensureIndexes() {
+        return Flux.concat(ensureIndexes(Category.class, CATEGORY_DESCRIPTION), ensureIndexes(Vendor.class))
+                .then();
+    }
+
+    private Flux<String> ensureIndexes(Class<?> entityClass, IndexDefinition... declaredIndexes) {
+        List<IndexDefinition> indexes = new ArrayList<>();
+        indexResolver.resolveIndexFor(ClassTypeInformation.from(entityClass)).forEach(indexes::add);
+        indexes.addAll(Arrays.asList(declaredIndexes));
+
+        ReactiveIndexOperations indexOperations = mongoOperations.indexOps(entityClass);
+        return Flux.fromIterable(indexes)
+                .concatMap(indexOperations::ensureIndex)
+                .doOnNext(name -> log.info("Ensured index {} on {}", name, mongoOperations.getCollectionName(entityClass)));
+    }
+}
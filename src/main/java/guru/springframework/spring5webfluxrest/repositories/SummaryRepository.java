@@ -0,0 +1,63 @@
+package guru.springframework.spring5webfluxrest.repositories;
+
+import com.mongodb.reactivestreams.client.MongoCollection;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Counts worked out by the server, so no documents have to be read into the application to answer
+ * them.
+ */
+@Repository
+public class SummaryRepository {
+    private static final String LAST_NAME = "lastName";
+    private static final String INITIAL = "initial";
+    private static final String COUNT = "count";
+
+    /**
+     * Matching, sorting and projecting on {@code lastName} alone lets the server answer from the
+     * {@code lastName_id} index without fetching a document; only the grouping is left to do.
+     */
+    private static final Aggregation VENDORS_BY_LAST_NAME_INITIAL = Aggregation.newAggregation(
+            Aggregation.match(Criteria.where(LAST_NAME).gt("")),
+            Aggregation.sort(Sort.Direction.ASC, LAST_NAME),
+            Aggregation.project(LAST_NAME).andExclude("_id"),
+            Aggregation.project()
+                    .and(StringOperators.valueOf(StringOperators.valueOf(LAST_NAME).substringCP(0, 1)).toUpper()).as(INITIAL),
+            Aggregation.group(INITIAL).count().as(COUNT),
+            Aggregation.project(COUNT).and(INITIAL).previousOperation(),
+            Aggregation.sort(Sort.Direction.ASC, INITIAL));
+
+    private final ReactiveMongoOperations mongoOperations;
+
+    public SummaryRepository(ReactiveMongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    public String collectionName(Class<?> entityClass) {
+        return mongoOperations.getCollectionName(entityClass);
+    }
+
+    /**
+     * The document count from the collection's metadata, read without scanning documents or an index.
+     * After an unclean shutdown it can be off until the collection is validated.
+     */
+    public Mono<Long> estimatedCount(String collectionName) {
+        return mongoOperations.execute(collectionName, MongoCollection::estimatedDocumentCount).next();
+    }
+
+    /**
+     * Vendors counted by the first letter of their last name, in letter order. Vendors with no last
+     * name are left out.
+     */
+    public Flux<InitialCount> countVendorsByLastNameInitial() {
+        return mongoOperations.aggregate(VENDORS_BY_LAST_NAME_INITIAL, collectionName(Vendor.class), InitialCount.class);
+    }
+}
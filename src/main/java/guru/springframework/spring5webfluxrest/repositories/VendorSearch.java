@@ -0,0 +1,31 @@
+package guru.springframework.spring5webfluxrest.repositories;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.util.StringUtils;
+
+/**
+ * The filters of a vendor search, bound from the list endpoints' query parameters. Every filter that is
+ * set has to match. A {@code lastName} ending in {@code *} matches last names starting with the rest.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class VendorSearch {
+    private String firstName;
+    private String lastName;
+
+    /**
+     * Words to find in either name, through the text index.
+     */
+    private String q;
+
+    public boolean isEmpty() {
+        return !StringUtils.hasText(firstName) && !StringUtils.hasText(lastName) && !StringUtils.hasText(q);
+    }
+}
@@ -0,0 +1,38 @@
+package guru.springframework.spring5webfluxrest.repositories;
+
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface VendorSearchRepository {
+    /**
+     * The vendors matching the search after the vendor with id {@code after}, or from the start if it is
+     * null. They come in id order, or by last name then id for a {@code lastName} prefix, and that vendor
+     * has to exist to page after it by last name.
+     */
+    Flux<Vendor> search(VendorSearch search, String after, Pageable pageable);
+
+    /**
+     * Same as {@link #search(VendorSearch, String, Pageable)}, reading only the named fields, or all of them
+     * if none are named.
+     */
+    Flux<Vendor> search(VendorSearch search, String after, Pageable pageable, Collection<String> fields);
+
+    /**
+     * Deletes every vendor matching the search with one command, however many that is. An empty search
+     * matches them all.
+     *
+     * @return how many were deleted
+     */
+    Mono<Long> deleteMatching(VendorSearch search);
+
+    /**
+     * Deletes the vendor with the id, if there is one.
+     *
+     * @return how many were deleted, 0 or 1
+     */
+    Mono<Long> deleteOne(String id);
+}
@@ -0,0 +1,141 @@
+package guru.springframework.spring5webfluxrest.repositories;
+
+import com.mongodb.client.result.DeleteResult;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Builds the search query from whichever filters are set. Exact name filters have an index ending in
+ * {@code _id} (see {@link Vendor}), so their pages are range scans already in id order. A
+ * {@code lastName} prefix is a range on {@code lastName_id}, which is in id order only within each last
+ * name, so its pages are ordered and keyed by last name, then id; the last name to continue from is read
+ * from the vendor named by {@code after}. Text search reads every match from the text index and sorts
+ * them by id in memory, up to the server's limit for an in-memory sort.
+ */
+public class VendorSearchRepositoryImpl implements VendorSearchRepository {
+    private static final String REGEX_SPECIAL_CHARACTERS = "\\^$.|?*+()[]{}";
+    private static final Sort BY_LAST_NAME = Sort.by("lastName", "id");
+
+    private final ReactiveMongoOperations mongoOperations;
+
+    public VendorSearchRepositoryImpl(ReactiveMongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public Flux<Vendor> search(VendorSearch search, String after, Pageable pageable) {
+        return search(search, after, pageable, Collections.emptySet());
+    }
+
+    @Override
+    public Flux<Vendor> search(VendorSearch search, String after, Pageable pageable, Collection<String> fields) {
+        if(!isPrefix(search.getLastName())) {
+            Query query = query(pageable, fields);
+            addFilters(query, search, null);
+            if(after != null) {
+                query.addCriteria(Criteria.where("id").gt(after));
+            }
+            return mongoOperations.find(query, Vendor.class);
+        }
+
+        Pageable byLastName = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), BY_LAST_NAME);
+        if(after == null) {
+            Query query = query(byLastName, fields);
+            addFilters(query, search, null);
+            return mongoOperations.find(query, Vendor.class);
+        }
+
+        Query last = Query.query(Criteria.where("id").is(after));
+        last.fields().include("lastName");
+
+        return mongoOperations.findOne(last, Vendor.class)
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("No vendor with id " + after + " to page after")))
+                .flatMapMany(lastVendor -> {
+                    Query query = query(byLastName, fields);
+                    addFilters(query, search, lastVendor);
+                    return mongoOperations.find(query, Vendor.class);
+                });
+    }
+
+    @Override
+    public Mono<Long> deleteMatching(VendorSearch search) {
+        Query query = new Query();
+        addFilters(query, search, null);
+
+        return mongoOperations.remove(query, Vendor.class)
+                .map(DeleteResult::getDeletedCount);
+    }
+
+    @Override
+    public Mono<Long> deleteOne(String id) {
+        return mongoOperations.remove(Query.query(Criteria.where("id").is(id)), Vendor.class)
+                .map(DeleteResult::getDeletedCount);
+    }
+
+    private static Query query(Pageable pageable, Collection<String> fields) {
+        Query query = new Query().with(pageable);
+        fields.forEach(query.fields()::include);
+        return query;
+    }
+
+    /**
+     * @param lastVendor the vendor a prefix search pages after, or null to match the whole prefix
+     */
+    private static void addFilters(Query query, VendorSearch search, Vendor lastVendor) {
+        if(StringUtils.hasText(search.getQ())) {
+            query.addCriteria(TextCriteria.forDefaultLanguage().matching(search.getQ()));
+        }
+
+        String lastName = search.getLastName();
+        if(StringUtils.hasText(lastName)) {
+            if(isPrefix(lastName)) {
+                // an anchored regex with no special characters is a range on the index
+                Criteria prefix = Criteria.where("lastName")
+                        .regex("^" + escape(lastName.substring(0, lastName.length() - 1)));
+                if(lastVendor != null) {
+                    // a regex criteria drops any other operator on the field, so the bounds go in an $and:
+                    // lastName >= the last one narrows the index range, the $or skips what was already sent
+                    prefix = new Criteria().andOperator(prefix,
+                            Criteria.where("lastName").gte(lastVendor.getLastName()),
+                            new Criteria().orOperator(
+                                    Criteria.where("lastName").gt(lastVendor.getLastName()),
+                                    Criteria.where("id").gt(lastVendor.getId())));
+                }
+                query.addCriteria(prefix);
+            } else {
+                query.addCriteria(Criteria.where("lastName").is(lastName));
+            }
+        }
+
+        if(StringUtils.hasText(search.getFirstName())) {
+            query.addCriteria(Criteria.where("firstName").is(search.getFirstName()));
+        }
+    }
+
+    private static boolean isPrefix(String lastName) {
+        return StringUtils.hasText(lastName) && lastName.endsWith("*");
+    }
+
+    private static String escape(String literal) {
+        StringBuilder escaped = new StringBuilder(literal.length());
+        for(char c : literal.toCharArray()) {
+            if(REGEX_SPECIAL_CHARACTERS.indexOf(c) >= 0) {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
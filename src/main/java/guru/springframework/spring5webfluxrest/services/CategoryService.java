@@ -0,0 +1,225 @@
+package guru.springframework.spring5webfluxrest.services;
+
+import guru.springframework.spring5webfluxrest.bulk.BatchResult;
+import guru.springframework.spring5webfluxrest.bulk.BulkDeleteResult;
+import guru.springframework.spring5webfluxrest.bulk.BulkIngester;
+import guru.springframework.spring5webfluxrest.bulk.WriteBehindBuffer;
+import guru.springframework.spring5webfluxrest.cache.ReadThroughCache;
+import guru.springframework.spring5webfluxrest.domain.Category;
+import guru.springframework.spring5webfluxrest.repositories.ChangeCounters;
+import guru.springframework.spring5webfluxrest.repositories.CategoryRepository;
+import guru.springframework.spring5webfluxrest.repositories.CategorySearch;
+import org.reactivestreams.Publisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * What the category endpoints do, whichever way the web layer dispatches to them.
+ */
+@Service
+public class CategoryService {
+    private static final int MAX_CONFLICT_RETRIES = 3;
+
+    private final CategoryRepository categoryRepository;
+    private final ReadThroughCache<Category> categoryCache;
+    private final BulkIngester bulkIngester;
+    private final WriteBehindBuffer<Category> categoryWrites;
+    private final ChangeCounters changeCounters;
+
+    public CategoryService(CategoryRepository categoryRepository, ReadThroughCache<Category> categoryCache,
+                           BulkIngester bulkIngester, WriteBehindBuffer<Category> categoryWrites,
+                           ChangeCounters changeCounters) {
+        this.categoryRepository = categoryRepository;
+        this.categoryCache = categoryCache;
+        this.bulkIngester = bulkIngester;
+        this.categoryWrites = categoryWrites;
+        this.changeCounters = changeCounters;
+    }
+
+    /**
+     * How many times the category collection has been written to, for a tag that changes whenever any
+     * page of it may have.
+     */
+    public Mono<Long> changes() {
+        return changeCounters.get(Category.class);
+    }
+
+    /**
+     * One page of the categories matching the search in id order. Pass the id of the last category of a
+     * page as {@code after} to get the next one. Only the selected fields are read from the
+     * database.
+     */
+    public Flux<Category> list(CategorySearch search, String after, int limit, Fields fields) {
+        return findPage(search, after, KeysetPaging.page(limit), fields);
+    }
+
+    /**
+     * All categories matching the search after {@code after} in id order, fetched from the cursor in
+     * batches as the subscriber asks for them. Only the selected fields are read.
+     */
+    public Flux<Category> stream(CategorySearch search, String after, Integer limit, Fields fields) {
+        return findPage(search, after, KeysetPaging.stream(limit), fields)
+                .limitRate(KeysetPaging.STREAM_BATCH_SIZE);
+    }
+
+    public Mono<Category> getById(String id) {
+        return categoryCache.get(id);
+    }
+
+    public Flux<BatchResult> create(Publisher<Category> categories) {
+        return bulkIngester.insert(Category.class, categories, categoryWrites::flush)
+                .concatMap(result -> result.getAccepted() > 0
+                        ? changeCounters.increment(Category.class).thenReturn(result)
+                        : Mono.just(result));
+    }
+
+    /**
+     * Replaces the categories by id and inserts those with new ids, in bulk. Any cached category may have been
+     * replaced, so the cache is dropped after each batch.
+     */
+    public Flux<BatchResult> upsert(Publisher<Category> categories) {
+        return bulkIngester.replace(Category.class, categories, categoryWrites::flush)
+                .concatMap(result -> result.getAccepted() > 0
+                        ? changeCounters.increment(Category.class).thenReturn(result)
+                        : Mono.just(result))
+                .doOnNext(result -> categoryCache.invalidateAll());
+    }
+
+    /**
+     * Whether {@link #update} answers before the category is written: with write-behind on, for a PUT that
+     * does not name a version to replace.
+     */
+    public boolean writesBehind(Category category) {
+        return categoryWrites.isEnabled() && category.getVersion() == null;
+    }
+
+    public Mono<Category> update(String id, Category category) {
+        category.setId(id);
+
+        if(writesBehind(category)) {
+            // last write wins once it is flushed, and the cache entry is dropped then
+            return categoryWrites.write(category).thenReturn(category);
+        }
+
+        if(category.getVersion() != null) {
+            // the client asked for a conditional replace of a version it has seen, after any buffered one
+            return categoryWrites.flush(id)
+                    .then(Mono.defer(() -> categoryRepository.save(category)))
+                    .flatMap(this::countChange)
+                    .onErrorMap(OptimisticLockingFailureException.class, CategoryService::conflict)
+                    .doOnSuccessOrError((saved, error) -> categoryCache.invalidate(id));
+        }
+
+        // last write wins: replace whatever version is current, or insert if the id is new
+        return Mono.defer(() -> categoryRepository.findById(id)
+                        .map(foundCategory -> {
+                            category.setVersion(foundCategory.getVersion());
+                            return category;
+                        })
+                        .switchIfEmpty(Mono.fromSupplier(() -> {
+                            category.setVersion(null);
+                            return category;
+                        }))
+                        .flatMap(categoryRepository::save))
+                .retry(MAX_CONFLICT_RETRIES, e -> e instanceof OptimisticLockingFailureException
+                        || e instanceof DuplicateKeyException)
+                .onErrorMap(OptimisticLockingFailureException.class, CategoryService::conflict)
+                .flatMap(this::countChange)
+                .doOnSuccessOrError((saved, error) -> categoryCache.invalidate(id));
+    }
+
+    public Mono<Category> patch(String id, Category category) {
+        return categoryWrites.flush(id)
+                .then(Mono.defer(() -> categoryRepository.findById(id)))
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Id not found for Category")))
+                .flatMap(foundCategory -> {
+                    if(category.getVersion() != null && !category.getVersion().equals(foundCategory.getVersion())) {
+                        return Mono.error(conflict(null));
+                    }
+
+                    if(merge(foundCategory, category)) {
+                        return categoryRepository.save(foundCategory).flatMap(this::countChange);
+                    }
+
+                    return Mono.just(foundCategory);
+                })
+                .retry(MAX_CONFLICT_RETRIES, OptimisticLockingFailureException.class::isInstance)
+                .onErrorMap(OptimisticLockingFailureException.class, CategoryService::conflict)
+                .doOnSuccessOrError((saved, error) -> categoryCache.invalidate(id));
+    }
+
+    /**
+     * Deletes the category, or fails with a 404 if there is none. Only a delete that removed it counts as a
+     * change to the collection.
+     */
+    public Mono<Void> delete(String id) {
+        // a buffered PUT written after the delete would bring the category back
+        return categoryWrites.flush(id)
+                .then(Mono.defer(() -> categoryRepository.deleteOne(id)))
+                .flatMap(deleted -> deleted > 0
+                        ? changeCounters.increment(Category.class)
+                        : Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Id not found for Category")))
+                .doFinally(signal -> categoryCache.invalidate(id))
+                .then();
+    }
+
+    /**
+     * Deletes every category matching the search. Deleting everything is not done by accident, so the search
+     * has to name a description; text search words are too loose a match to delete by.
+     */
+    public Mono<BulkDeleteResult> deleteAll(CategorySearch search) {
+        if(search.isEmpty() || StringUtils.hasText(search.getQ())) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Name a description to delete by"));
+        }
+
+        return Mono.defer(categoryWrites::flush)
+                .then(Mono.defer(() -> categoryRepository.deleteMatching(search)))
+                .flatMap(deleted -> deleted > 0 ? changeCounters.increment(Category.class).thenReturn(deleted) : Mono.just(deleted))
+                .doFinally(signal -> categoryCache.invalidateAll())
+                .map(BulkDeleteResult::new);
+    }
+
+    private Flux<Category> findPage(CategorySearch search, String after, Pageable pageable, Fields fields) {
+        if(!fields.isAll()) {
+            return categoryRepository.search(search, after, pageable, fields.getNames());
+        }
+        if(!search.isEmpty()) {
+            return categoryRepository.search(search, after, pageable);
+        }
+        if(after == null) {
+            return categoryRepository.findAllBy(pageable);
+        }
+        return categoryRepository.findByIdGreaterThan(after, pageable);
+    }
+
+    private Mono<Category> countChange(Category saved) {
+        return changeCounters.increment(Category.class).thenReturn(saved);
+    }
+
+    /**
+     * Copies every non-null field of the patch onto the stored category.
+     *
+     * @return true if any field changed and the category has to be saved
+     */
+    private static boolean merge(Category foundCategory, Category patch) {
+        boolean changed = false;
+
+        if(patch.getDescription() != null && !patch.getDescription().equals(foundCategory.getDescription())) {
+            foundCategory.setDescription(patch.getDescription());
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    private static ResponseStatusException conflict(Throwable cause) {
+        return new ResponseStatusException(HttpStatus.CONFLICT, "Category was modified concurrently", cause);
+    }
+}
@@ -0,0 +1,17 @@
+package guru.springframework.spring5webfluxrest.services;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A total, estimated from collection metadata rather than counted.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class Count {
+    private long count;
+}
@@ -0,0 +1,46 @@
+package guru.springframework.spring5webfluxrest.services;
+
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static guru.springframework.spring5webfluxrest.config.BinaryCodecCustomizer.APPLICATION_CBOR;
+import static guru.springframework.spring5webfluxrest.config.BinaryCodecCustomizer.APPLICATION_SMILE;
+
+/**
+ * The types a single document or page is written as, and which of them a client gets for its
+ * {@code Accept} header.
+ */
+public final class DocumentTypes {
+    public static final List<MediaType> DOCUMENT_TYPES = Arrays.asList(MediaType.APPLICATION_JSON, APPLICATION_CBOR, APPLICATION_SMILE);
+
+    private DocumentTypes() {
+    }
+
+    /**
+     * The document type the client asked for first, JSON unless it only accepts CBOR or Smile.
+     */
+    public static MediaType negotiate(List<MediaType> accepted) {
+        return firstAccepted(accepted, DOCUMENT_TYPES);
+    }
+
+    /**
+     * The first of the producible types compatible with the accepted ones, taken most specific and
+     * highest quality first, or the first producible type when none is.
+     */
+    public static MediaType firstAccepted(List<MediaType> accepted, List<MediaType> producible) {
+        List<MediaType> sorted = new ArrayList<>(accepted);
+        MediaType.sortBySpecificityAndQuality(sorted);
+
+        for(MediaType mediaType : sorted) {
+            for(MediaType type : producible) {
+                if(mediaType.isCompatibleWith(type)) {
+                    return type;
+                }
+            }
+        }
+        return producible.get(0);
+    }
+}
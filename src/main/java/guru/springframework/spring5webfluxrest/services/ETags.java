@@ -0,0 +1,46 @@
+package guru.springframework.spring5webfluxrest.services;
+
+import org.springframework.http.MediaType;
+
+import static guru.springframework.spring5webfluxrest.config.BinaryCodecCustomizer.APPLICATION_CBOR;
+import static guru.springframework.spring5webfluxrest.config.BinaryCodecCustomizer.APPLICATION_SMILE;
+
+/**
+ * Strong entity tags for the API's responses. JSON, CBOR and Smile bodies of the same version are
+ * different bytes, so each type gets its own tag: {@code "v3"} for JSON, {@code "v3-cbor"} and
+ * {@code "v3-smile"} for the others. Responses tagged this way vary by {@code Accept}.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * The tag of a document at its current version written as the given type, or null for a document
+     * saved before documents were versioned.
+     */
+    public static String ofVersion(Long version, MediaType documentType) {
+        return version != null ? quote("v" + version + suffix(documentType)) : null;
+    }
+
+    /**
+     * The tag of a collection after the given number of changes, written as the given type.
+     */
+    public static String ofChanges(long changes, MediaType documentType) {
+        return quote("c" + changes + suffix(documentType));
+    }
+
+    private static String suffix(MediaType documentType) {
+        if(APPLICATION_CBOR.isCompatibleWith(documentType)) {
+            return "-cbor";
+        }
+        if(APPLICATION_SMILE.isCompatibleWith(documentType)) {
+            return "-smile";
+        }
+        return "";
+    }
+
+    private static String quote(String tag) {
+        return "\"" + tag + "\"";
+    }
+}
@@ -0,0 +1,98 @@
+package guru.springframework.spring5webfluxrest.services;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.beans.PropertyDescriptor;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The fields a client asked for with {@code fields=}, checked against the properties of the document
+ * class. The id is always included, since clients page with it. Fields left out are null, and null
+ * fields are not written.
+ */
+public final class Fields {
+    private static final Fields ALL = new Fields(Collections.emptySet());
+    private static final String ID = "id";
+    private static final Map<Class<?>, Set<String>> PROPERTIES = new ConcurrentHashMap<>();
+
+    private final Set<String> names;
+
+    private Fields(Set<String> names) {
+        this.names = names;
+    }
+
+    /**
+     * @param fields comma separated property names, or null for the whole document
+     */
+    public static Fields parse(Class<?> documentClass, String fields) {
+        if(!StringUtils.hasText(fields)) {
+            return ALL;
+        }
+
+        Set<String> properties = PROPERTIES.computeIfAbsent(documentClass, Fields::propertiesOf);
+        Set<String> names = new LinkedHashSet<>();
+        names.add(ID);
+        for(String name : StringUtils.commaDelimitedListToStringArray(fields)) {
+            name = name.trim();
+            if(name.isEmpty()) {
+                continue;
+            }
+            if(!properties.contains(name)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unknown field '" + name + "', expected some of " + properties);
+            }
+            names.add(name);
+        }
+        return new Fields(Collections.unmodifiableSet(names));
+    }
+
+    public boolean isAll() {
+        return names.isEmpty();
+    }
+
+    /**
+     * The fields to read, empty for all of them.
+     */
+    public Set<String> getNames() {
+        return names;
+    }
+
+    /**
+     * A copy of the document with only the selected fields set, or the document itself if all are
+     * selected.
+     */
+    public <T> T apply(T document) {
+        if(isAll()) {
+            return document;
+        }
+
+        @SuppressWarnings("unchecked")
+        T copy = (T) BeanUtils.instantiateClass(document.getClass());
+        BeanWrapper source = PropertyAccessorFactory.forBeanPropertyAccess(document);
+        BeanWrapper target = PropertyAccessorFactory.forBeanPropertyAccess(copy);
+        for(String name : names) {
+            target.setPropertyValue(name, source.getPropertyValue(name));
+        }
+        return copy;
+    }
+
+    private static Set<String> propertiesOf(Class<?> documentClass) {
+        Set<String> properties = new TreeSet<>();
+        for(PropertyDescriptor descriptor : BeanUtils.getPropertyDescriptors(documentClass)) {
+            if(descriptor.getReadMethod() != null && descriptor.getWriteMethod() != null) {
+                properties.add(descriptor.getName());
+            }
+        }
+        return Collections.unmodifiableSet(properties);
+    }
+}
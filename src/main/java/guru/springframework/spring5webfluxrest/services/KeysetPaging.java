@@ -0,0 +1,45 @@
+package guru.springframework.spring5webfluxrest.services;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Paging rules shared by the list endpoints. Pages are keyed on {@code _id}: a client passes the id of
+ * the last document it received as {@code after}, so every page is an index range scan no matter how
+ * deep into the collection it is.
+ */
+public final class KeysetPaging {
+    public static final String DEFAULT_LIMIT = "100";
+    public static final int MAX_LIMIT = 1000;
+
+    /**
+     * How many documents a stream asks the Mongo cursor for at a time. Without it, a client reading one
+     * element at a time would turn into one getMore round trip per document.
+     */
+    public static final int STREAM_BATCH_SIZE = 256;
+
+    private static final Sort BY_ID = Sort.by("id");
+
+    private KeysetPaging() {
+    }
+
+    public static Pageable page(int limit) {
+        if(limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+        }
+        return PageRequest.of(0, limit, BY_ID);
+    }
+
+    /**
+     * Streams are not buffered, so they are unbounded unless the client asks for a limit.
+     */
+    public static Pageable stream(Integer limit) {
+        if(limit != null && limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+        }
+        return PageRequest.of(0, limit != null ? limit : Integer.MAX_VALUE, BY_ID);
+    }
+}
@@ -0,0 +1,48 @@
+package guru.springframework.spring5webfluxrest.services;
+
+import guru.springframework.spring5webfluxrest.cache.ReadThroughCache;
+import guru.springframework.spring5webfluxrest.domain.Category;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import guru.springframework.spring5webfluxrest.repositories.InitialCount;
+import guru.springframework.spring5webfluxrest.repositories.SummaryRepository;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Totals and summaries for dashboards. Each is kept for {@code app.cache.summary-time-to-live}, so
+ * they can lag writes by that long, and clients polling at once share one query.
+ */
+@Service
+public class SummaryService {
+    private final SummaryRepository summaryRepository;
+    private final ReadThroughCache<Long> countCache;
+    private final ReadThroughCache<List<InitialCount>> lastNameInitialCache;
+
+    public SummaryService(SummaryRepository summaryRepository, ReadThroughCache<Long> countCache,
+                          ReadThroughCache<List<InitialCount>> lastNameInitialCache) {
+        this.summaryRepository = summaryRepository;
+        this.countCache = countCache;
+        this.lastNameInitialCache = lastNameInitialCache;
+    }
+
+    public Mono<Count> countCategories() {
+        return count(Category.class);
+    }
+
+    public Mono<Count> countVendors() {
+        return count(Vendor.class);
+    }
+
+    public Flux<InitialCount> countVendorsByLastNameInitial() {
+        return lastNameInitialCache.get(summaryRepository.collectionName(Vendor.class))
+                .flatMapIterable(counts -> counts);
+    }
+
+    private Mono<Count> count(Class<?> entityClass) {
+        return countCache.get(summaryRepository.collectionName(entityClass))
+                .map(Count::new);
+    }
+}
@@ -0,0 +1,236 @@
+package guru.springframework.spring5webfluxrest.services;
+
+import guru.springframework.spring5webfluxrest.bulk.BatchResult;
+import guru.springframework.spring5webfluxrest.bulk.BulkDeleteResult;
+import guru.springframework.spring5webfluxrest.bulk.BulkIngester;
+import guru.springframework.spring5webfluxrest.bulk.WriteBehindBuffer;
+import guru.springframework.spring5webfluxrest.cache.ReadThroughCache;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import guru.springframework.spring5webfluxrest.repositories.ChangeCounters;
+import guru.springframework.spring5webfluxrest.repositories.VendorRepository;
+import guru.springframework.spring5webfluxrest.repositories.VendorSearch;
+import org.reactivestreams.Publisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * What the vendor endpoints do, whichever way the web layer dispatches to them.
+ */
+@Service
+public class VendorService {
+    private static final int MAX_CONFLICT_RETRIES = 3;
+
+    private final VendorRepository vendorRepository;
+    private final ReadThroughCache<Vendor> vendorCache;
+    private final BulkIngester bulkIngester;
+    private final WriteBehindBuffer<Vendor> vendorWrites;
+    private final ChangeCounters changeCounters;
+
+    public VendorService(VendorRepository vendorRepository, ReadThroughCache<Vendor> vendorCache,
+                         BulkIngester bulkIngester, WriteBehindBuffer<Vendor> vendorWrites,
+                         ChangeCounters changeCounters) {
+        this.vendorRepository = vendorRepository;
+        this.vendorCache = vendorCache;
+        this.bulkIngester = bulkIngester;
+        this.vendorWrites = vendorWrites;
+        this.changeCounters = changeCounters;
+    }
+
+    /**
+     * How many times the vendor collection has been written to, for a tag that changes whenever any
+     * page of it may have.
+     */
+    public Mono<Long> changes() {
+        return changeCounters.get(Vendor.class);
+    }
+
+    /**
+     * One page of the vendors matching the search in id order, or by last name then id when the search
+     * has a {@code lastName} prefix. Pass the id of the last vendor of a page as {@code after} to get the
+     * next one. Only the selected fields are read from the database.
+     */
+    public Flux<Vendor> list(VendorSearch search, String after, int limit, Fields fields) {
+        return findPage(search, after, KeysetPaging.page(limit), fields);
+    }
+
+    /**
+     * All vendors matching the search after {@code after} in the order of {@link #list}, fetched from the
+     * cursor in batches as the subscriber asks for them. Only the selected fields are read.
+     */
+    public Flux<Vendor> stream(VendorSearch search, String after, Integer limit, Fields fields) {
+        return findPage(search, after, KeysetPaging.stream(limit), fields)
+                .limitRate(KeysetPaging.STREAM_BATCH_SIZE);
+    }
+
+    public Mono<Vendor> getById(String id) {
+        return vendorCache.get(id);
+    }
+
+    public Flux<BatchResult> create(Publisher<Vendor> vendors) {
+        return bulkIngester.insert(Vendor.class, vendors, vendorWrites::flush)
+                .concatMap(result -> result.getAccepted() > 0
+                        ? changeCounters.increment(Vendor.class).thenReturn(result)
+                        : Mono.just(result));
+    }
+
+    /**
+     * Replaces the vendors by id and inserts those with new ids, in bulk. Any cached vendor may have been
+     * replaced, so the cache is dropped after each batch.
+     */
+    public Flux<BatchResult> upsert(Publisher<Vendor> vendors) {
+        return bulkIngester.replace(Vendor.class, vendors, vendorWrites::flush)
+                .concatMap(result -> result.getAccepted() > 0
+                        ? changeCounters.increment(Vendor.class).thenReturn(result)
+                        : Mono.just(result))
+                .doOnNext(result -> vendorCache.invalidateAll());
+    }
+
+    /**
+     * Whether {@link #update} answers before the vendor is written: with write-behind on, for a PUT that
+     * does not name a version to replace.
+     */
+    public boolean writesBehind(Vendor vendor) {
+        return vendorWrites.isEnabled() && vendor.getVersion() == null;
+    }
+
+    public Mono<Vendor> update(String id, Vendor vendor) {
+        vendor.setId(id);
+
+        if(writesBehind(vendor)) {
+            // last write wins once it is flushed, and the cache entry is dropped then
+            return vendorWrites.write(vendor).thenReturn(vendor);
+        }
+
+        if(vendor.getVersion() != null) {
+            // the client asked for a conditional replace of a version it has seen, after any buffered one
+            return vendorWrites.flush(id)
+                    .then(Mono.defer(() -> vendorRepository.save(vendor)))
+                    .flatMap(this::countChange)
+                    .onErrorMap(OptimisticLockingFailureException.class, VendorService::conflict)
+                    .doOnSuccessOrError((saved, error) -> vendorCache.invalidate(id));
+        }
+
+        // last write wins: replace whatever version is current, or insert if the id is new
+        return Mono.defer(() -> vendorRepository.findById(id)
+                        .map(foundVendor -> {
+                            vendor.setVersion(foundVendor.getVersion());
+                            return vendor;
+                        })
+                        .switchIfEmpty(Mono.fromSupplier(() -> {
+                            vendor.setVersion(null);
+                            return vendor;
+                        }))
+                        .flatMap(vendorRepository::save))
+                .retry(MAX_CONFLICT_RETRIES, e -> e instanceof OptimisticLockingFailureException
+                        || e instanceof DuplicateKeyException)
+                .onErrorMap(OptimisticLockingFailureException.class, VendorService::conflict)
+                .flatMap(this::countChange)
+                .doOnSuccessOrError((saved, error) -> vendorCache.invalidate(id));
+    }
+
+    public Mono<Vendor> patch(String id, Vendor vendor) {
+        return vendorWrites.flush(id)
+                .then(Mono.defer(() -> vendorRepository.findById(id)))
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Id not found for Vendor")))
+                .flatMap(foundVendor -> {
+                    if(vendor.getVersion() != null && !vendor.getVersion().equals(foundVendor.getVersion())) {
+                        return Mono.error(conflict(null));
+                    }
+
+                    if(merge(foundVendor, vendor)) {
+                        return vendorRepository.save(foundVendor).flatMap(this::countChange);
+                    }
+
+                    return Mono.just(foundVendor);
+                })
+                .retry(MAX_CONFLICT_RETRIES, OptimisticLockingFailureException.class::isInstance)
+                .onErrorMap(OptimisticLockingFailureException.class, VendorService::conflict)
+                .doOnSuccessOrError((saved, error) -> vendorCache.invalidate(id));
+    }
+
+    /**
+     * Deletes the vendor, or fails with a 404 if there is none. Only a delete that removed it counts as a
+     * change to the collection.
+     */
+    public Mono<Void> delete(String id) {
+        // a buffered PUT written after the delete would bring the vendor back
+        return vendorWrites.flush(id)
+                .then(Mono.defer(() -> vendorRepository.deleteOne(id)))
+                .flatMap(deleted -> deleted > 0
+                        ? changeCounters.increment(Vendor.class)
+                        : Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Id not found for Vendor")))
+                .doFinally(signal -> vendorCache.invalidate(id))
+                .then();
+    }
+
+    /**
+     * Deletes every vendor matching the search. Deleting everything is not done by accident, so the search
+     * has to name a firstName or lastName; text search words are too loose a match to delete by.
+     */
+    public Mono<BulkDeleteResult> deleteAll(VendorSearch search) {
+        if(search.isEmpty() || StringUtils.hasText(search.getQ())) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Name a firstName or lastName to delete by"));
+        }
+
+        return Mono.defer(vendorWrites::flush)
+                .then(Mono.defer(() -> vendorRepository.deleteMatching(search)))
+                .flatMap(deleted -> deleted > 0 ? changeCounters.increment(Vendor.class).thenReturn(deleted) : Mono.just(deleted))
+                .doFinally(signal -> vendorCache.invalidateAll())
+                .map(BulkDeleteResult::new);
+    }
+
+    private Flux<Vendor> findPage(VendorSearch search, String after, Pageable pageable, Fields fields) {
+        if(!fields.isAll()) {
+            return vendorRepository.search(search, after, pageable, fields.getNames())
+                    .onErrorMap(IllegalArgumentException.class, VendorService::badCursor);
+        }
+        if(!search.isEmpty()) {
+            return vendorRepository.search(search, after, pageable)
+                    .onErrorMap(IllegalArgumentException.class, VendorService::badCursor);
+        }
+        if(after == null) {
+            return vendorRepository.findAllBy(pageable);
+        }
+        return vendorRepository.findByIdGreaterThan(after, pageable);
+    }
+
+    private Mono<Vendor> countChange(Vendor saved) {
+        return changeCounters.increment(Vendor.class).thenReturn(saved);
+    }
+
+    /**
+     * Copies every non-null field of the patch onto the stored vendor.
+     *
+     * @return true if any field changed and the vendor has to be saved
+     */
+    private static boolean merge(Vendor foundVendor, Vendor patch) {
+        boolean changed = false;
+
+        if(patch.getFirstName() != null && !patch.getFirstName().equals(foundVendor.getFirstName())) {
+            foundVendor.setFirstName(patch.getFirstName());
+            changed = true;
+        }
+
+        if(patch.getLastName() != null && !patch.getLastName().equals(foundVendor.getLastName())) {
+            foundVendor.setLastName(patch.getLastName());
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    private static ResponseStatusException badCursor(Throwable cause) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, cause.getMessage(), cause);
+    }
+
+    private static ResponseStatusException conflict(Throwable cause) {
+        return new ResponseStatusException(HttpStatus.CONFLICT, "Vendor was modified concurrently", cause);
+    }
+}
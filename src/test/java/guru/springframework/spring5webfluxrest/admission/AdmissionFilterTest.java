@@ -0,0 +1,124 @@
+package guru.springframework.spring5webfluxrest.admission;
+
+import guru.springframework.spring5webfluxrest.controllers.CategoryController;
+import guru.springframework.spring5webfluxrest.controllers.VendorController;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AdmissionFilterTest {
+    private static final InetSocketAddress PROXY = new InetSocketAddress("10.0.0.1", 40000);
+    private static final WebFilterChain OK = exchange -> Mono.empty();
+    private static final WebFilterChain NEVER_DONE = exchange -> Mono.never();
+
+    AdmissionProperties properties;
+    SimpleMeterRegistry registry;
+
+    @Before
+    public void setUp() throws Exception {
+        properties = new AdmissionProperties();
+        properties.setTrustedProxies(Collections.singletonList(PROXY.getAddress().getHostAddress()));
+        registry = new SimpleMeterRegistry();
+    }
+
+    private AdmissionFilter filter() {
+        AdmissionFilter filter = new AdmissionFilter(properties);
+        filter.bindTo(registry);
+        return filter;
+    }
+
+    @Test
+    public void clientOverItsRateGets429() {
+        properties.getVendors().setClientRate(1);
+        properties.getVendors().setClientBurst(2);
+        AdmissionFilter filter = filter();
+
+        assertNull(run(filter, get(VendorController.API_V1_VENDORS + "/a", "joe"), OK).getResponse().getStatusCode());
+        assertNull(run(filter, get(VendorController.API_V1_VENDORS + "/b", "joe"), OK).getResponse().getStatusCode());
+
+        MockServerWebExchange throttled = run(filter, get(VendorController.API_V1_VENDORS + "/c", "joe"), OK);
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, throttled.getResponse().getStatusCode());
+        assertEquals("1", throttled.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+        // another client and another route have buckets of their own
+        assertNull(run(filter, get(VendorController.API_V1_VENDORS + "/c", "jim"), OK).getResponse().getStatusCode());
+        assertNull(run(filter, get(CategoryController.API_V1_CATEGORIES, "joe"), OK).getResponse().getStatusCode());
+
+        assertEquals(1, registry.get(AdmissionFilter.THROTTLED_METRIC).tag("reason", "rate").counter().count(), 0);
+    }
+
+    @Test
+    public void listsOverTheLimitGet503UntilOneFinishes() {
+        properties.getCategories().setMaxConcurrentLists(1);
+        AdmissionFilter filter = filter();
+
+        MockServerWebExchange first = get(CategoryController.API_V1_CATEGORIES, "joe");
+        Disposable inProgress = filter.filter(first, NEVER_DONE).subscribe();
+
+        MockServerWebExchange busy = run(filter, get(CategoryController.API_V1_CATEGORIES, "jim"), OK);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, busy.getResponse().getStatusCode());
+        assertEquals("1", busy.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(1, registry.get(AdmissionFilter.CONCURRENT_METRIC).tag("uri", CategoryController.API_V1_CATEGORIES).tag("kind", "list").gauge().value(), 0);
+
+        // single documents are not held back by lists in progress
+        assertNull(run(filter, get(CategoryController.API_V1_CATEGORIES + "/a", "jim"), OK).getResponse().getStatusCode());
+
+        inProgress.dispose();
+        assertNull(run(filter, get(CategoryController.API_V1_CATEGORIES, "jim"), OK).getResponse().getStatusCode());
+    }
+
+    @Test
+    public void headerIsIgnoredUnlessSentByATrustedProxy() {
+        properties.setTrustedProxies(Collections.emptyList());
+        properties.getVendors().setClientRate(1);
+        properties.getVendors().setClientBurst(2);
+        AdmissionFilter filter = filter();
+        InetSocketAddress client = new InetSocketAddress("192.0.2.7", 50000);
+
+        // a new client id on every request still draws on the one bucket of the address
+        assertNull(run(filter, get(VendorController.API_V1_VENDORS + "/a", "id-1", client), OK).getResponse().getStatusCode());
+        assertNull(run(filter, get(VendorController.API_V1_VENDORS + "/a", "id-2", client), OK).getResponse().getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS,
+                run(filter, get(VendorController.API_V1_VENDORS + "/a", "id-3", client), OK).getResponse().getStatusCode());
+
+        assertNull(run(filter, get(VendorController.API_V1_VENDORS + "/a", "id-4", new InetSocketAddress("192.0.2.8", 50000)), OK)
+                .getResponse().getStatusCode());
+    }
+
+    @Test
+    public void otherPathsPassThrough() {
+        properties.getVendors().setClientRate(1);
+        properties.getVendors().setClientBurst(1);
+        AdmissionFilter filter = filter();
+
+        for(int i = 0; i < 3; i++) {
+            assertNull(run(filter, get("/actuator/health", "joe"), OK).getResponse().getStatusCode());
+        }
+    }
+
+    private static MockServerWebExchange get(String path, String client) {
+        return get(path, client, PROXY);
+    }
+
+    private static MockServerWebExchange get(String path, String client, InetSocketAddress remoteAddress) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path).header("X-Client-Id", client).remoteAddress(remoteAddress));
+    }
+
+    private static MockServerWebExchange run(AdmissionFilter filter, MockServerWebExchange exchange, WebFilterChain chain) {
+        filter.filter(exchange, chain).block();
+        return exchange;
+    }
+}
@@ -0,0 +1,139 @@
+package guru.springframework.spring5webfluxrest.bootstrap;
+
+import guru.springframework.spring5webfluxrest.domain.Category;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import guru.springframework.spring5webfluxrest.repositories.BulkWriteRepository;
+import guru.springframework.spring5webfluxrest.repositories.BulkWriteRepository.InsertResult;
+import guru.springframework.spring5webfluxrest.repositories.CategoryRepository;
+import guru.springframework.spring5webfluxrest.repositories.ChangeCounters;
+import guru.springframework.spring5webfluxrest.repositories.VendorRepository;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class BootstrapTest {
+
+    CategoryRepository categoryRepository;
+    VendorRepository vendorRepository;
+    BulkWriteRepository bulkWriteRepository;
+    ChangeCounters changeCounters;
+    BootstrapProperties properties;
+    Bootstrap bootstrap;
+
+    @Before
+    public void setUp() throws Exception {
+        categoryRepository = mock(CategoryRepository.class);
+        vendorRepository = mock(VendorRepository.class);
+        bulkWriteRepository = mock(BulkWriteRepository.class);
+        changeCounters = mock(ChangeCounters.class);
+        properties = new BootstrapProperties();
+        bootstrap = new Bootstrap(categoryRepository, vendorRepository, bulkWriteRepository, changeCounters, properties);
+
+        given(categoryRepository.findAllBy(any())).willReturn(Flux.empty());
+        given(vendorRepository.findAllBy(any())).willReturn(Flux.empty());
+        given(categoryRepository.existsById(anyString())).willReturn(Mono.just(false));
+        given(vendorRepository.existsById(anyString())).willReturn(Mono.just(false));
+        given(bulkWriteRepository.insertUnordered(any(), anyList()))
+                .willAnswer(invocation -> Mono.just(new InsertResult(invocation.<List<?>>getArgument(1).size(), 0)));
+        given(changeCounters.increment(any())).willReturn(Mono.just(1L));
+    }
+
+    @Test
+    public void seedsEmptyCollectionsWithOneBulkInsertEach() throws Exception {
+        bootstrap.run();
+
+        verify(bulkWriteRepository).insertUnordered(eq(Category.class), anyList());
+        verify(bulkWriteRepository).insertUnordered(eq(Vendor.class), anyList());
+        verify(changeCounters).increment(Category.class);
+        verify(changeCounters).increment(Vendor.class);
+    }
+
+    @Test
+    public void leavesCollectionsWithDocumentsAlone() throws Exception {
+        given(categoryRepository.findAllBy(any())).willReturn(Flux.just(Category.builder().description("Fruits").build()));
+
+        bootstrap.run();
+
+        verify(bulkWriteRepository, never()).insertUnordered(eq(Category.class), anyList());
+        verify(bulkWriteRepository).insertUnordered(eq(Vendor.class), anyList());
+        verify(changeCounters, never()).increment(Category.class);
+    }
+
+    @Test
+    public void generatesSyntheticDataInBoundedParallelBatches() throws Exception {
+        properties.getSynthetic().setVendors(2500);
+        properties.getSynthetic().setBatchSize(1000);
+        properties.getSynthetic().setParallelism(2);
+
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        given(bulkWriteRepository.insertUnordered(eq(Vendor.class), anyList())).willAnswer(invocation -> {
+            List<Vendor> batch = invocation.getArgument(1);
+            batch.forEach(vendor -> ids.add(vendor.getId()));
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            return Mono.delay(Duration.ofMillis(20))
+                    .map(tick -> new InsertResult(batch.size(), 0))
+                    .doFinally(signal -> inFlight.decrementAndGet());
+        });
+
+        bootstrap.run();
+
+        verify(bulkWriteRepository, times(3)).insertUnordered(eq(Vendor.class), anyList());
+        verify(bulkWriteRepository, never()).insertUnordered(eq(Category.class), anyList());
+        assertEquals(2500, ids.size());
+        assertTrue("max in flight " + maxInFlight.get(), maxInFlight.get() <= 2);
+    }
+
+    @Test
+    public void skipsSyntheticDataAlreadyWritten() throws Exception {
+        properties.getSynthetic().setVendors(2500);
+        given(vendorRepository.existsById(SyntheticData.id(2499))).willReturn(Mono.just(true));
+
+        bootstrap.run();
+
+        verify(bulkWriteRepository, never()).insertUnordered(any(), anyList());
+    }
+
+    @Test
+    public void returnsBeforeAsyncSeedingIsDone() throws Exception {
+        properties.setAsync(true);
+        MonoProcessor<InsertResult> written = MonoProcessor.create();
+        given(bulkWriteRepository.insertUnordered(eq(Vendor.class), anyList())).willReturn(written);
+
+        bootstrap.run();
+
+        verify(changeCounters, never()).increment(Vendor.class);
+        written.onNext(new InsertResult(6, 0));
+        verify(changeCounters).increment(Vendor.class);
+    }
+
+    @Test
+    public void doesNothingWhenDisabled() throws Exception {
+        properties.setEnabled(false);
+
+        bootstrap.run();
+
+        verify(bulkWriteRepository, never()).insertUnordered(any(), anyList());
+    }
+}
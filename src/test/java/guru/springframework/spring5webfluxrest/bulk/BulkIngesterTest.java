@@ -0,0 +1,125 @@
+package guru.springframework.spring5webfluxrest.bulk;
+
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import guru.springframework.spring5webfluxrest.repositories.BulkWriteRepository;
+import guru.springframework.spring5webfluxrest.repositories.BulkWriteRepository.InsertResult;
+import guru.springframework.spring5webfluxrest.repositories.BulkWriteRepository.ReplaceResult;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class BulkIngesterTest {
+
+    BulkWriteRepository bulkWriteRepository;
+    IngestionProperties properties;
+    BulkIngester bulkIngester;
+
+    @Before
+    public void setUp() throws Exception {
+        bulkWriteRepository = mock(BulkWriteRepository.class);
+        properties = new IngestionProperties();
+        properties.setBatchSize(100);
+        properties.setBatchTimeout(Duration.ofMinutes(1));
+        properties.setMaxInFlightBatches(2);
+        bulkIngester = new BulkIngester(bulkWriteRepository, properties);
+    }
+
+    @Test
+    public void groupsDocumentsIntoBatches() {
+        given(bulkWriteRepository.insertUnordered(eq(Vendor.class), anyList()))
+                .willAnswer(invocation -> Mono.just(new InsertResult(invocation.<List<?>>getArgument(1).size(), 0)));
+
+        List<BatchResult> results = bulkIngester.insert(Vendor.class, vendors(250)).collectList().block();
+
+        assertEquals(3, results.size());
+        assertEquals(250, results.stream().mapToInt(BatchResult::getAccepted).sum());
+        assertEquals(50, results.stream().filter(r -> r.getBatch() == 2).findFirst().get().getAccepted());
+    }
+
+    @Test
+    public void reportsRejectedDocuments() {
+        given(bulkWriteRepository.insertUnordered(eq(Vendor.class), anyList()))
+                .willReturn(Mono.just(new InsertResult(98, 2)));
+
+        BatchResult result = bulkIngester.insert(Vendor.class, vendors(100)).blockLast();
+
+        assertEquals(98, result.getAccepted());
+        assertEquals(2, result.getRejected());
+    }
+
+    @Test
+    public void upsertsInOneRoundTripPerBatch() {
+        given(bulkWriteRepository.replaceUnordered(eq(Vendor.class), anyList()))
+                .willAnswer(invocation -> Mono.just(new ReplaceResult(10, 5, invocation.<List<?>>getArgument(1).size() - 10, 0)));
+
+        for(int batchSize : new int[]{10, 100, 1000}) {
+            clearInvocations(bulkWriteRepository);
+            properties.setBatchSize(batchSize);
+
+            List<BatchResult> results = bulkIngester.replace(Vendor.class, vendors(1000)).collectList().block();
+
+            // writing 1000 documents takes 1000 / batchSize round trips to mongod
+            verify(bulkWriteRepository, times(1000 / batchSize)).replaceUnordered(eq(Vendor.class), anyList());
+            assertEquals(1000, results.stream().mapToInt(BatchResult::getAccepted).sum());
+            assertEquals(5, (int) results.get(0).getModified());
+        }
+    }
+
+    @Test
+    public void closesBatchWhenTimeoutHasPassed() {
+        properties.setBatchTimeout(Duration.ofMillis(20));
+        given(bulkWriteRepository.insertUnordered(eq(Vendor.class), anyList()))
+                .willAnswer(invocation -> Mono.just(new InsertResult(invocation.<List<?>>getArgument(1).size(), 0)));
+
+        List<BatchResult> results = bulkIngester.insert(Vendor.class,
+                vendors(3).delayElements(Duration.ofMillis(50))).collectList().block();
+
+        // every document arrives after the previous batch ran out of time
+        assertEquals(2, results.size());
+    }
+
+    @Test
+    public void boundsBatchesInFlightAndDocumentsRead() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        given(bulkWriteRepository.insertUnordered(eq(Vendor.class), anyList())).willAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            return Mono.<InsertResult>never();
+        });
+
+        AtomicLong read = new AtomicLong();
+        Flux<Vendor> endless = Flux.generate(sink -> {
+            read.incrementAndGet();
+            sink.next(Vendor.builder().lastName("Buck").build());
+        });
+
+        Disposable ingestion = bulkIngester.insert(Vendor.class, endless).subscribe();
+        Thread.sleep(200);
+        ingestion.dispose();
+
+        assertEquals(2, maxInFlight.get());
+        // two batches being written plus at most one being filled, never the whole endless stream
+        assertTrue("read " + read.get(), read.get() <= 3 * properties.getBatchSize() + 256);
+    }
+
+    private static Flux<Vendor> vendors(int count) {
+        return Flux.range(0, count).map(i -> Vendor.builder().firstName("Joe").lastName("Buck" + i).build());
+    }
+}
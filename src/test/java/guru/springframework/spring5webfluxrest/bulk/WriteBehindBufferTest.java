@@ -0,0 +1,139 @@
+package guru.springframework.spring5webfluxrest.bulk;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class WriteBehindBufferTest {
+
+    List<List<String>> batches;
+    MonoProcessor<Integer> writeDone;
+    int rejected;
+    WriteBehindProperties properties;
+    WriteBehindBuffer<String> buffer;
+
+    @Before
+    public void setUp() throws Exception {
+        batches = new CopyOnWriteArrayList<>();
+        writeDone = null;
+        rejected = 0;
+        properties = new WriteBehindProperties();
+        properties.setFlushInterval(Duration.ofHours(1));
+        properties.setMaxPending(2);
+        properties.setMaxWait(Duration.ofMillis(200));
+        buffer = new WriteBehindBuffer<>("things", document -> document.substring(0, document.indexOf(':')), this::write, properties);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        buffer.close();
+    }
+
+    private Mono<Integer> write(List<String> batch) {
+        batches.add(new ArrayList<>(batch));
+        return writeDone != null ? writeDone : Mono.just(batch.size() - rejected);
+    }
+
+    @Test
+    public void updatesToTheSameIdAreWrittenOnce() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        buffer.bindTo(registry);
+
+        StepVerifier.create(buffer.write("a:1").then(buffer.write("b:1")).then(buffer.write("a:2")).then(buffer.write("a:3")))
+                .verifyComplete();
+        buffer.flush().block();
+
+        assertEquals(Arrays.asList(Arrays.asList("a:3", "b:1")), batches);
+        assertEquals(4, registry.get("write.behind.updates").tag("outcome", "received").functionCounter().count(), 0);
+        assertEquals(2, registry.get("write.behind.updates").tag("outcome", "written").functionCounter().count(), 0);
+        assertEquals(0.5, registry.get("write.behind.coalescing.ratio").gauge().value(), 0);
+    }
+
+    @Test
+    public void updatesTheDatabaseRejectedCountAsFailed() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        buffer.bindTo(registry);
+        rejected = 1;
+
+        buffer.write("a:1").then(buffer.write("b:1")).block();
+        buffer.flush().block();
+
+        assertEquals(1, registry.get("write.behind.updates").tag("outcome", "written").functionCounter().count(), 0);
+        assertEquals(1, registry.get("write.behind.updates").tag("outcome", "failed").functionCounter().count(), 0);
+    }
+
+    @Test
+    public void fullBufferHoldsWritesBackUntilAFlushCompletes() {
+        writeDone = MonoProcessor.create();
+        buffer.write("a:1").then(buffer.write("b:1")).block();
+        buffer.flush();
+
+        buffer.write("c:1").then(buffer.write("d:1")).block();
+        MonoProcessor<Void> held = buffer.write("e:1").toProcessor();
+
+        assertFalse(held.isTerminated());
+        writeDone.onNext(2);
+        held.block(Duration.ofSeconds(1));
+
+        buffer.flush().block(Duration.ofSeconds(1));
+        assertEquals(Arrays.asList(Arrays.asList("a:1", "b:1"), Arrays.asList("c:1", "d:1"), Arrays.asList("e:1")), batches);
+    }
+
+    @Test
+    public void writeGivesUpWhenNoRoomIsMadeInTime() {
+        writeDone = MonoProcessor.create();
+        buffer.write("a:1").then(buffer.write("b:1")).block();
+        buffer.flush();
+        buffer.write("c:1").then(buffer.write("d:1")).block();
+
+        StepVerifier.create(buffer.write("e:1"))
+                .expectError(ResponseStatusException.class)
+                .verify(Duration.ofSeconds(1));
+
+        writeDone.onNext(2);
+    }
+
+    @Test
+    public void flushOfAnIdWaitsUntilItsUpdateIsWritten() {
+        writeDone = MonoProcessor.create();
+        buffer.write("a:1").block();
+        buffer.flush();
+        buffer.write("b:1").block();
+
+        MonoProcessor<Void> inFlight = buffer.flush("a").toProcessor();
+        MonoProcessor<Void> pending = buffer.flush("b").toProcessor();
+        StepVerifier.create(buffer.flush("c")).verifyComplete();
+        assertFalse(inFlight.isTerminated());
+
+        writeDone.onNext(1);
+        inFlight.block(Duration.ofSeconds(1));
+        pending.block(Duration.ofSeconds(1));
+        assertEquals(Arrays.asList(Arrays.asList("a:1"), Arrays.asList("b:1")), batches);
+    }
+
+    @Test
+    public void closeWritesWhatIsBuffered() {
+        buffer.write("a:1").then(buffer.write("b:1")).block();
+
+        buffer.close();
+
+        assertEquals(Arrays.asList(Arrays.asList("a:1", "b:1")), batches);
+        StepVerifier.create(buffer.write("c:1"))
+                .expectError(ResponseStatusException.class)
+                .verify();
+    }
+}
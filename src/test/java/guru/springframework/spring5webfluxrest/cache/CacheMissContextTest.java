@@ -0,0 +1,62 @@
+package guru.springframework.spring5webfluxrest.cache;
+
+import guru.springframework.spring5webfluxrest.bootstrap.Bootstrap;
+import guru.springframework.spring5webfluxrest.controllers.CategoryController;
+import guru.springframework.spring5webfluxrest.domain.Category;
+import guru.springframework.spring5webfluxrest.repositories.CategoryRepository;
+import guru.springframework.spring5webfluxrest.repositories.MongoIndexes;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.stream.StreamSupport;
+
+import static org.mockito.BDDMockito.given;
+
+/**
+ * Cache misses in the assembled application, with metrics and every other bean that schedules work
+ * in place. Mongo is not reached: the repository is mocked.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.mongo.embedded.EmbeddedMongoAutoConfiguration,"
+                + "org.springframework.boot.autoconfigure.data.mongo.MongoDataAutoConfiguration",
+        "spring.data.mongodb.uri=mongodb://127.0.0.1:1/test?serverSelectionTimeoutMS=200"})
+public class CacheMissContextTest {
+
+    @MockBean
+    Bootstrap bootstrap;
+
+    @MockBean
+    MongoIndexes mongoIndexes;
+
+    @MockBean
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Test
+    public void getByIdLoadsEveryMiss() {
+        given(categoryRepository.findAllById(ArgumentMatchers.<String>anyIterable())).willAnswer(invocation ->
+                Flux.fromStream(StreamSupport.stream(invocation.<Iterable<String>>getArgument(0).spliterator(), false))
+                        .map(id -> Category.builder().id(id).description("Fruits").build()));
+        WebTestClient client = webTestClient.mutate().responseTimeout(Duration.ofSeconds(5)).build();
+
+        for(String id : new String[]{"a", "b"}) {
+            client.get()
+                    .uri(CategoryController.API_V1_CATEGORIES + "/" + id)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.id").isEqualTo(id);
+        }
+    }
+}
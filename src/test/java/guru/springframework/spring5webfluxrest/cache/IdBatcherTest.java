@@ -0,0 +1,72 @@
+package guru.springframework.spring5webfluxrest.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+
+public class IdBatcherTest {
+
+    List<List<String>> queries;
+    IdBatcher<String> batcher;
+
+    @Before
+    public void setUp() throws Exception {
+        queries = new CopyOnWriteArrayList<>();
+        batcher = new IdBatcher<>(this::findAllById, value -> value.substring("value-".length()), 3, Duration.ofMillis(20));
+    }
+
+    private Flux<String> findAllById(Collection<String> ids) {
+        queries.add(new ArrayList<>(ids));
+        if(ids.contains("broken")) {
+            return Flux.error(new IllegalStateException("broken"));
+        }
+        return Flux.fromIterable(ids)
+                .filter(id -> !id.startsWith("missing"))
+                .map(id -> "value-" + id);
+    }
+
+    @Test
+    public void lookupsInOneWindowShareOneQuery() {
+        StepVerifier.create(Flux.mergeSequential(batcher.get("a"), batcher.get("b"), batcher.get("a")))
+                .expectNext("value-a", "value-b", "value-a")
+                .verifyComplete();
+
+        assertEquals(Arrays.asList(Arrays.asList("a", "b")), queries);
+    }
+
+    @Test
+    public void fullBatchIsQueriedAtOnce() {
+        StepVerifier.create(Flux.mergeSequential(batcher.get("a"), batcher.get("b"), batcher.get("c"), batcher.get("d")))
+                .expectNext("value-a", "value-b", "value-c", "value-d")
+                .verifyComplete();
+
+        assertEquals(Arrays.asList(Arrays.asList("a", "b", "c"), Arrays.asList("d")), queries);
+    }
+
+    @Test
+    public void missingIdIsEmpty() {
+        StepVerifier.create(Flux.mergeSequential(batcher.get("missing"), batcher.get("a")))
+                .expectNext("value-a")
+                .verifyComplete();
+    }
+
+    @Test
+    public void failedQueryFailsItsBatchOnly() {
+        StepVerifier.create(Flux.mergeSequential(batcher.get("broken"), batcher.get("a")))
+                .verifyErrorMessage("broken");
+
+        StepVerifier.create(batcher.get("a"))
+                .expectNext("value-a")
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,84 @@
+package guru.springframework.spring5webfluxrest.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class ReadThroughCacheTest {
+
+    AtomicInteger lookups;
+    ReadThroughCache<String> cache;
+
+    @Before
+    public void setUp() throws Exception {
+        lookups = new AtomicInteger();
+        cache = new ReadThroughCache<>("test", this::lookup, 2, Duration.ofMinutes(1));
+    }
+
+    private Mono<String> lookup(String id) {
+        lookups.incrementAndGet();
+        if(id.startsWith("missing")) {
+            return Mono.empty();
+        }
+        return Mono.just("value-" + id).delayElement(Duration.ofMillis(50));
+    }
+
+    @Test
+    public void concurrentMissesShareOneLookup() {
+        StepVerifier.create(Flux.merge(cache.get("a"), cache.get("a"), cache.get("a")))
+                .expectNext("value-a", "value-a", "value-a")
+                .verifyComplete();
+
+        assertEquals(1, lookups.get());
+        assertEquals(2, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    @Test
+    public void missingIdsAreNotCached() {
+        StepVerifier.create(cache.get("missing")).verifyComplete();
+        StepVerifier.create(cache.get("missing")).verifyComplete();
+
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void invalidateForcesLookup() {
+        cache.get("a").block();
+        cache.invalidate("a");
+        cache.get("a").block();
+
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void sizeBoundEvicts() {
+        Flux.just("a", "b", "c", "d").concatMap(cache::get).blockLast();
+
+        // eviction runs asynchronously; wait for it before looking at the counters
+        for(int i = 0; i < 100 && cache.estimatedSize() > 2; i++) {
+            Mono.delay(Duration.ofMillis(10)).block();
+        }
+
+        assertEquals(2, cache.estimatedSize());
+        assertEquals(2, cache.stats().evictionCount());
+    }
+
+    @Test
+    public void disabledCacheAlwaysLooksUp() {
+        ReadThroughCache<String> disabled = ReadThroughCache.disabled("test", this::lookup);
+
+        disabled.get("a").block();
+        disabled.get("a").block();
+
+        assertEquals(2, lookups.get());
+        assertEquals(0, disabled.stats().requestCount());
+    }
+}
@@ -0,0 +1,161 @@
+package guru.springframework.spring5webfluxrest.changes;
+
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.DirectProcessor;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ChangeFeedTest {
+    private static final String ID = "5eed00000000000000000001";
+
+    MappingMongoConverter converter;
+    ReactiveMongoOperations mongoOperations;
+    DirectProcessor<ChangeStreamEvent<Vendor>> changeStream;
+    ChangeFeedProperties properties;
+
+    @Before
+    public void setUp() throws Exception {
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        mongoOperations = mock(ReactiveMongoOperations.class);
+        changeStream = DirectProcessor.create();
+        given(mongoOperations.getCollectionName(Vendor.class)).willReturn("vendor");
+        given(mongoOperations.changeStream(anyString(), any(ChangeStreamOptions.class), eq(Vendor.class))).willReturn(changeStream);
+        properties = new ChangeFeedProperties();
+        properties.setEnabled(true);
+    }
+
+    @Test
+    public void subscribersShareOneChangeStream() {
+        ChangeFeed<Vendor> feed = new ChangeFeed<>("vendors", Vendor.class, mongoOperations, properties);
+        List<Change<Vendor>> first = new CopyOnWriteArrayList<>();
+        List<Change<Vendor>> second = new CopyOnWriteArrayList<>();
+        Disposable one = feed.changes(null).subscribe(first::add);
+        Disposable two = feed.changes(null).subscribe(second::add);
+
+        changeStream.onNext(event(OperationType.INSERT, "Buck"));
+        changeStream.onNext(event(OperationType.DELETE, null));
+        one.dispose();
+        two.dispose();
+
+        verify(mongoOperations, times(1)).changeStream(anyString(), any(ChangeStreamOptions.class), eq(Vendor.class));
+        assertEquals(first, second);
+        assertEquals("insert", first.get(0).getType());
+        assertEquals("Buck", first.get(0).getDocument().getLastName());
+        assertEquals(ID, first.get(1).getId());
+        assertNull(first.get(1).getDocument());
+    }
+
+    @Test
+    public void resumesAfterTheTokenOnItsOwnStream() {
+        ChangeFeed<Vendor> feed = new ChangeFeed<>("vendors", Vendor.class, mongoOperations, properties);
+        String token = Change.encodeToken(new BsonDocument("_data", new BsonString("0042")));
+
+        feed.changes(token).subscribe().dispose();
+
+        verify(mongoOperations).changeStream(eq("vendor"),
+                argThat(options -> options.getResumeToken().map(new BsonDocument("_data", new BsonString("0042"))::equals).orElse(false)),
+                eq(Vendor.class));
+    }
+
+    @Test
+    public void slowSubscriberIsCutOffWhenItsBufferIsFull() {
+        properties.setBufferSize(2);
+        ChangeFeed<Vendor> feed = new ChangeFeed<>("vendors", Vendor.class, mongoOperations, properties);
+
+        StepVerifier.create(feed.changes(null), 0)
+                .then(() -> {
+                    for(int n = 0; n < 3; n++) {
+                        changeStream.onNext(event(OperationType.UPDATE, "Buck " + n));
+                    }
+                })
+                .thenRequest(3)
+                // what was buffered is still delivered, then the stream ends for the client to resume
+                .expectNextCount(2)
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void slowSubscriberCanLoseChangesInstead() {
+        properties.setBufferSize(2);
+        properties.setOverflow(BufferOverflowStrategy.DROP_LATEST);
+        ChangeFeed<Vendor> feed = new ChangeFeed<>("vendors", Vendor.class, mongoOperations, properties);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        feed.bindTo(registry);
+
+        StepVerifier.create(feed.changes(null), 0)
+                .then(() -> {
+                    for(int n = 0; n < 3; n++) {
+                        changeStream.onNext(event(OperationType.UPDATE, "Buck " + n));
+                    }
+                })
+                .thenRequest(2)
+                .assertNext(change -> assertEquals("Buck 0", change.getDocument().getLastName()))
+                .assertNext(change -> assertEquals("Buck 1", change.getDocument().getLastName()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(1));
+
+        assertEquals(1, registry.get("change.feed.dropped").functionCounter().count(), 0);
+    }
+
+    @Test
+    public void sendsHeartbeatsWhileNothingChanges() {
+        properties.setHeartbeatInterval(Duration.ofMillis(20));
+        ChangeFeed<Vendor> feed = new ChangeFeed<>("vendors", Vendor.class, mongoOperations, properties);
+
+        StepVerifier.create(feed.changes(null).take(2))
+                .expectNextMatches(Change::isHeartbeat)
+                .expectNextMatches(Change::isHeartbeat)
+                .verifyComplete();
+    }
+
+    @Test
+    public void disabledFeedIsNotFound() {
+        StepVerifier.create(ChangeFeed.disabled("vendors").changes(null))
+                .expectError(ResponseStatusException.class)
+                .verify();
+    }
+
+    private ChangeStreamEvent<Vendor> event(OperationType type, String lastName) {
+        ObjectId id = new ObjectId(ID);
+        Document fullDocument = lastName != null ? new Document("_id", id).append("lastName", lastName) : null;
+        ChangeStreamDocument<Document> raw = new ChangeStreamDocument<>(new BsonDocument("_data", new BsonString(type + lastName)),
+                new MongoNamespace("test.vendor"), fullDocument, new BsonDocument("_id", new BsonObjectId(id)), type, null);
+        return new ChangeStreamEvent<>(raw, Vendor.class, converter);
+    }
+}
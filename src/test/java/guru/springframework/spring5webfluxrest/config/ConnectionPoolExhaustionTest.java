@@ -0,0 +1,75 @@
+package guru.springframework.spring5webfluxrest.config;
+
+import guru.springframework.spring5webfluxrest.controllers.CategoryController;
+import guru.springframework.spring5webfluxrest.controllers.SummaryController;
+import guru.springframework.spring5webfluxrest.domain.Category;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Against the embedded mongod, with a pool of one connection held by a slow query: a request needing
+ * another connection gets a 503 after the pool's wait time rather than after the query.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.mongo.pool.max-size=1",
+        "app.mongo.pool.max-wait-time=250ms"})
+public class ConnectionPoolExhaustionTest {
+    private static final long QUERY_MILLIS = 3000;
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Test
+    public void requestFailsFastWhenNoConnectionIsFree() throws InterruptedException {
+        Disposable slowQuery = Mono.from(mongoTemplate.getCollection(mongoTemplate.getCollectionName(Category.class))
+                .find(new Document("$where", "sleep(" + QUERY_MILLIS + ") || true"))
+                .first())
+                .subscribe();
+        try {
+            awaitConnectionCheckedOut();
+
+            long started = System.nanoTime();
+            webTestClient.get()
+                    .uri(CategoryController.API_V1_CATEGORIES + SummaryController.COUNT)
+                    .exchange()
+                    .expectStatus().isEqualTo(503)
+                    .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "1")
+                    .expectBody()
+                    .jsonPath("$.message").isEqualTo("Timed out waiting for a database connection");
+            long tookMillis = (System.nanoTime() - started) / 1_000_000;
+
+            assertTrue("answered after " + tookMillis + "ms", tookMillis < QUERY_MILLIS / 2);
+        } finally {
+            slowQuery.dispose();
+        }
+    }
+
+    private void awaitConnectionCheckedOut() throws InterruptedException {
+        for(int attempt = 0; attempt < 100; attempt++) {
+            if(registry.get("mongodb.driver.pool.checkedout").gauge().value() >= 1) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("The slow query never got a connection");
+    }
+}
@@ -0,0 +1,69 @@
+package guru.springframework.spring5webfluxrest.config;
+
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.MongoWaitQueueFullException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.test.StepVerifier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DatabaseBusyExceptionHandlerTest {
+
+    SimpleMeterRegistry registry;
+    DatabaseBusyExceptionHandler handler;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new SimpleMeterRegistry();
+        handler = new DatabaseBusyExceptionHandler();
+        handler.bindTo(registry);
+    }
+
+    @Test
+    public void exhaustedPoolGives503() {
+        assertUnavailable(new UncategorizedMongoDbException("wait queue full", new MongoWaitQueueFullException(
+                "Too many threads are already waiting for a connection. Max number of threads (maxWaitQueueSize) of 500 has been exceeded.")),
+                "Too many requests waiting for a database connection");
+        assertUnavailable(new DataAccessResourceFailureException("timeout", new MongoTimeoutException(
+                "Timed out after 250 ms while waiting for a connection to server localhost:27017.")),
+                "Timed out waiting for a database connection");
+        assertUnavailable(new MongoTimeoutException("Timed out after 5000 ms while waiting for a server that matches WritableServerSelector."),
+                "Timed out waiting for the database");
+
+        assertEquals(1, registry.get(DatabaseBusyExceptionHandler.REJECTED_METRIC).tag("reason", "wait-queue-full").counter().count(), 0);
+        assertEquals(1, registry.get(DatabaseBusyExceptionHandler.REJECTED_METRIC).tag("reason", "connection-timeout").counter().count(), 0);
+    }
+
+    @Test
+    public void otherErrorsPassThrough() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/summary"));
+        IllegalStateException error = new IllegalStateException();
+
+        StepVerifier.create(handler.handle(exchange, error))
+                .expectErrorMatches(e -> e == error)
+                .verify();
+        assertNull(exchange.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    private void assertUnavailable(Throwable error, String reason) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/summary"));
+
+        StepVerifier.create(handler.handle(exchange, error))
+                .expectErrorSatisfies(e -> {
+                    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ((ResponseStatusException) e).getStatus());
+                    assertEquals(reason, ((ResponseStatusException) e).getReason());
+                })
+                .verify();
+        assertEquals("1", exchange.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+}
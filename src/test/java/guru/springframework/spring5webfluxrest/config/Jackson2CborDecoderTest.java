@@ -0,0 +1,94 @@
+package guru.springframework.spring5webfluxrest.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Decodes from pooled Netty buffers, as the server hands them over, and checks that every buffer is
+ * back in the pool afterwards.
+ */
+public class Jackson2CborDecoderTest {
+    private static final ResolvableType VENDOR_TYPE = ResolvableType.forClass(Vendor.class);
+
+    ObjectMapper cbor;
+    NettyDataBufferFactory bufferFactory;
+    Jackson2CborDecoder decoder;
+
+    @Before
+    public void setUp() throws Exception {
+        cbor = new ObjectMapper(new CBORFactory());
+        bufferFactory = new NettyDataBufferFactory(new PooledByteBufAllocator(true));
+        decoder = new Jackson2CborDecoder(cbor, 1024, BinaryCodecCustomizer.APPLICATION_CBOR, BinaryCodecCustomizer.APPLICATION_CBOR_SEQ);
+    }
+
+    @Test
+    public void decodesSequenceSplitAcrossBuffers() throws Exception {
+        byte[] first = cbor.writeValueAsBytes(Vendor.builder().firstName("Joe").lastName("Buck").build());
+        byte[] second = cbor.writeValueAsBytes(Vendor.builder().firstName("Jim").lastName("Carey").build());
+        List<DataBuffer> buffers = Arrays.asList(
+                buffer(Arrays.copyOfRange(first, 0, 5)), buffer(Arrays.copyOfRange(first, 5, first.length)), buffer(second));
+
+        StepVerifier.create(decoder.decode(Flux.fromIterable(buffers), VENDOR_TYPE, BinaryCodecCustomizer.APPLICATION_CBOR_SEQ, Collections.emptyMap()))
+                .expectNextMatches(vendor -> "Buck".equals(((Vendor) vendor).getLastName()))
+                .expectNextMatches(vendor -> "Carey".equals(((Vendor) vendor).getLastName()))
+                .verifyComplete();
+
+        assertReleased(buffers);
+    }
+
+    @Test
+    public void releasesBufferWhenBodyIsUnreadable() {
+        List<DataBuffer> buffers = Collections.singletonList(buffer(new byte[]{(byte) 0xff, 0x01}));
+
+        StepVerifier.create(decoder.decodeToMono(Flux.fromIterable(buffers), VENDOR_TYPE, BinaryCodecCustomizer.APPLICATION_CBOR, Collections.emptyMap()))
+                .verifyError(DecodingException.class);
+
+        assertReleased(buffers);
+    }
+
+    @Test
+    public void rejectsBodyOverTheLimitWithoutReadingTheRest() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<DataBuffer> buffers = Arrays.asList(buffer(new byte[600]), buffer(new byte[600]));
+
+        StepVerifier.create(decoder.decode(Flux.fromIterable(buffers).concatWith(Flux.never()).doOnCancel(() -> cancelled.set(true)),
+                        VENDOR_TYPE, BinaryCodecCustomizer.APPLICATION_CBOR_SEQ, Collections.emptyMap()))
+                .expectErrorSatisfies(e -> assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, ((ResponseStatusException) e).getStatus()))
+                .verify(Duration.ofSeconds(1));
+
+        assertTrue(cancelled.get());
+        assertReleased(buffers);
+    }
+
+    private DataBuffer buffer(byte[] bytes) {
+        return bufferFactory.allocateBuffer(bytes.length).write(bytes);
+    }
+
+    private static void assertReleased(List<DataBuffer> buffers) {
+        for(DataBuffer buffer : buffers) {
+            assertEquals(0, ((NettyDataBuffer) buffer).getNativeBuffer().refCnt());
+        }
+    }
+}
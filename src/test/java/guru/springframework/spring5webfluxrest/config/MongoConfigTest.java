@@ -0,0 +1,81 @@
+package guru.springframework.spring5webfluxrest.config;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoNamespace;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+import org.bson.Document;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class MongoConfigTest {
+
+    MongoDriverProperties properties;
+
+    @Before
+    public void setUp() throws Exception {
+        properties = new MongoDriverProperties();
+    }
+
+    @Test
+    public void overridesWhatIsSetAndKeepsTheRestOfTheUri() {
+        properties.getPool().setMaxSize(20);
+        properties.getPool().setMaxWaitTime(Duration.ofMillis(250));
+        properties.setServerSelectionTimeout(Duration.ofSeconds(3));
+
+        MongoClientSettings.Builder builder = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString("mongodb://localhost/?maxPoolSize=50&waitQueueMultiple=2&connectTimeoutMS=1500"));
+        new MongoConfig().mongoDriverSettingsCustomizer(properties).customize(builder);
+        MongoClientSettings settings = builder.build();
+
+        assertEquals(20, settings.getConnectionPoolSettings().getMaxSize());
+        assertEquals(250, settings.getConnectionPoolSettings().getMaxWaitTime(TimeUnit.MILLISECONDS));
+        assertEquals(100, settings.getConnectionPoolSettings().getMaxWaitQueueSize());
+        assertEquals(1500, settings.getSocketSettings().getConnectTimeout(TimeUnit.MILLISECONDS));
+        assertEquals(3000, settings.getClusterSettings().getServerSelectionTimeout(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void appliesTheSettingsOfEachCollection() {
+        properties.setWriteConcern("majority");
+        MongoDriverProperties.CollectionSettings vendors = new MongoDriverProperties.CollectionSettings();
+        vendors.setReadPreference("secondaryPreferred");
+        properties.getCollections().put("vendor", vendors);
+
+        ReactiveMongoDatabaseFactory databaseFactory = mock(ReactiveMongoDatabaseFactory.class);
+        MongoDatabase database = mock(MongoDatabase.class);
+        MongoCollection<Document> vendor = mock(MongoCollection.class);
+        MongoCollection<Document> vendorSecondaries = mock(MongoCollection.class);
+        MongoCollection<Document> vendorMajority = mock(MongoCollection.class);
+        MongoCollection<Document> category = mock(MongoCollection.class);
+        MongoCollection<Document> categoryMajority = mock(MongoCollection.class);
+        given(databaseFactory.getMongoDatabase()).willReturn(database);
+        given(database.getCollection("vendor")).willReturn(vendor);
+        given(vendor.withReadPreference(ReadPreference.secondaryPreferred())).willReturn(vendorSecondaries);
+        given(vendorSecondaries.withWriteConcern(WriteConcern.MAJORITY)).willReturn(vendorMajority);
+        given(category.getNamespace()).willReturn(new MongoNamespace("test", "category"));
+        given(category.withWriteConcern(WriteConcern.MAJORITY)).willReturn(categoryMajority);
+
+        CollectionSettingsMongoTemplate template = new CollectionSettingsMongoTemplate(databaseFactory,
+                new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()), properties);
+
+        assertSame(vendorMajority, template.getCollection("vendor"));
+        assertSame(categoryMajority, template.prepareCollection(category));
+    }
+}
@@ -1,37 +1,72 @@
 package guru.springframework.spring5webfluxrest.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.springframework.spring5webfluxrest.bulk.BulkIngester;
+import guru.springframework.spring5webfluxrest.bulk.IngestionProperties;
+import guru.springframework.spring5webfluxrest.bulk.WriteBehindBuffer;
+import guru.springframework.spring5webfluxrest.cache.ReadThroughCache;
+import guru.springframework.spring5webfluxrest.config.StreamingJsonCodecCustomizer;
 import guru.springframework.spring5webfluxrest.domain.Category;
+import guru.springframework.spring5webfluxrest.repositories.BulkWriteRepository;
+import guru.springframework.spring5webfluxrest.repositories.BulkWriteRepository.InsertResult;
+import guru.springframework.spring5webfluxrest.repositories.ChangeCounters;
 import guru.springframework.spring5webfluxrest.repositories.CategoryRepository;
+import guru.springframework.spring5webfluxrest.services.CategoryService;
+import guru.springframework.spring5webfluxrest.repositories.CategorySearch;
 import org.junit.Before;
 import org.junit.Test;
-import org.reactivestreams.Publisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 public class CategoryControllerTest {
 
     WebTestClient webTestClient;
     CategoryRepository categoryRepository;
+    BulkWriteRepository bulkWriteRepository;
+    ChangeCounters changeCounters;
     CategoryController categoryController;
 
     @Before
     public void setUp() throws Exception {
         categoryRepository = mock(CategoryRepository.class);
-        categoryController = new CategoryController(categoryRepository);
-        webTestClient = WebTestClient.bindToController(categoryController).build();
+        bulkWriteRepository = mock(BulkWriteRepository.class);
+        changeCounters = mock(ChangeCounters.class);
+        given(changeCounters.get(any())).willReturn(Mono.just(0L));
+        given(changeCounters.increment(any())).willReturn(Mono.just(1L));
+        categoryController = new CategoryController(new CategoryService(categoryRepository,
+                ReadThroughCache.disabled("category", categoryRepository::findById),
+                new BulkIngester(bulkWriteRepository, new IngestionProperties()), WriteBehindBuffer.disabled("category"), changeCounters));
+        webTestClient = WebTestClient.bindToController(categoryController)
+                .httpMessageCodecs(new StreamingJsonCodecCustomizer(new ObjectMapper())::customize)
+                .build();
     }
 
     @Test
     public void list() {
-        given(categoryRepository.findAll())
+        given(categoryRepository.findAllBy(any(Pageable.class)))
                 .willReturn(Flux.just(Category.builder().description("Cat1").build(),
                         Category.builder().description("Cat2").build()));
 
@@ -39,6 +74,105 @@ public class CategoryControllerTest {
                 .exchange()
                 .expectBodyList(Category.class)
                 .hasSize(2);
+
+        verify(categoryRepository).findAllBy(argThat(pageable -> pageable.getPageSize() == 100));
+    }
+
+    @Test
+    public void listNotModifiedUntilCollectionChanges() {
+        AtomicBoolean read = new AtomicBoolean();
+        given(changeCounters.get(Category.class)).willReturn(Mono.just(7L));
+        given(categoryRepository.findAllBy(any(Pageable.class)))
+                .willReturn(Flux.just(Category.builder().description("Cat1").build()).doOnSubscribe(s -> read.set(true)));
+
+        webTestClient.get().uri(CategoryController.API_V1_CATEGORIES)
+                .ifNoneMatch("\"c7\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals("ETag", "\"c7\"");
+
+        assertFalse(read.get());
+
+        given(changeCounters.get(Category.class)).willReturn(Mono.just(8L));
+
+        webTestClient.get().uri(CategoryController.API_V1_CATEGORIES)
+                .ifNoneMatch("\"c7\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"c8\"")
+                .expectBodyList(Category.class)
+                .hasSize(1);
+    }
+
+    @Test
+    public void listAfter() {
+        given(categoryRepository.findByIdGreaterThan(anyString(), any(Pageable.class)))
+                .willReturn(Flux.just(Category.builder().id("b").description("Cat2").build()));
+
+        webTestClient.get().uri(CategoryController.API_V1_CATEGORIES + "?after=a&limit=10")
+                .exchange()
+                .expectBodyList(Category.class)
+                .hasSize(1);
+
+        verify(categoryRepository).findByIdGreaterThan(eq("a"), argThat(pageable -> pageable.getPageSize() == 10));
+    }
+
+    @Test
+    public void listByDescription() {
+        given(categoryRepository.search(any(CategorySearch.class), eq("a"), any(Pageable.class)))
+                .willReturn(Flux.just(Category.builder().id("b").description("Fruits").build()));
+
+        webTestClient.get().uri(CategoryController.API_V1_CATEGORIES + "?description=fruits&after=a")
+                .exchange()
+                .expectBodyList(Category.class)
+                .hasSize(1);
+
+        verify(categoryRepository).search(argThat(search -> "fruits".equals(search.getDescription())), eq("a"), any(Pageable.class));
+        verify(categoryRepository, never()).findByIdGreaterThan(anyString(), any(Pageable.class));
+    }
+
+    @Test
+    public void listLimitTooLarge() {
+        webTestClient.get().uri(CategoryController.API_V1_CATEGORIES + "?limit=1001")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+
+        verify(categoryRepository, never()).findAllBy(any(Pageable.class));
+    }
+
+    @Test
+    public void streamNdjson() {
+        given(categoryRepository.findAllBy(any(Pageable.class)))
+                .willReturn(Flux.just(Category.builder().id("a").description("Cat1").build(),
+                        Category.builder().id("b").description("Cat2").build()));
+
+        webTestClient.get().uri(CategoryController.API_V1_CATEGORIES)
+                .accept(StreamingJsonCodecCustomizer.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .contentTypeCompatibleWith(StreamingJsonCodecCustomizer.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .value(body -> assertEquals(2, body.trim().split("\n").length));
+    }
+
+    @Test
+    public void eventsResumeFromLastEventId() {
+        given(categoryRepository.findByIdGreaterThan(anyString(), any(Pageable.class)))
+                .willReturn(Flux.just(Category.builder().id("b").description("Cat2").build()));
+
+        webTestClient.get().uri(CategoryController.API_V1_CATEGORIES)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .header("Last-Event-ID", "a")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(String.class)
+                .value(body -> assertTrue(body.contains("id:b")));
+
+        verify(categoryRepository).findByIdGreaterThan(eq("a"), any(Pageable.class));
     }
 
     @Test
@@ -52,9 +186,66 @@ public class CategoryControllerTest {
                 .expectBody(Category.class);
     }
 
+    @Test
+    public void getByIdNotModified() {
+        given(categoryRepository.findById(anyString()))
+                .willReturn(Mono.just(Category.builder().id("someid").description("Cat").version(3L).build()));
+
+        webTestClient.get()
+                .uri(CategoryController.API_V1_CATEGORIES + "/someid")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"v3\"");
+
+        webTestClient.get()
+                .uri(CategoryController.API_V1_CATEGORIES + "/someid")
+                .ifNoneMatch("\"v3\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    public void getByIdIsCachedUntilUpdated() {
+        categoryController = new CategoryController(new CategoryService(categoryRepository,
+                new ReadThroughCache<>("category", categoryRepository::findById, 10, Duration.ofMinutes(1)),
+                new BulkIngester(bulkWriteRepository, new IngestionProperties()),
+                WriteBehindBuffer.disabled("categories"), changeCounters));
+        webTestClient = WebTestClient.bindToController(categoryController).build();
+
+        given(categoryRepository.findById(anyString()))
+                .willReturn(Mono.fromSupplier(() -> Category.builder().id("someid").description("Cat").version(1L).build()));
+        given(categoryRepository.save(any(Category.class))).willReturn(Mono.just(Category.builder().build()));
+
+        for(int i = 0; i < 3; i++) {
+            webTestClient.get()
+                    .uri(CategoryController.API_V1_CATEGORIES + "/someid")
+                    .exchange()
+                    .expectStatus()
+                    .isOk();
+        }
+        verify(categoryRepository, times(1)).findById("someid");
+
+        webTestClient.put()
+                .uri(CategoryController.API_V1_CATEGORIES + "/someid")
+                .body(Mono.just(Category.builder().description("Changed").build()), Category.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        webTestClient.get()
+                .uri(CategoryController.API_V1_CATEGORIES + "/someid")
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        // one read for the first GET, one inside PUT, one after PUT dropped the entry
+        verify(categoryRepository, times(3)).findById("someid");
+    }
+
     @Test
     public void testCreateCategory() {
-        given(categoryRepository.saveAll(any(Publisher.class))).willReturn(Flux.just(Category.builder().build()));
+        given(bulkWriteRepository.insertUnordered(eq(Category.class), anyList())).willReturn(Mono.just(new InsertResult(1, 0)));
 
         Mono<Category> categoryToSaveMono = Mono.just(Category.builder().description("Some category").build());
 
@@ -62,11 +253,30 @@ public class CategoryControllerTest {
                 .body(categoryToSaveMono, Category.class)
                 .exchange()
                 .expectStatus()
-                .isCreated();
+                .isCreated()
+                .expectBody()
+                .jsonPath("$[0].accepted").isEqualTo(1)
+                .jsonPath("$[0].rejected").isEqualTo(0);
+    }
+
+    @Test
+    public void testCreateCategoriesFromNdjson() {
+        given(bulkWriteRepository.insertUnordered(eq(Category.class), anyList()))
+                .willAnswer(invocation -> Mono.just(new InsertResult(invocation.<List<?>>getArgument(1).size(), 0)));
+
+        webTestClient.post().uri(CategoryController.API_V1_CATEGORIES)
+                .contentType(StreamingJsonCodecCustomizer.APPLICATION_NDJSON)
+                .syncBody("{\"description\":\"Fruits\"}\n{\"description\":\"Nuts\"}\n{\"description\":\"Breads\"}\n")
+                .exchange()
+                .expectStatus()
+                .isCreated()
+                .expectBody()
+                .jsonPath("$[0].accepted").isEqualTo(3);
     }
 
     @Test
     public void testUpdate() {
+        given(categoryRepository.findById(anyString())).willReturn(Mono.just(Category.builder().version(1L).build()));
         given(categoryRepository.save(any(Category.class))).willReturn(Mono.just(Category.builder().build()));
 
         Mono<Category> categoryToUpdateMono = Mono.just(Category.builder().description("Some category").build());
@@ -77,6 +287,8 @@ public class CategoryControllerTest {
                 .exchange()
                 .expectStatus()
                 .isOk();
+
+        verify(changeCounters).increment(Category.class);
     }
 
     @Test
@@ -129,4 +341,91 @@ public class CategoryControllerTest {
 
         verify(categoryRepository, never()).save(any());
     }
+
+    @Test
+    public void testUpdateNewId() {
+        given(categoryRepository.findById(anyString())).willReturn(Mono.empty());
+        given(categoryRepository.save(any(Category.class))).willReturn(Mono.just(Category.builder().build()));
+
+        Mono<Category> categoryToUpdateMono = Mono.just(Category.builder().description("Some category").build());
+
+        webTestClient.put()
+                .uri(CategoryController.API_V1_CATEGORIES + "/someid")
+                .body(categoryToUpdateMono, Category.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        verify(categoryRepository).save(argThat(category -> category.getVersion() == null));
+    }
+
+    @Test
+    public void testUpdateStaleVersion() {
+        given(categoryRepository.save(any(Category.class)))
+                .willReturn(Mono.error(new OptimisticLockingFailureException("stale")));
+
+        Mono<Category> categoryToUpdateMono = Mono.just(Category.builder().description("Some category").version(1L).build());
+
+        webTestClient.put()
+                .uri(CategoryController.API_V1_CATEGORIES + "/someid")
+                .body(categoryToUpdateMono, Category.class)
+                .exchange()
+                .expectStatus()
+                .isEqualTo(HttpStatus.CONFLICT);
+
+        verify(categoryRepository, never()).findById(anyString());
+    }
+
+    @Test
+    public void testPatchNotFound() {
+        given(categoryRepository.findById(anyString())).willReturn(Mono.empty());
+
+        Mono<Category> categoryToPatchMono = Mono.just(Category.builder().description("Some category").build());
+
+        webTestClient.patch()
+                .uri(CategoryController.API_V1_CATEGORIES + "/someid")
+                .body(categoryToPatchMono, Category.class)
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+
+        verify(categoryRepository, never()).save(any());
+    }
+
+    @Test
+    public void testPatchRetriesConcurrentModification() {
+        given(categoryRepository.findById(anyString()))
+                .willReturn(Mono.fromSupplier(() -> Category.builder().description("something").version(1L).build()));
+        given(categoryRepository.save(any(Category.class)))
+                .willReturn(Mono.error(new OptimisticLockingFailureException("stale")))
+                .willReturn(Mono.just(Category.builder().description("Some category").version(2L).build()));
+
+        Mono<Category> categoryToPatchMono = Mono.just(Category.builder().description("Some category").build());
+
+        webTestClient.patch()
+                .uri(CategoryController.API_V1_CATEGORIES + "/someid")
+                .body(categoryToPatchMono, Category.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+
+        verify(categoryRepository, times(2)).save(any());
+    }
+
+    @Test
+    public void testPatchStaleVersion() {
+        given(categoryRepository.findById(anyString()))
+                .willReturn(Mono.just(Category.builder().description("something").version(2L).build()));
+
+        Mono<Category> categoryToPatchMono = Mono.just(Category.builder().description("Some category").version(1L).build());
+
+        webTestClient.patch()
+                .uri(CategoryController.API_V1_CATEGORIES + "/someid")
+                .body(categoryToPatchMono, Category.class)
+                .exchange()
+                .expectStatus()
+                .isEqualTo(HttpStatus.CONFLICT);
+
+        verify(categoryRepository, never()).save(any());
+    }
 }
\ No newline at end of file
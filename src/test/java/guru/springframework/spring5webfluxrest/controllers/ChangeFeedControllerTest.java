@@ -0,0 +1,67 @@
+package guru.springframework.spring5webfluxrest.controllers;
+
+import guru.springframework.spring5webfluxrest.changes.Change;
+import guru.springframework.spring5webfluxrest.changes.ChangeFeed;
+import guru.springframework.spring5webfluxrest.domain.Category;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class ChangeFeedControllerTest {
+
+    WebTestClient webTestClient;
+    ChangeFeed<Category> categoryChanges;
+    ChangeFeed<Vendor> vendorChanges;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        categoryChanges = mock(ChangeFeed.class);
+        vendorChanges = mock(ChangeFeed.class);
+        webTestClient = WebTestClient.bindToController(new ChangeFeedController(categoryChanges, vendorChanges)).build();
+
+        given(vendorChanges.changes(any())).willReturn(Flux.just(
+                Change.<Vendor>builder().token("t1").type("insert").id("v1").document(Vendor.builder().id("v1").lastName("Buck").build()).build(),
+                Change.heartbeat(),
+                Change.<Vendor>builder().token("t2").type("delete").id("v2").build()));
+    }
+
+    @Test
+    public void testVendorChangesAsEvents() {
+        String body = webTestClient.get().uri(VendorController.API_V1_VENDORS + ChangeFeedController.CHANGES)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .header("Last-Event-ID", "t0")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+
+        verify(vendorChanges).changes("t0");
+        assertTrue(body, body.contains("id:t1\nevent:insert\ndata:{\"token\":\"t1\",\"type\":\"insert\",\"id\":\"v1\""));
+        assertTrue(body, body.contains(":heartbeat\n"));
+        assertTrue(body, body.contains("id:t2\nevent:delete\n"));
+    }
+
+    @Test
+    public void testVendorChangesAsNdjson() {
+        webTestClient.get().uri(VendorController.API_V1_VENDORS + ChangeFeedController.CHANGES + "?after=t0")
+                .accept(MediaType.APPLICATION_STREAM_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(Change.class)
+                .hasSize(3);
+
+        verify(vendorChanges).changes("t0");
+    }
+}
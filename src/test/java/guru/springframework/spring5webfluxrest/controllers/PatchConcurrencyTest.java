@@ -0,0 +1,154 @@
+package guru.springframework.spring5webfluxrest.controllers;
+
+import guru.springframework.spring5webfluxrest.bulk.BulkIngester;
+import guru.springframework.spring5webfluxrest.bulk.WriteBehindBuffer;
+import guru.springframework.spring5webfluxrest.cache.ReadThroughCache;
+import guru.springframework.spring5webfluxrest.domain.Category;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import guru.springframework.spring5webfluxrest.repositories.CategoryRepository;
+import guru.springframework.spring5webfluxrest.repositories.ChangeCounters;
+import guru.springframework.spring5webfluxrest.repositories.VendorRepository;
+import guru.springframework.spring5webfluxrest.services.CategoryService;
+import guru.springframework.spring5webfluxrest.services.VendorService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.config.EnableWebFlux;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs many concurrent PATCH requests through a real Reactor Netty server. The repositories answer
+ * asynchronously, so a handler that blocks on them would fail with Reactor's "block() is not
+ * supported" error on the event-loop threads.
+ */
+public class PatchConcurrencyTest {
+
+    private static final int CONCURRENT_REQUESTS = 200;
+    private static final Duration REPOSITORY_LATENCY = Duration.ofMillis(20);
+
+    AnnotationConfigApplicationContext context;
+    DisposableServer server;
+    WebClient webClient;
+    CategoryRepository categoryRepository;
+    VendorRepository vendorRepository;
+    AtomicInteger eventLoopCalls;
+
+    @Before
+    public void setUp() throws Exception {
+        categoryRepository = mock(CategoryRepository.class);
+        vendorRepository = mock(VendorRepository.class);
+        eventLoopCalls = new AtomicInteger();
+        ChangeCounters changeCounters = mock(ChangeCounters.class);
+        given(changeCounters.increment(any())).willReturn(Mono.just(1L));
+
+        context = new AnnotationConfigApplicationContext();
+        context.register(WebConfig.class);
+        context.registerBean(CategoryController.class, () -> new CategoryController(new CategoryService(categoryRepository,
+                ReadThroughCache.disabled("category", categoryRepository::findById), mock(BulkIngester.class),
+                WriteBehindBuffer.disabled("category"), changeCounters)));
+        context.registerBean(VendorController.class, () -> new VendorController(new VendorService(vendorRepository,
+                ReadThroughCache.disabled("vendor", vendorRepository::findById), mock(BulkIngester.class),
+                WriteBehindBuffer.disabled("vendor"), changeCounters)));
+        context.refresh();
+
+        server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .handle(new ReactorHttpHandlerAdapter(WebHttpHandlerBuilder.applicationContext(context).build()))
+                .bindNow();
+        webClient = WebClient.create("http://" + server.host() + ":" + server.port());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.disposeNow();
+        context.close();
+    }
+
+    @Test
+    public void concurrentVendorPatchesNeverBlockTheEventLoop() {
+        given(vendorRepository.findById(anyString())).willAnswer(invocation -> {
+            recordCallingThread();
+            return Mono.delay(REPOSITORY_LATENCY)
+                    .map(tick -> Vendor.builder().id(invocation.getArgument(0)).firstName("Jimmy").lastName("Buffet").build());
+        });
+        given(vendorRepository.save(any(Vendor.class))).willAnswer(invocation -> {
+            recordCallingThread();
+            return Mono.delay(REPOSITORY_LATENCY).map(tick -> invocation.getArgument(0));
+        });
+
+        List<HttpStatus> statuses = patchConcurrently(VendorController.API_V1_VENDORS,
+                Vendor.builder().firstName("Jim").lastName("Carey").build());
+
+        assertAllOk(statuses);
+    }
+
+    @Test
+    public void concurrentCategoryPatchesNeverBlockTheEventLoop() {
+        given(categoryRepository.findById(anyString())).willAnswer(invocation -> {
+            recordCallingThread();
+            return Mono.delay(REPOSITORY_LATENCY)
+                    .map(tick -> Category.builder().id(invocation.getArgument(0)).description("Fruits").build());
+        });
+        given(categoryRepository.save(any(Category.class))).willAnswer(invocation -> {
+            recordCallingThread();
+            return Mono.delay(REPOSITORY_LATENCY).map(tick -> invocation.getArgument(0));
+        });
+
+        List<HttpStatus> statuses = patchConcurrently(CategoryController.API_V1_CATEGORIES,
+                Category.builder().description("Nuts").build());
+
+        assertAllOk(statuses);
+    }
+
+    private List<HttpStatus> patchConcurrently(String path, Object body) {
+        return Flux.range(0, CONCURRENT_REQUESTS)
+                .flatMap(i -> webClient.patch()
+                        .uri(path + "/{id}", "id" + i)
+                        .syncBody(body)
+                        .exchange()
+                        .flatMap(response -> response.toEntity(String.class))
+                        .map(entity -> entity.getStatusCode()), CONCURRENT_REQUESTS)
+                .collectList()
+                .block(Duration.ofSeconds(30));
+    }
+
+    private void recordCallingThread() {
+        if(Schedulers.isInNonBlockingThread()) {
+            eventLoopCalls.incrementAndGet();
+        }
+    }
+
+    private void assertAllOk(List<HttpStatus> statuses) {
+        assertEquals(CONCURRENT_REQUESTS, statuses.size());
+        statuses.forEach(status -> assertEquals(HttpStatus.OK, status));
+        // the handlers really did run on non-blocking threads, so any block() would have been rejected
+        assertTrue(eventLoopCalls.get() >= CONCURRENT_REQUESTS);
+    }
+
+    @Configuration
+    @EnableWebFlux
+    static class WebConfig {
+    }
+}
@@ -0,0 +1,78 @@
+package guru.springframework.spring5webfluxrest.controllers;
+
+import guru.springframework.spring5webfluxrest.cache.ReadThroughCache;
+import guru.springframework.spring5webfluxrest.repositories.InitialCount;
+import guru.springframework.spring5webfluxrest.repositories.SummaryRepository;
+import guru.springframework.spring5webfluxrest.services.SummaryService;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class SummaryControllerTest {
+
+    SummaryRepository summaryRepository;
+    WebTestClient webTestClient;
+
+    @Before
+    public void setUp() throws Exception {
+        summaryRepository = mock(SummaryRepository.class);
+        given(summaryRepository.collectionName(any())).willAnswer(invocation ->
+                invocation.<Class<?>>getArgument(0).getSimpleName().toLowerCase());
+
+        SummaryService summaryService = new SummaryService(summaryRepository,
+                new ReadThroughCache<>("counts", summaryRepository::estimatedCount, 16, Duration.ofMinutes(1)),
+                new ReadThroughCache<>("lastNameInitials", collectionName -> summaryRepository.countVendorsByLastNameInitial().collectList(),
+                        16, Duration.ofMinutes(1)));
+        webTestClient = WebTestClient.bindToController(new SummaryController(summaryService)).build();
+    }
+
+    @Test
+    public void countVendors() {
+        given(summaryRepository.estimatedCount("vendor")).willReturn(Mono.just(2500L));
+
+        webTestClient.get().uri(VendorController.API_V1_VENDORS + SummaryController.COUNT)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(2500);
+    }
+
+    @Test
+    public void countVendorsByLastNameInitial() {
+        given(summaryRepository.countVendorsByLastNameInitial())
+                .willReturn(Flux.just(new InitialCount("B", 2), new InitialCount("W", 1)));
+
+        webTestClient.get().uri(VendorController.API_V1_VENDORS + SummaryController.LAST_NAME_INITIALS)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].initial").isEqualTo("B")
+                .jsonPath("$[0].count").isEqualTo(2)
+                .jsonPath("$[1].initial").isEqualTo("W");
+    }
+
+    @Test
+    public void countsAreCachedBetweenPolls() {
+        given(summaryRepository.estimatedCount(anyString())).willReturn(Mono.just(10L));
+
+        for(int i = 0; i < 3; i++) {
+            webTestClient.get().uri(CategoryController.API_V1_CATEGORIES + SummaryController.COUNT)
+                    .exchange()
+                    .expectBody()
+                    .jsonPath("$.count").isEqualTo(10);
+        }
+
+        verify(summaryRepository, times(1)).estimatedCount("category");
+    }
+}
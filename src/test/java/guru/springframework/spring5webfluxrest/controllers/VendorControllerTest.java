@@ -1,39 +1,84 @@
 package guru.springframework.spring5webfluxrest.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import guru.springframework.spring5webfluxrest.bulk.BulkIngester;
+import guru.springframework.spring5webfluxrest.bulk.IngestionProperties;
+import guru.springframework.spring5webfluxrest.bulk.WriteBehindBuffer;
+import guru.springframework.spring5webfluxrest.bulk.WriteBehindProperties;
+import guru.springframework.spring5webfluxrest.cache.ReadThroughCache;
+import guru.springframework.spring5webfluxrest.config.BinaryCodecCustomizer;
+import guru.springframework.spring5webfluxrest.config.CodecProperties;
+import guru.springframework.spring5webfluxrest.config.StreamingJsonCodecCustomizer;
 import guru.springframework.spring5webfluxrest.domain.Category;
 import guru.springframework.spring5webfluxrest.domain.Vendor;
+import guru.springframework.spring5webfluxrest.repositories.BulkWriteRepository;
+import guru.springframework.spring5webfluxrest.repositories.BulkWriteRepository.InsertResult;
+import guru.springframework.spring5webfluxrest.repositories.BulkWriteRepository.ReplaceResult;
+import guru.springframework.spring5webfluxrest.repositories.ChangeCounters;
 import guru.springframework.spring5webfluxrest.repositories.VendorRepository;
+import guru.springframework.spring5webfluxrest.services.VendorService;
+import guru.springframework.spring5webfluxrest.repositories.VendorSearch;
 import org.junit.Before;
 import org.junit.Test;
-import org.reactivestreams.Publisher;
+import org.mockito.InOrder;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.List;
+
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 public class VendorControllerTest {
 
     VendorRepository vendorRepository;
+    BulkWriteRepository bulkWriteRepository;
+    ChangeCounters changeCounters;
     VendorController vendorController;
     WebTestClient webTestClient;
 
     @Before
     public void setUp() throws Exception {
         vendorRepository = mock(VendorRepository.class);
-        vendorController = new VendorController(vendorRepository);
-        webTestClient = WebTestClient.bindToController(vendorController).build();
+        bulkWriteRepository = mock(BulkWriteRepository.class);
+        changeCounters = mock(ChangeCounters.class);
+        given(changeCounters.get(any())).willReturn(Mono.just(0L));
+        given(changeCounters.increment(any())).willReturn(Mono.just(1L));
+        vendorController = new VendorController(new VendorService(vendorRepository,
+                ReadThroughCache.disabled("vendor", vendorRepository::findById),
+                new BulkIngester(bulkWriteRepository, new IngestionProperties()), WriteBehindBuffer.disabled("vendor"), changeCounters));
+        webTestClient = WebTestClient.bindToController(vendorController)
+                .httpMessageCodecs(configurer -> {
+                    new StreamingJsonCodecCustomizer(new ObjectMapper()).customize(configurer);
+                    new BinaryCodecCustomizer(new Jackson2ObjectMapperBuilder(), new CodecProperties()).customize(configurer);
+                })
+                .build();
     }
 
     @Test
     public void testList() {
-        given(vendorRepository.findAll()).willReturn(Flux.just(Vendor.builder().firstName("Joe").lastName("Buck").build(),
+        given(vendorRepository.findAllBy(any(Pageable.class))).willReturn(Flux.just(Vendor.builder().firstName("Joe").lastName("Buck").build(),
                 Vendor.builder().firstName("Kayne").lastName("West").build()));
 
         webTestClient.get().uri(VendorController.API_V1_VENDORS)
@@ -42,6 +87,114 @@ public class VendorControllerTest {
                 .hasSize(2);
     }
 
+    @Test
+    public void testListAfter() {
+        given(vendorRepository.findByIdGreaterThan(anyString(), any(Pageable.class)))
+                .willReturn(Flux.just(Vendor.builder().id("b").firstName("Kayne").lastName("West").build()));
+
+        webTestClient.get().uri(VendorController.API_V1_VENDORS + "?after=a&limit=1")
+                .exchange()
+                .expectBodyList(Vendor.class)
+                .hasSize(1);
+
+        verify(vendorRepository).findByIdGreaterThan(eq("a"), argThat(pageable -> pageable.getPageSize() == 1));
+    }
+
+    @Test
+    public void testListByName() {
+        given(vendorRepository.search(any(VendorSearch.class), any(), any(Pageable.class)))
+                .willReturn(Flux.just(Vendor.builder().firstName("Joe").lastName("Buck").build()));
+
+        webTestClient.get().uri(VendorController.API_V1_VENDORS + "?firstName=Joe&lastName=Bu*&q=buck")
+                .exchange()
+                .expectBodyList(Vendor.class)
+                .hasSize(1);
+
+        verify(vendorRepository).search(argThat(search -> "Joe".equals(search.getFirstName())
+                && "Bu*".equals(search.getLastName()) && "buck".equals(search.getQ())), eq(null), any(Pageable.class));
+    }
+
+    @Test
+    public void testListFields() {
+        given(vendorRepository.search(any(VendorSearch.class), any(), any(Pageable.class), anyCollection()))
+                .willReturn(Flux.just(Vendor.builder().id("a").lastName("Buck").build()));
+
+        webTestClient.get().uri(VendorController.API_V1_VENDORS + "?fields=lastName")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$[0].id").isEqualTo("a")
+                .jsonPath("$[0].lastName").isEqualTo("Buck")
+                .jsonPath("$[0].firstName").doesNotExist();
+
+        verify(vendorRepository).search(any(VendorSearch.class), eq(null), any(Pageable.class),
+                argThat(fields -> fields.size() == 2 && fields.contains("id") && fields.contains("lastName")));
+        verify(vendorRepository, never()).findAllBy(any(Pageable.class));
+    }
+
+    @Test
+    public void testListUnknownField() {
+        webTestClient.get().uri(VendorController.API_V1_VENDORS + "?fields=lastName,password")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+
+        verify(vendorRepository, never()).search(any(VendorSearch.class), any(), any(Pageable.class), anyCollection());
+    }
+
+    @Test
+    public void testStreamFields() {
+        given(vendorRepository.search(any(VendorSearch.class), any(), any(Pageable.class), anyCollection()))
+                .willReturn(Flux.just(Vendor.builder().id("a").lastName("Buck").build()));
+
+        webTestClient.get().uri(VendorController.API_V1_VENDORS + "?fields=lastName")
+                .accept(StreamingJsonCodecCustomizer.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(String.class)
+                .isEqualTo("{\"id\":\"a\",\"lastName\":\"Buck\"}\n");
+
+        verify(vendorRepository).search(any(VendorSearch.class), eq(null), any(Pageable.class),
+                argThat(fields -> fields.size() == 2 && fields.contains("id") && fields.contains("lastName")));
+        verify(vendorRepository, never()).findAllBy(any(Pageable.class));
+    }
+
+    @Test
+    public void testStreamNdjson() {
+        given(vendorRepository.findAllBy(any(Pageable.class))).willReturn(Flux.just(Vendor.builder().firstName("Joe").lastName("Buck").build(),
+                Vendor.builder().firstName("Kayne").lastName("West").build()));
+
+        webTestClient.get().uri(VendorController.API_V1_VENDORS)
+                .accept(StreamingJsonCodecCustomizer.APPLICATION_NDJSON)
+                .exchange()
+                .expectHeader()
+                .contentTypeCompatibleWith(StreamingJsonCodecCustomizer.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .value(body -> assertEquals(2, body.trim().split("\n").length));
+
+        verify(vendorRepository).findAllBy(argThat(pageable -> pageable.getPageSize() == Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testStreamSmile() throws Exception {
+        given(vendorRepository.findAllBy(any(Pageable.class))).willReturn(Flux.just(Vendor.builder().firstName("Joe").lastName("Buck").build(),
+                Vendor.builder().firstName("Kayne").lastName("West").build()));
+
+        byte[] body = webTestClient.get().uri(VendorController.API_V1_VENDORS)
+                .accept(BinaryCodecCustomizer.APPLICATION_STREAM_SMILE)
+                .exchange()
+                .expectHeader()
+                .contentTypeCompatibleWith(BinaryCodecCustomizer.APPLICATION_STREAM_SMILE)
+                .expectBody(byte[].class)
+                .returnResult().getResponseBody();
+
+        List<Vendor> vendors = new ObjectMapper(new SmileFactory()).readerFor(Vendor.class).<Vendor>readValues(body).readAll();
+        assertEquals(2, vendors.size());
+        assertEquals("West", vendors.get(1).getLastName());
+    }
+
     @Test
     public void testGetById() {
         given(vendorRepository.findById(anyString())).willReturn(Mono.just(Vendor.builder().firstName("Kayne").lastName("West").build()));
@@ -52,10 +205,48 @@ public class VendorControllerTest {
 
     }
 
+    @Test
+    public void testGetByIdFields() {
+        given(vendorRepository.findById(anyString()))
+                .willReturn(Mono.just(Vendor.builder().id("someid").firstName("Kayne").lastName("West").version(3L).build()));
+
+        webTestClient.get().uri(VendorController.API_V1_VENDORS + "/someid?fields=firstName")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .valueEquals("ETag", "\"v3\"")
+                .expectBody()
+                .jsonPath("$.id").isEqualTo("someid")
+                .jsonPath("$.firstName").isEqualTo("Kayne")
+                .jsonPath("$.lastName").doesNotExist()
+                .jsonPath("$.version").doesNotExist();
+    }
+
+    @Test
+    public void testGetByIdTaggedPerDocumentType() {
+        given(vendorRepository.findById(anyString()))
+                .willReturn(Mono.just(Vendor.builder().id("someid").firstName("Kayne").lastName("West").version(3L).build()));
+
+        webTestClient.get().uri(VendorController.API_V1_VENDORS + "/someid")
+                .accept(BinaryCodecCustomizer.APPLICATION_CBOR)
+                .ifNoneMatch("\"v3\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"v3-cbor\"")
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+
+        webTestClient.get().uri(VendorController.API_V1_VENDORS + "/someid")
+                .accept(BinaryCodecCustomizer.APPLICATION_CBOR)
+                .ifNoneMatch("\"v3-cbor\"")
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
     @Test
     public void testCreateVendor() {
-        given(vendorRepository.saveAll(any(Publisher.class)))
-                .willReturn(Flux.just(Vendor.builder().build()));
+        given(bulkWriteRepository.insertUnordered(eq(Vendor.class), anyList()))
+                .willReturn(Mono.just(new InsertResult(1, 0)));
 
         Mono<Vendor> vendorToSaveMono = Mono.just(Vendor.builder().firstName("Jim").lastName("Carey").build());
 
@@ -63,11 +254,124 @@ public class VendorControllerTest {
                 .body(vendorToSaveMono, Vendor.class)
                 .exchange()
                 .expectStatus()
-                .isCreated();
+                .isCreated()
+                .expectBody()
+                .jsonPath("$[0].accepted").isEqualTo(1);
+    }
+
+    @Test
+    public void testGetByIdAsCbor() throws Exception {
+        given(vendorRepository.findById(anyString())).willReturn(Mono.just(Vendor.builder().firstName("Kayne").lastName("West").build()));
+
+        byte[] body = webTestClient.get().uri(VendorController.API_V1_VENDORS + "/someid")
+                .accept(BinaryCodecCustomizer.APPLICATION_CBOR)
+                .exchange()
+                .expectHeader()
+                .contentType(BinaryCodecCustomizer.APPLICATION_CBOR)
+                .expectBody(byte[].class)
+                .returnResult().getResponseBody();
+
+        assertEquals("West", new ObjectMapper(new CBORFactory()).readValue(body, Vendor.class).getLastName());
+    }
+
+    @Test
+    public void testCreateVendorsFromCborSequence() throws Exception {
+        given(bulkWriteRepository.insertUnordered(eq(Vendor.class), anyList()))
+                .willAnswer(invocation -> Mono.just(new InsertResult(invocation.<List<?>>getArgument(1).size(), 0)));
+
+        ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+        ByteArrayOutputStream sequence = new ByteArrayOutputStream();
+        sequence.write(cbor.writeValueAsBytes(Vendor.builder().firstName("Jim").lastName("Carey").build()));
+        sequence.write(cbor.writeValueAsBytes(Vendor.builder().firstName("Joe").lastName("Buck").build()));
+
+        byte[] body = webTestClient.post().uri(VendorController.API_V1_VENDORS)
+                .contentType(BinaryCodecCustomizer.APPLICATION_CBOR_SEQ)
+                .accept(BinaryCodecCustomizer.APPLICATION_CBOR)
+                .syncBody(sequence.toByteArray())
+                .exchange()
+                .expectStatus()
+                .isCreated()
+                .expectBody(byte[].class)
+                .returnResult().getResponseBody();
+
+        assertEquals(2, cbor.readTree(body).get(0).get("accepted").asInt());
+    }
+
+    @Test
+    public void testUpsertVendors() {
+        given(bulkWriteRepository.replaceUnordered(eq(Vendor.class), anyList()))
+                .willReturn(Mono.just(new ReplaceResult(1, 1, 1, 0)));
+
+        webTestClient.put().uri(VendorController.API_V1_VENDORS)
+                .body(Flux.just(Vendor.builder().id("v1").firstName("Jim").lastName("Carey").build(),
+                        Vendor.builder().firstName("Joe").lastName("Buck").build()), Vendor.class)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$[0].accepted").isEqualTo(2)
+                .jsonPath("$[0].matched").isEqualTo(1)
+                .jsonPath("$[0].modified").isEqualTo(1)
+                .jsonPath("$[0].upserted").isEqualTo(1);
+
+        verify(changeCounters).increment(Vendor.class);
+    }
+
+    @Test
+    public void testDeleteVendor() {
+        given(vendorRepository.deleteOne(anyString())).willReturn(Mono.just(1L));
+
+        webTestClient.delete().uri(VendorController.API_V1_VENDORS + "/someid")
+                .exchange()
+                .expectStatus()
+                .isNoContent();
+
+        verify(vendorRepository).deleteOne("someid");
+        verify(changeCounters).increment(Vendor.class);
+    }
+
+    @Test
+    public void testDeleteMissingVendor() {
+        given(vendorRepository.deleteOne(anyString())).willReturn(Mono.just(0L));
+
+        webTestClient.delete().uri(VendorController.API_V1_VENDORS + "/someid")
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+
+        verify(changeCounters, never()).increment(any());
+    }
+
+    @Test
+    public void testDeleteVendorsByLastName() {
+        given(vendorRepository.deleteMatching(any(VendorSearch.class))).willReturn(Mono.just(3L));
+
+        webTestClient.delete().uri(VendorController.API_V1_VENDORS + "?lastName=Buck")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$.deleted").isEqualTo(3);
+
+        verify(vendorRepository).deleteMatching(argThat(search -> "Buck".equals(search.getLastName())));
+    }
+
+    @Test
+    public void testDeleteVendorsNeedsAFilter() {
+        for(String query : new String[]{"", "?q=buck"}) {
+            webTestClient.delete().uri(VendorController.API_V1_VENDORS + query)
+                    .exchange()
+                    .expectStatus()
+                    .isBadRequest();
+        }
+
+        verify(vendorRepository, never()).deleteMatching(any());
     }
 
     @Test
     public void testUpdate() {
+        given(vendorRepository.findById(anyString()))
+                .willReturn(Mono.just(Vendor.builder().version(1L).build()));
         given(vendorRepository.save(any(Vendor.class)))
                 .willReturn(Mono.just(Vendor.builder().build()));
 
@@ -79,6 +383,92 @@ public class VendorControllerTest {
                 .expectStatus()
                 .isOk();
     }
+
+    @Test
+    public void testUpdateWritesBehind() {
+        WriteBehindBuffer<Vendor> vendorWrites = writingBehind();
+
+        for(String lastName : new String[]{"Carey", "Carrey"}) {
+            webTestClient.put().uri(VendorController.API_V1_VENDORS + "/someid")
+                    .body(Mono.just(Vendor.builder().firstName("Jim").lastName(lastName).build()), Vendor.class)
+                    .exchange()
+                    .expectStatus()
+                    .isAccepted();
+        }
+        verify(vendorRepository, never()).save(any());
+
+        vendorWrites.close();
+
+        verify(bulkWriteRepository).replaceUnordered(eq(Vendor.class),
+                argThat(batch -> batch.size() == 1 && "Carrey".equals(((Vendor) batch.get(0)).getLastName())));
+    }
+
+    @Test
+    public void testDeleteWritesBufferedUpdateFirst() {
+        WriteBehindBuffer<Vendor> vendorWrites = writingBehind();
+        given(vendorRepository.deleteOne(anyString())).willReturn(Mono.just(1L));
+
+        putBehind("someid", "Carey");
+        webTestClient.delete().uri(VendorController.API_V1_VENDORS + "/someid")
+                .exchange()
+                .expectStatus()
+                .isNoContent();
+        vendorWrites.close();
+
+        // the buffered PUT is written before the delete, and not again after it
+        InOrder inOrder = inOrder(bulkWriteRepository, vendorRepository);
+        inOrder.verify(bulkWriteRepository).replaceUnordered(eq(Vendor.class), anyList());
+        inOrder.verify(vendorRepository).deleteOne("someid");
+        verify(bulkWriteRepository, times(1)).replaceUnordered(eq(Vendor.class), anyList());
+    }
+
+    @Test
+    public void testPatchReadsBufferedUpdate() {
+        WriteBehindBuffer<Vendor> vendorWrites = writingBehind();
+        given(vendorRepository.findById(anyString()))
+                .willReturn(Mono.just(Vendor.builder().id("someid").firstName("Jim").lastName("Carey").build()));
+        given(vendorRepository.save(any(Vendor.class))).willAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        putBehind("someid", "Carey");
+        webTestClient.patch().uri(VendorController.API_V1_VENDORS + "/someid")
+                .body(Mono.just(Vendor.builder().firstName("James").build()), Vendor.class)
+                .exchange()
+                .expectStatus()
+                .isOk();
+        vendorWrites.close();
+
+        InOrder inOrder = inOrder(bulkWriteRepository, vendorRepository);
+        inOrder.verify(bulkWriteRepository).replaceUnordered(eq(Vendor.class), anyList());
+        inOrder.verify(vendorRepository).findById("someid");
+        inOrder.verify(vendorRepository).save(argThat(vendor -> "James".equals(vendor.getFirstName())));
+        verify(bulkWriteRepository, times(1)).replaceUnordered(eq(Vendor.class), anyList());
+    }
+
+    /**
+     * Rebinds the client to a service buffering unconditional PUTs until the buffer is flushed or closed.
+     */
+    private WriteBehindBuffer<Vendor> writingBehind() {
+        WriteBehindProperties properties = new WriteBehindProperties();
+        properties.setFlushInterval(Duration.ofHours(1));
+        WriteBehindBuffer<Vendor> vendorWrites = new WriteBehindBuffer<>("vendor", Vendor::getId,
+                batch -> bulkWriteRepository.replaceUnordered(Vendor.class, batch).map(ReplaceResult::getWritten), properties);
+        webTestClient = WebTestClient.bindToController(new VendorController(new VendorService(vendorRepository,
+                ReadThroughCache.disabled("vendor", vendorRepository::findById),
+                new BulkIngester(bulkWriteRepository, new IngestionProperties()), vendorWrites, changeCounters)))
+                .build();
+        given(bulkWriteRepository.replaceUnordered(eq(Vendor.class), anyList()))
+                .willAnswer(invocation -> Mono.just(new ReplaceResult(0, 0, invocation.<List<?>>getArgument(1).size(), 0)));
+        return vendorWrites;
+    }
+
+    private void putBehind(String id, String lastName) {
+        webTestClient.put().uri(VendorController.API_V1_VENDORS + "/" + id)
+                .body(Mono.just(Vendor.builder().firstName("Jim").lastName(lastName).build()), Vendor.class)
+                .exchange()
+                .expectStatus()
+                .isAccepted();
+    }
+
     @Test
     public void testPatchVendorWithChanges() {
         given(vendorRepository.findById(anyString()))
@@ -100,7 +490,7 @@ public class VendorControllerTest {
     @Test
     public void testPatchVendorNoChanges() {
         given(vendorRepository.findById(anyString()))
-                .willReturn(Mono.just(Vendor.builder().firstName("Jim").build()));
+                .willReturn(Mono.just(Vendor.builder().firstName("Jim").lastName("Carey").build()));
         given(vendorRepository.save(any(Vendor.class)))
                 .willReturn(Mono.just(Vendor.builder().build()));
 
@@ -114,4 +504,58 @@ public class VendorControllerTest {
 
         verify(vendorRepository, never()).save(any());
     }
+
+    @Test
+    public void testPatchVendorLastName() {
+        given(vendorRepository.findById(anyString()))
+                .willReturn(Mono.just(Vendor.builder().firstName("Jim").lastName("Carrey").build()));
+        given(vendorRepository.save(any(Vendor.class)))
+                .willAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        Mono<Vendor> vendorToUpdateMono = Mono.just(Vendor.builder().lastName("Carey").build());
+
+        webTestClient.patch().uri(VendorController.API_V1_VENDORS + "/someid")
+                .body(vendorToUpdateMono, Vendor.class)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$.firstName").isEqualTo("Jim")
+                .jsonPath("$.lastName").isEqualTo("Carey");
+
+        verify(vendorRepository).save(any());
+    }
+
+    @Test
+    public void testPatchVendorNotFound() {
+        given(vendorRepository.findById(anyString())).willReturn(Mono.empty());
+
+        Mono<Vendor> vendorToUpdateMono = Mono.just(Vendor.builder().firstName("Jim").build());
+
+        webTestClient.patch().uri(VendorController.API_V1_VENDORS + "/someid")
+                .body(vendorToUpdateMono, Vendor.class)
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+
+        verify(vendorRepository, never()).save(any());
+    }
+
+    @Test
+    public void testPatchVendorGivesUpAfterRepeatedConflicts() {
+        given(vendorRepository.findById(anyString()))
+                .willReturn(Mono.fromSupplier(() -> Vendor.builder().firstName("Jimmy").version(1L).build()));
+        given(vendorRepository.save(any(Vendor.class)))
+                .willReturn(Mono.error(new OptimisticLockingFailureException("stale")));
+
+        Mono<Vendor> vendorToUpdateMono = Mono.just(Vendor.builder().firstName("Jim").build());
+
+        webTestClient.patch().uri(VendorController.API_V1_VENDORS + "/someid")
+                .body(vendorToUpdateMono, Vendor.class)
+                .exchange()
+                .expectStatus()
+                .isEqualTo(HttpStatus.CONFLICT);
+
+        verify(vendorRepository, times(4)).save(any());
+    }
 }
\ No newline at end of file
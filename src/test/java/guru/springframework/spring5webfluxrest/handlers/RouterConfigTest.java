@@ -0,0 +1,433 @@
+package guru.springframework.spring5webfluxrest.handlers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import guru.springframework.spring5webfluxrest.bulk.BulkIngester;
+import guru.springframework.spring5webfluxrest.bulk.IngestionProperties;
+import guru.springframework.spring5webfluxrest.bulk.WriteBehindBuffer;
+import guru.springframework.spring5webfluxrest.cache.ReadThroughCache;
+import guru.springframework.spring5webfluxrest.changes.ChangeFeed;
+import guru.springframework.spring5webfluxrest.config.BinaryCodecCustomizer;
+import guru.springframework.spring5webfluxrest.config.CodecProperties;
+import guru.springframework.spring5webfluxrest.config.StreamingJsonCodecCustomizer;
+import guru.springframework.spring5webfluxrest.controllers.CategoryController;
+import guru.springframework.spring5webfluxrest.controllers.ChangeFeedController;
+import guru.springframework.spring5webfluxrest.controllers.SummaryController;
+import guru.springframework.spring5webfluxrest.controllers.VendorController;
+import guru.springframework.spring5webfluxrest.domain.Category;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import guru.springframework.spring5webfluxrest.repositories.BulkWriteRepository;
+import guru.springframework.spring5webfluxrest.repositories.BulkWriteRepository.InsertResult;
+import guru.springframework.spring5webfluxrest.repositories.ChangeCounters;
+import guru.springframework.spring5webfluxrest.repositories.CategoryRepository;
+import guru.springframework.spring5webfluxrest.repositories.CategorySearch;
+import guru.springframework.spring5webfluxrest.repositories.SummaryRepository;
+import guru.springframework.spring5webfluxrest.repositories.VendorRepository;
+import guru.springframework.spring5webfluxrest.services.CategoryService;
+import guru.springframework.spring5webfluxrest.services.Count;
+import guru.springframework.spring5webfluxrest.services.SummaryService;
+import guru.springframework.spring5webfluxrest.services.VendorService;
+import guru.springframework.spring5webfluxrest.repositories.VendorSearch;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class RouterConfigTest {
+
+    CategoryRepository categoryRepository;
+    VendorRepository vendorRepository;
+    BulkWriteRepository bulkWriteRepository;
+    ChangeCounters changeCounters;
+    SummaryRepository summaryRepository;
+    WebTestClient webTestClient;
+
+    @Before
+    public void setUp() throws Exception {
+        categoryRepository = mock(CategoryRepository.class);
+        vendorRepository = mock(VendorRepository.class);
+        bulkWriteRepository = mock(BulkWriteRepository.class);
+        changeCounters = mock(ChangeCounters.class);
+        given(changeCounters.get(any())).willReturn(Mono.just(0L));
+        given(changeCounters.increment(any())).willReturn(Mono.just(1L));
+        BulkIngester bulkIngester = new BulkIngester(bulkWriteRepository, new IngestionProperties());
+
+        RouterConfig routerConfig = new RouterConfig();
+        CategoryHandler categoryHandler = routerConfig.categoryHandler(new CategoryService(categoryRepository,
+                ReadThroughCache.disabled("category", categoryRepository::findById), bulkIngester,
+                WriteBehindBuffer.disabled("category"), changeCounters));
+        VendorHandler vendorHandler = routerConfig.vendorHandler(new VendorService(vendorRepository,
+                ReadThroughCache.disabled("vendor", vendorRepository::findById), bulkIngester,
+                WriteBehindBuffer.disabled("vendor"), changeCounters));
+        ChangeFeedHandler changeFeedHandler = routerConfig.changeFeedHandler(ChangeFeed.disabled("category"), ChangeFeed.disabled("vendor"));
+        summaryRepository = mock(SummaryRepository.class);
+        given(summaryRepository.collectionName(any())).willAnswer(invocation ->
+                invocation.<Class<?>>getArgument(0).getSimpleName().toLowerCase());
+        SummaryHandler summaryHandler = routerConfig.summaryHandler(new SummaryService(summaryRepository,
+                ReadThroughCache.disabled("counts", summaryRepository::estimatedCount),
+                ReadThroughCache.disabled("lastNameInitials", collectionName -> summaryRepository.countVendorsByLastNameInitial().collectList())));
+
+        webTestClient = WebTestClient
+                .bindToRouterFunction(routerConfig.changeFeedRoutes(changeFeedHandler)
+                        .and(routerConfig.summaryRoutes(summaryHandler))
+                        .and(routerConfig.categoryRoutes(categoryHandler))
+                        .and(routerConfig.vendorRoutes(vendorHandler)))
+                .handlerStrategies(HandlerStrategies.builder()
+                        .codecs(configurer -> {
+                            new StreamingJsonCodecCustomizer(new ObjectMapper()).customize(configurer);
+                            new BinaryCodecCustomizer(new Jackson2ObjectMapperBuilder(), new CodecProperties()).customize(configurer);
+                        })
+                        .build())
+                .build();
+    }
+
+    @Test
+    public void list() {
+        given(categoryRepository.findAllBy(any(Pageable.class)))
+                .willReturn(Flux.just(Category.builder().description("Cat1").build(),
+                        Category.builder().description("Cat2").build()));
+
+        webTestClient.get().uri(CategoryController.API_V1_CATEGORIES)
+                .exchange()
+                .expectHeader()
+                .contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBodyList(Category.class)
+                .hasSize(2);
+
+        verify(categoryRepository).findAllBy(argThat(pageable -> pageable.getPageSize() == 100));
+    }
+
+    @Test
+    public void listAsCbor() throws Exception {
+        given(categoryRepository.findAllBy(any(Pageable.class)))
+                .willReturn(Flux.just(Category.builder().description("Cat1").build(),
+                        Category.builder().description("Cat2").build()));
+
+        byte[] body = webTestClient.get().uri(CategoryController.API_V1_CATEGORIES)
+                .accept(BinaryCodecCustomizer.APPLICATION_CBOR)
+                .exchange()
+                .expectHeader()
+                .contentType(BinaryCodecCustomizer.APPLICATION_CBOR)
+                .expectBody(byte[].class)
+                .returnResult().getResponseBody();
+
+        Category[] categories = new ObjectMapper(new CBORFactory()).readValue(body, Category[].class);
+        assertEquals("Cat2", categories[1].getDescription());
+    }
+
+    @Test
+    public void listAfter() {
+        given(vendorRepository.findByIdGreaterThan(anyString(), any(Pageable.class)))
+                .willReturn(Flux.just(Vendor.builder().id("b").firstName("Kayne").lastName("West").build()));
+
+        webTestClient.get().uri(VendorController.API_V1_VENDORS + "?after=a&limit=1")
+                .exchange()
+                .expectBodyList(Vendor.class)
+                .hasSize(1);
+
+        verify(vendorRepository).findByIdGreaterThan(eq("a"), argThat(pageable -> pageable.getPageSize() == 1));
+    }
+
+    @Test
+    public void listByName() {
+        given(vendorRepository.search(any(VendorSearch.class), any(), any(Pageable.class)))
+                .willReturn(Flux.just(Vendor.builder().firstName("Joe").lastName("Buck").build()));
+
+        webTestClient.get().uri(VendorController.API_V1_VENDORS + "?lastName=Buck")
+                .accept(StreamingJsonCodecCustomizer.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk();
+
+        verify(vendorRepository).search(argThat(search -> "Buck".equals(search.getLastName())), eq(null), any(Pageable.class));
+    }
+
+    @Test
+    public void listFields() {
+        given(categoryRepository.search(any(CategorySearch.class), any(), any(Pageable.class), anyCollection()))
+                .willReturn(Flux.just(Category.builder().id("a").build()));
+
+        webTestClient.get().uri(CategoryController.API_V1_CATEGORIES + "?fields=id")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].id").isEqualTo("a")
+                .jsonPath("$[0].description").doesNotExist();
+
+        verify(categoryRepository).search(any(CategorySearch.class), eq(null), any(Pageable.class),
+                argThat(fields -> fields.size() == 1 && fields.contains("id")));
+
+        webTestClient.get().uri(CategoryController.API_V1_CATEGORIES + "/someid?fields=name")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void listRejectsBadLimits() {
+        webTestClient.get().uri(CategoryController.API_V1_CATEGORIES + "?limit=1001")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+
+        webTestClient.get().uri(CategoryController.API_V1_CATEGORIES + "?limit=ten")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+
+        verify(categoryRepository, never()).findAllBy(any(Pageable.class));
+    }
+
+    @Test
+    public void listInUnsupportedType() {
+        webTestClient.get().uri(VendorController.API_V1_VENDORS)
+                .accept(MediaType.APPLICATION_XML)
+                .exchange()
+                .expectStatus()
+                .isEqualTo(HttpStatus.NOT_ACCEPTABLE);
+    }
+
+    @Test
+    public void streamNdjson() {
+        given(vendorRepository.findAllBy(any(Pageable.class)))
+                .willReturn(Flux.just(Vendor.builder().id("a").lastName("Buck").build(),
+                        Vendor.builder().id("b").lastName("West").build()));
+
+        webTestClient.get().uri(VendorController.API_V1_VENDORS)
+                .accept(StreamingJsonCodecCustomizer.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .contentTypeCompatibleWith(StreamingJsonCodecCustomizer.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .value(body -> assertEquals(2, body.trim().split("\n").length));
+    }
+
+    @Test
+    public void streamJson() {
+        given(vendorRepository.findAllBy(any(Pageable.class)))
+                .willReturn(Flux.just(Vendor.builder().id("a").lastName("Buck").build()));
+
+        webTestClient.get().uri(VendorController.API_V1_VENDORS)
+                .accept(MediaType.APPLICATION_STREAM_JSON)
+                .exchange()
+                .expectHeader()
+                .contentTypeCompatibleWith(MediaType.APPLICATION_STREAM_JSON);
+    }
+
+    @Test
+    public void eventsResumeFromLastEventId() {
+        given(categoryRepository.findByIdGreaterThan(anyString(), any(Pageable.class)))
+                .willReturn(Flux.just(Category.builder().id("b").description("Cat2").build()));
+
+        webTestClient.get().uri(CategoryController.API_V1_CATEGORIES)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .header("Last-Event-ID", "a")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(String.class)
+                .value(body -> assertTrue(body.contains("id:b")));
+
+        verify(categoryRepository).findByIdGreaterThan(eq("a"), any(Pageable.class));
+    }
+
+    @Test
+    public void eventsWithFields() {
+        given(categoryRepository.search(any(CategorySearch.class), eq("a"), any(Pageable.class), anyCollection()))
+                .willReturn(Flux.just(Category.builder().id("b").build()));
+
+        webTestClient.get().uri(CategoryController.API_V1_CATEGORIES + "?fields=id")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .header("Last-Event-ID", "a")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(String.class)
+                .value(body -> assertTrue(body.contains("id:b")));
+
+        verify(categoryRepository).search(any(CategorySearch.class), eq("a"), any(Pageable.class),
+                argThat(fields -> fields.size() == 1 && fields.contains("id")));
+        verify(categoryRepository, never()).findByIdGreaterThan(anyString(), any(Pageable.class));
+    }
+
+    @Test
+    public void changesWhenTheFeedIsOff() {
+        webTestClient.get().uri(VendorController.API_V1_VENDORS + ChangeFeedController.CHANGES)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+
+        verify(vendorRepository, never()).findById(anyString());
+    }
+
+    @Test
+    public void getById() {
+        given(vendorRepository.findById("someid"))
+                .willReturn(Mono.just(Vendor.builder().id("someid").firstName("Jimmy").lastName("Buffett").build()));
+
+        webTestClient.get().uri(VendorController.API_V1_VENDORS + "/someid")
+                .exchange()
+                .expectBody()
+                .jsonPath("$.firstName").isEqualTo("Jimmy");
+    }
+
+    @Test
+    public void getByIdNotModified() {
+        given(vendorRepository.findById("someid"))
+                .willReturn(Mono.just(Vendor.builder().id("someid").firstName("Jimmy").lastName("Buffett").version(2L).build()));
+
+        webTestClient.get().uri(VendorController.API_V1_VENDORS + "/someid")
+                .ifNoneMatch("W/\"v2\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals("ETag", "\"v2\"")
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    public void listTaggedPerDocumentType() {
+        given(changeCounters.get(Vendor.class)).willReturn(Mono.just(5L));
+        given(vendorRepository.findAllBy(any(Pageable.class))).willReturn(Flux.empty());
+
+        webTestClient.get().uri(VendorController.API_V1_VENDORS)
+                .accept(BinaryCodecCustomizer.APPLICATION_SMILE)
+                .ifNoneMatch("\"c5\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"c5-smile\"")
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    }
+
+    @Test
+    public void countAsCbor() throws Exception {
+        given(summaryRepository.estimatedCount("vendor")).willReturn(Mono.just(2500L));
+
+        byte[] body = webTestClient.get().uri(VendorController.API_V1_VENDORS + SummaryController.COUNT)
+                .accept(BinaryCodecCustomizer.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(BinaryCodecCustomizer.APPLICATION_CBOR)
+                .expectBody(byte[].class)
+                .returnResult().getResponseBody();
+
+        assertEquals(2500, new ObjectMapper(new CBORFactory()).readValue(body, Count.class).getCount());
+    }
+
+    @Test
+    public void deleteMissingCategory() {
+        given(categoryRepository.deleteOne("someid")).willReturn(Mono.just(0L));
+
+        webTestClient.delete().uri(CategoryController.API_V1_CATEGORIES + "/someid")
+                .exchange()
+                .expectStatus().isNotFound();
+
+        verify(changeCounters, never()).increment(any());
+    }
+
+    @Test
+    public void listNotModified() {
+        given(changeCounters.get(Vendor.class)).willReturn(Mono.just(5L));
+
+        webTestClient.get().uri(VendorController.API_V1_VENDORS)
+                .accept(MediaType.APPLICATION_JSON)
+                .ifNoneMatch("\"c5\"")
+                .exchange()
+                .expectStatus().isNotModified();
+
+        verify(vendorRepository, never()).findAllBy(any(Pageable.class));
+    }
+
+    @Test
+    public void createFromNdjson() {
+        given(bulkWriteRepository.insertUnordered(eq(Category.class), anyList()))
+                .willAnswer(invocation -> Mono.just(new InsertResult(invocation.<List<?>>getArgument(1).size(), 0)));
+
+        webTestClient.post().uri(CategoryController.API_V1_CATEGORIES)
+                .contentType(StreamingJsonCodecCustomizer.APPLICATION_NDJSON)
+                .syncBody("{\"description\":\"Fruits\"}\n{\"description\":\"Nuts\"}\n")
+                .exchange()
+                .expectStatus()
+                .isCreated()
+                .expectBody()
+                .jsonPath("$[0].accepted").isEqualTo(2);
+    }
+
+    @Test
+    public void update() {
+        given(vendorRepository.findById(anyString())).willReturn(Mono.just(Vendor.builder().version(1L).build()));
+        given(vendorRepository.save(any(Vendor.class))).willAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        webTestClient.put().uri(VendorController.API_V1_VENDORS + "/someid")
+                .body(Mono.just(Vendor.builder().firstName("Jim").lastName("Carey").build()), Vendor.class)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo("someid")
+                .jsonPath("$.version").isEqualTo(1);
+    }
+
+    @Test
+    public void updateWithUnreadableBody() {
+        webTestClient.put().uri(VendorController.API_V1_VENDORS + "/someid")
+                .contentType(MediaType.APPLICATION_JSON)
+                .syncBody("{\"firstName\":")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+
+        verify(vendorRepository, never()).save(any());
+    }
+
+    @Test
+    public void patchNotFound() {
+        given(categoryRepository.findById(anyString())).willReturn(Mono.empty());
+
+        webTestClient.patch().uri(CategoryController.API_V1_CATEGORIES + "/someid")
+                .body(Mono.just(Category.builder().description("Some category").build()), Category.class)
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+    }
+
+    @Test
+    public void patchGivesUpAfterRepeatedConflicts() {
+        given(vendorRepository.findById(anyString()))
+                .willReturn(Mono.fromSupplier(() -> Vendor.builder().firstName("Jim").version(1L).build()));
+        given(vendorRepository.save(any(Vendor.class)))
+                .willReturn(Mono.error(new OptimisticLockingFailureException("stale")));
+
+        webTestClient.patch().uri(VendorController.API_V1_VENDORS + "/someid")
+                .body(Mono.just(Vendor.builder().firstName("Joe").build()), Vendor.class)
+                .exchange()
+                .expectStatus()
+                .isEqualTo(HttpStatus.CONFLICT);
+
+        verify(vendorRepository, times(4)).save(any());
+    }
+}
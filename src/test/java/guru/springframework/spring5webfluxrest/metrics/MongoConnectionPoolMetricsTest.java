@@ -0,0 +1,42 @@
+package guru.springframework.spring5webfluxrest.metrics;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionPoolSettings;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionPoolOpenedEvent;
+import com.mongodb.event.ConnectionPoolWaitQueueEnteredEvent;
+import com.mongodb.event.ConnectionPoolWaitQueueExitedEvent;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MongoConnectionPoolMetricsTest {
+    private static final ServerId SERVER = new ServerId(new ClusterId(), new ServerAddress("localhost", 27017));
+
+    @Test
+    public void timesWaitsForAConnection() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MongoConnectionPoolMetrics metrics = new MongoConnectionPoolMetrics();
+        // pools open before the registry binds
+        metrics.connectionPoolOpened(new ConnectionPoolOpenedEvent(SERVER, ConnectionPoolSettings.builder().build()));
+        metrics.bindTo(registry);
+
+        metrics.waitQueueEntered(new ConnectionPoolWaitQueueEnteredEvent(SERVER));
+        metrics.waitQueueEntered(new ConnectionPoolWaitQueueEnteredEvent(SERVER));
+        assertEquals(2, registry.get("mongodb.driver.pool.waitqueuesize").gauge().value(), 0);
+
+        Thread.sleep(20);
+        metrics.waitQueueExited(new ConnectionPoolWaitQueueExitedEvent(SERVER));
+
+        Timer waits = registry.get("mongodb.driver.pool.checkout.wait").tag("server", "localhost:27017").timer();
+        assertEquals(1, waits.count());
+        assertTrue(waits.totalTime(TimeUnit.MILLISECONDS) >= 20);
+        assertEquals(1, registry.get("mongodb.driver.pool.waitqueuesize").gauge().value(), 0);
+    }
+}
@@ -0,0 +1,57 @@
+package guru.springframework.spring5webfluxrest.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReactorSchedulerMetricsTest {
+
+    @BeforeClass
+    public static void install() {
+        ReactorSchedulerMetrics.install();
+    }
+
+    @Test
+    public void bindsOnlyTheSharedSchedulers() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new ReactorSchedulerMetrics().bindTo(registry);
+
+        Mono.just(1).publishOn(Schedulers.parallel()).block();
+        Scheduler custom = Schedulers.newParallel("custom", 2);
+        Mono.just(1).publishOn(custom).block();
+        custom.dispose();
+
+        Set<String> names = executorNames(registry);
+        assertTrue(names.contains("reactor-parallel-0"));
+        assertEquals(Schedulers.DEFAULT_POOL_SIZE, names.stream().filter(name -> name.startsWith("reactor-parallel-")).count());
+    }
+
+    @Test
+    public void sharedSchedulerCreatedAgainTakesOverItsMeters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new ReactorSchedulerMetrics().bindTo(registry);
+        Mono.just(1).publishOn(Schedulers.single()).block();
+        int meters = registry.getMeters().size();
+
+        Schedulers.shutdownNow();
+        Mono.just(1).publishOn(Schedulers.single()).block();
+
+        assertEquals(meters, registry.getMeters().size());
+        assertEquals(1, registry.get("executor.pool.size").tag("name", "reactor-single-0").gauge().value(), 0);
+    }
+
+    private static Set<String> executorNames(SimpleMeterRegistry registry) {
+        return registry.getMeters().stream()
+                .map(meter -> meter.getId().getTag("name"))
+                .collect(Collectors.toSet());
+    }
+}
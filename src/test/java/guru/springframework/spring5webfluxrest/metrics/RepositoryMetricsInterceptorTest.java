@@ -0,0 +1,84 @@
+package guru.springframework.spring5webfluxrest.metrics;
+
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import guru.springframework.spring5webfluxrest.repositories.VendorRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class RepositoryMetricsInterceptorTest {
+
+    MeterRegistry registry;
+    VendorRepository vendorRepository;
+    VendorRepository timedRepository;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new SimpleMeterRegistry();
+        vendorRepository = mock(VendorRepository.class);
+
+        ProxyFactory proxyFactory = new ProxyFactory();
+        proxyFactory.setInterfaces(VendorRepository.class);
+        proxyFactory.setTarget(vendorRepository);
+        proxyFactory.addAdvice(new RepositoryMetricsInterceptor(() -> registry, "VendorRepository"));
+        timedRepository = (VendorRepository) proxyFactory.getProxy();
+    }
+
+    @Test
+    public void recordsSuccessfulCalls() {
+        given(vendorRepository.findById(anyString())).willReturn(Mono.just(Vendor.builder().id("1").build()));
+
+        timedRepository.findById("1").block();
+        timedRepository.findById("2").block();
+
+        assertEquals(2, timer("findById", "SUCCESS").count());
+    }
+
+    @Test
+    public void recordsFailedCalls() {
+        given(vendorRepository.save(any(Vendor.class))).willReturn(Mono.error(new IllegalStateException()));
+
+        timedRepository.save(new Vendor()).onErrorResume(e -> Mono.empty()).block();
+
+        assertEquals(1, timer("save", "ERROR").count());
+        assertEquals(0, timer("save", "SUCCESS").count());
+    }
+
+    @Test
+    public void recordsCanceledStreams() {
+        given(vendorRepository.findAllBy(any(Pageable.class))).willReturn(Flux.range(0, 10).map(i -> new Vendor()));
+
+        timedRepository.findAllBy(Pageable.unpaged()).take(2).blockLast();
+
+        assertEquals(1, timer("findAllBy", "CANCELED").count());
+    }
+
+    @Test
+    public void startsTimingOnSubscription() {
+        given(vendorRepository.findById(anyString())).willReturn(Mono.just(new Vendor()));
+
+        timedRepository.findById("1");
+
+        assertEquals(0, timer("findById", "SUCCESS").count());
+    }
+
+    private Timer timer(String method, String outcome) {
+        return registry.get(RepositoryMetricsInterceptor.METRIC_NAME)
+                .tag("repository", "VendorRepository")
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .timer();
+    }
+}
@@ -0,0 +1,102 @@
+package guru.springframework.spring5webfluxrest.repositories;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class BulkWriteRepositoryTest {
+
+    MongoCollection<Document> collection;
+    BulkWriteRepository bulkWriteRepository;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        collection = mock(MongoCollection.class);
+        ReactiveMongoOperations mongoOperations = mock(ReactiveMongoOperations.class);
+        given(mongoOperations.getConverter()).willReturn(converter);
+        given(mongoOperations.getCollectionName(Vendor.class)).willReturn("vendor");
+        given(mongoOperations.getCollection("vendor")).willReturn(collection);
+        bulkWriteRepository = new BulkWriteRepository(mongoOperations);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void insertStartsAtVersionZeroWithoutChangingTheEntity() {
+        given(collection.bulkWrite(anyList(), any(BulkWriteOptions.class)))
+                .willReturn(Mono.just(BulkWriteResult.acknowledged(1, 0, 0, 0, Collections.emptyList())));
+        Vendor vendor = Vendor.builder().id("a").lastName("Buck").build();
+
+        bulkWriteRepository.insertUnordered(Vendor.class, Collections.singletonList(vendor)).block();
+
+        Document inserted = ((InsertOneModel<Document>) writes().get(0)).getDocument();
+        assertEquals(0L, inserted.get("version"));
+        assertNull(vendor.getVersion());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void replaceIncrementsExistingAndInsertsNewAtVersionZero() {
+        given(collection.bulkWrite(anyList(), any(BulkWriteOptions.class)))
+                .willReturn(Mono.just(BulkWriteResult.acknowledged(0, 2, 0, 1,
+                        Collections.singletonList(new BulkWriteUpsert(3, new BsonString("b"))))));
+
+        BulkWriteRepository.ReplaceResult result = bulkWriteRepository.replaceUnordered(Vendor.class, Arrays.asList(
+                Vendor.builder().id("a").lastName("Buck").version(4L).build(),
+                Vendor.builder().id("b").lastName("West").build())).block();
+
+        List<WriteModel<Document>> writes = writes();
+        assertEquals(4, writes.size());
+        UpdateOneModel<Document> replace = (UpdateOneModel<Document>) writes.get(0);
+        assertEquals(new Document("version", 1L), update(replace).get("$inc"));
+        assertEquals(false, replace.getOptions().isUpsert());
+        UpdateOneModel<Document> insert = (UpdateOneModel<Document>) writes.get(1);
+        assertEquals(0L, ((Document) update(insert).get("$setOnInsert")).get("version"));
+        assertEquals(true, insert.getOptions().isUpsert());
+
+        // one replaced, one inserted; the upsert after the replace matching again is not counted
+        assertEquals(1, result.getMatched());
+        assertEquals(1, result.getUpserted());
+        assertEquals(2, result.getWritten());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<WriteModel<Document>> writes() {
+        ArgumentCaptor<List<WriteModel<Document>>> writes = ArgumentCaptor.forClass((Class) List.class);
+        verify(collection).bulkWrite(writes.capture(), any(BulkWriteOptions.class));
+        return writes.getValue();
+    }
+
+    private static Document update(UpdateOneModel<Document> model) {
+        return (Document) model.getUpdate();
+    }
+}
@@ -0,0 +1,60 @@
+package guru.springframework.spring5webfluxrest.repositories;
+
+import guru.springframework.spring5webfluxrest.domain.Category;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class CategorySearchRepositoryImplTest {
+    ReactiveMongoOperations mongoOperations;
+    CategorySearchRepositoryImpl searchRepository;
+
+    @Before
+    public void setUp() {
+        mongoOperations = mock(ReactiveMongoOperations.class);
+        given(mongoOperations.find(any(Query.class), eq(Category.class))).willReturn(Flux.empty());
+        searchRepository = new CategorySearchRepositoryImpl(mongoOperations);
+    }
+
+    @Test
+    public void descriptionUsesTheCaseInsensitiveIndex() {
+        searchRepository.search(CategorySearch.builder().description("fruits").build(), null, PageRequest.of(0, 10)).blockLast();
+
+        Query query = findQuery();
+        assertEquals("fruits", query.getQueryObject().get("description"));
+        assertTrue(query.getCollation().isPresent());
+    }
+
+    @Test
+    public void descriptionWithTextSearchHasNoCollation() {
+        searchRepository.search(CategorySearch.builder().description("fruits").q("fresh").build(), null, PageRequest.of(0, 10)).blockLast();
+
+        Query query = findQuery();
+        assertTrue(query.getQueryObject().containsKey("$text"));
+        Pattern description = (Pattern) query.getQueryObject().get("description");
+        assertTrue(description.matcher("Fruits").matches());
+        assertFalse(description.matcher("Dried Fruits").matches());
+        assertFalse(query.getCollation().isPresent());
+    }
+
+    private Query findQuery() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoOperations).find(query.capture(), eq(Category.class));
+        return query.getValue();
+    }
+}
@@ -0,0 +1,82 @@
+package guru.springframework.spring5webfluxrest.repositories;
+
+import guru.springframework.spring5webfluxrest.domain.Vendor;
+import org.bson.Document;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class VendorSearchRepositoryImplTest {
+    private static final PageRequest PAGE = PageRequest.of(0, 10, Sort.by("id"));
+
+    ReactiveMongoOperations mongoOperations;
+    VendorSearchRepositoryImpl searchRepository;
+
+    @Before
+    public void setUp() {
+        mongoOperations = mock(ReactiveMongoOperations.class);
+        given(mongoOperations.find(any(Query.class), eq(Vendor.class))).willReturn(Flux.empty());
+        searchRepository = new VendorSearchRepositoryImpl(mongoOperations);
+    }
+
+    @Test
+    public void exactLastNamePagesById() {
+        searchRepository.search(VendorSearch.builder().lastName("Buck").build(), "b", PAGE).blockLast();
+
+        Query query = findQuery();
+        assertEquals(new Document("id", 1), query.getSortObject());
+        assertEquals(new Document("$gt", "b"), query.getQueryObject().get("id"));
+        verify(mongoOperations, never()).findOne(any(Query.class), eq(Vendor.class));
+    }
+
+    @Test
+    public void lastNamePrefixPagesByLastNameAfterTheLastVendor() {
+        given(mongoOperations.findOne(any(Query.class), eq(Vendor.class)))
+                .willReturn(Mono.just(Vendor.builder().id("b").lastName("Buck").build()));
+
+        searchRepository.search(VendorSearch.builder().lastName("Bu*").build(), "b", PAGE).blockLast();
+
+        Query query = findQuery();
+        assertEquals(new Document("lastName", 1).append("id", 1), query.getSortObject());
+        List<?> and = (List<?>) query.getQueryObject().get("$and");
+        assertTrue(((Document) and.get(0)).get("lastName") instanceof Pattern);
+        assertEquals(new Document("lastName", new Document("$gte", "Buck")), and.get(1));
+        List<?> or = (List<?>) ((Document) and.get(2)).get("$or");
+        assertEquals(new Document("lastName", new Document("$gt", "Buck")), or.get(0));
+        assertEquals(new Document("id", new Document("$gt", "b")), or.get(1));
+    }
+
+    @Test
+    public void lastNamePrefixAfterAMissingVendorFails() {
+        given(mongoOperations.findOne(any(Query.class), eq(Vendor.class))).willReturn(Mono.empty());
+
+        StepVerifier.create(searchRepository.search(VendorSearch.builder().lastName("Bu*").build(), "gone", PAGE))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+    }
+
+    private Query findQuery() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoOperations).find(query.capture(), eq(Vendor.class));
+        return query.getValue();
+    }
+}